@@ -0,0 +1,145 @@
+package mvh.world;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import mvh.Menu;
+import mvh.enums.LogLevel;
+import mvh.enums.WeaponType;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The world every benchmark runs on: a square map of SIZExSIZE with a share DENSITY of its locations holding an
+ * entity, a share HERO_SHARE of them heroes and the rest monsters (with a random weapon type). Entities are placed at
+ * random with a fixed seed, so each combination of parameters is the same world in every run. The map is stored
+ * sparsely from 2,048x2,048 up, as World(rows, columns) does. Nothing is logged.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class BenchWorld {
+
+    /**
+     * Seed of the entity placement and of the worlds' random number generators
+     */
+    static final long SEED = 42;
+
+    /**
+     * Width and height of the map
+     */
+    @Param({"10", "100", "1000", "4000"})
+    public int size;
+    /**
+     * Share of the locations holding an entity
+     */
+    @Param({"0.05", "0.2"})
+    public double density;
+    /**
+     * Share of the entities that are heroes
+     */
+    @Param({"0.5", "0.2"})
+    public double heroShare;
+
+    /**
+     * The world as built (benchmarks that change a world work on a copy)
+     */
+    World template;
+    /**
+     * Row of every hero, in entity order
+     */
+    int[] heroRows;
+    /**
+     * Column of every hero, in entity order
+     */
+    int[] heroColumns;
+    /**
+     * Row of every monster, in entity order
+     */
+    int[] monsterRows;
+    /**
+     * Column of every monster, in entity order
+     */
+    int[] monsterColumns;
+
+    /**
+     * Build the world (there is always at least one hero, at the top left, and one monster, at the bottom right)
+     */
+    @Setup
+    public void build() {
+        Menu.setLevel(LogLevel.OFF);
+        Random random = new Random(SEED);
+        WeaponType[] weapons = WeaponType.values();
+        template = new World(size, size);
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                boolean first = row == 0 && column == 0;
+                boolean last = row == size - 1 && column == size - 1;
+                if (!first && !last && random.nextDouble() >= density) {
+                    continue;
+                }
+                if (first || (!last && random.nextDouble() < heroShare)) {
+                    template.addEntity(row, column, new Hero(10, 'H', 1 + random.nextInt(5), random.nextInt(3)));
+                } else {
+                    template.addEntity(row, column, new Monster(10, 'M', weapons[random.nextInt(weapons.length)]));
+                }
+            }
+        }
+        template.setRandom(new Random(SEED));
+        Entity.resetIDCounter();
+
+        int heroes = template.getHeroesAlive();
+        int monsters = template.getMonstersAlive();
+        heroRows = new int[heroes];
+        heroColumns = new int[heroes];
+        monsterRows = new int[monsters];
+        monsterColumns = new int[monsters];
+        int hero = 0;
+        int monster = 0;
+        for (int index = 0; index < template.getEntityCount(); index++) {
+            long location = template.getLocationAt(index);
+            int row = (int) (location >> 32);
+            int column = (int) location;
+            if (template.getEntityAt(index) instanceof Hero) {
+                heroRows[hero] = row;
+                heroColumns[hero++] = column;
+            } else {
+                monsterRows[monster] = row;
+                monsterColumns[monster++] = column;
+            }
+        }
+    }
+
+    /**
+     * Write the world as a SPARSE text world file (see Reader.loadWorld)
+     *
+     * @param file The file to write
+     * @throws IOException If it cannot be written
+     */
+    void writeSparse(File file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.US_ASCII)) {
+            writer.write("SPARSE\n" + size + "\n" + size + "\n");
+            template.forEachOccupied((row, column, entity) -> {
+                try {
+                    if (entity instanceof Hero) {
+                        writer.write(String.format("%d,%d,HERO,%c,%d,%d,%d%n", row, column, entity.getSymbol(),
+                                entity.getHealth(), entity.weaponStrength(), entity.armorStrength()));
+                    } else if (entity instanceof Monster) {
+                        writer.write(String.format("%d,%d,MONSTER,%c,%d,%c%n", row, column, entity.getSymbol(),
+                                entity.getHealth(), ((Monster) entity).getWeaponType().name().charAt(0)));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package mvh.world;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of single move decisions: Hero.chooseMove and Monster.chooseMove through a 5x5 LocalWindow, as the tick
+ * loop makes them. Each call decides for the next hero (or monster) of the BenchWorld in entity order, so every
+ * neighbourhood of the map is measured. The world is not changed.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionBenchmark {
+
+    /**
+     * The window decisions are made through
+     */
+    private LocalWindow window;
+    /**
+     * Next hero to decide for
+     */
+    private int nextHero;
+    /**
+     * Next monster to decide for
+     */
+    private int nextMonster;
+
+    /**
+     * Make the window into the benchmark world
+     *
+     * @param bench The benchmark world
+     */
+    @Setup
+    public void window(BenchWorld bench) {
+        window = new LocalWindow(bench.template, 5);
+    }
+
+    /**
+     * Decide where the next hero moves
+     *
+     * @param bench The benchmark world
+     * @return The direction chosen
+     */
+    @Benchmark
+    public Object heroChooseMove(BenchWorld bench) {
+        int hero = nextHero++ % bench.heroRows.length;
+        int row = bench.heroRows[hero];
+        int column = bench.heroColumns[hero];
+        return bench.template.getEntity(row, column).chooseMove(window.center(row, column));
+    }
+
+    /**
+     * Decide where the next monster moves
+     *
+     * @param bench The benchmark world
+     * @return The direction chosen
+     */
+    @Benchmark
+    public Object monsterChooseMove(BenchWorld bench) {
+        int monster = nextMonster++ % bench.monsterRows.length;
+        int row = bench.monsterRows[monster];
+        int column = bench.monsterColumns[monster];
+        return bench.template.getEntity(row, column).chooseMove(window.center(row, column));
+    }
+}
@@ -0,0 +1,68 @@
+package mvh.world;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import mvh.util.Reader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of Reader.loadWorld on the BenchWorld written as a SPARSE text world file to a temporary file.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+    /**
+     * The world file
+     */
+    private File file;
+
+    /**
+     * Write the benchmark world to a temporary file
+     *
+     * @param bench The benchmark world
+     * @throws IOException If it cannot be written
+     */
+    @Setup
+    public void write(BenchWorld bench) throws IOException {
+        file = File.createTempFile("bench-world", ".txt");
+        bench.writeSparse(file);
+    }
+
+    /**
+     * Delete the temporary file
+     */
+    @TearDown
+    public void delete() {
+        file.delete();
+    }
+
+    /**
+     * Load the world file
+     *
+     * @return The world loaded
+     */
+    @Benchmark
+    public World loadWorld() {
+        World world = Reader.loadWorld(file);
+        Entity.resetIDCounter();
+        return world;
+    }
+}
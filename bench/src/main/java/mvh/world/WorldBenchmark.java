@@ -0,0 +1,93 @@
+package mvh.world;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the whole-world operations: simulating a tick, building a 5x5 local World with getLocal and drawing
+ * the map with worldString. Every measurement iteration starts again from a copy of the BenchWorld, so the ticks
+ * measured are always the first ones of the simulation (a finished world is started again).
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldBenchmark {
+
+    /**
+     * The world being simulated in this iteration
+     */
+    private World world;
+    /**
+     * Next entity whose location getLocal is centered on
+     */
+    private int next;
+
+    /**
+     * Start the iteration from a fresh copy of the world
+     *
+     * @param bench The benchmark world
+     */
+    @Setup(Level.Iteration)
+    public void copy(BenchWorld bench) {
+        world = bench.template.copy();
+        world.setRandom(new Random(BenchWorld.SEED));
+        Entity.resetIDCounter();
+    }
+
+    /**
+     * Simulate one tick
+     *
+     * @param bench The benchmark world
+     * @return The world's tick (so the work is not optimized away)
+     */
+    @Benchmark
+    public int advanceSimulation(BenchWorld bench) {
+        if (!world.isActive()) {
+            copy(bench);
+        }
+        world.advanceSimulation();
+        return world.getTick();
+    }
+
+    /**
+     * Build the 5x5 local World around the next hero or monster (going through all of them in turn)
+     *
+     * @param bench The benchmark world
+     * @return The local world
+     */
+    @Benchmark
+    public World getLocal(BenchWorld bench) {
+        int heroes = bench.heroRows.length;
+        int entity = next++ % (heroes + bench.monsterRows.length);
+        if (entity < heroes) {
+            return world.getLocal(5, bench.heroRows[entity], bench.heroColumns[entity]);
+        }
+        return world.getLocal(5, bench.monsterRows[entity - heroes], bench.monsterColumns[entity - heroes]);
+    }
+
+    /**
+     * Draw the whole map as text (what is logged every tick)
+     *
+     * @return The map
+     */
+    @Benchmark
+    public String worldString() {
+        return world.worldString();
+    }
+}
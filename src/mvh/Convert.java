@@ -0,0 +1,74 @@
+package mvh;
+
+import java.io.File;
+import java.io.IOException;
+import mvh.util.BinaryWorld;
+
+/**
+ * Convert a world file between the text format (one line per location) and the binary format (see BinaryWorld).
+ * The format of the input file is detected from its first bytes and the output file is written in the other format.
+ * <p>
+ * Usage: Main --convert &lt;input world&gt; &lt;output world&gt;
+ * <p>
+ * Exit codes: 0 converted, 1 bad arguments or files
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class Convert {
+
+    /**
+     * The argument that selects convert mode (must be first)
+     */
+    static final String FLAG = "--convert";
+
+    /**
+     * The usage line printed for bad arguments
+     */
+    private static final String USAGE = "Usage: Main --convert <input world> <output world>";
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private Convert() {
+    }
+
+    /**
+     * Convert the input world file into the other format
+     *
+     * @param args Program arguments, starting with --convert
+     * @return The exit code for the program
+     */
+    static int run(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Convert mode requires an input and an output world file!");
+            System.err.println(USAGE);
+            return 1;
+        }
+        File fileInput = new File(args[1]);
+        File fileOutput = new File(args[2]);
+        if (!fileInput.exists() || !fileInput.isFile() || !fileInput.canRead()) {
+            System.err.printf("The world file %s does not exist!%n", fileInput.getAbsoluteFile());
+            return 1;
+        }
+        if (fileInput.getAbsoluteFile().equals(fileOutput.getAbsoluteFile())) {
+            System.err.println("The output world file must not be the input world file!");
+            return 1;
+        }
+
+        long start = System.nanoTime();
+        boolean binary = BinaryWorld.isBinary(fileInput);
+        try {
+            if (binary) {
+                BinaryWorld.binaryToText(fileInput, fileOutput);
+            } else {
+                BinaryWorld.textToBinary(fileInput, fileOutput);
+            }
+        } catch (IOException e) {
+            System.err.printf("Unable to convert %s (%s)!%n", fileInput.getAbsoluteFile(), e.getMessage());
+            return 1;
+        }
+        System.out.printf("Converted %s (%s) to %s (%s) in %d ms%n", fileInput.getName(), binary ? "binary" : "text",
+                fileOutput.getName(), binary ? "text" : "binary", (System.nanoTime() - start) / 1_000_000);
+        return 0;
+    }
+}
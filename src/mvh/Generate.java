@@ -0,0 +1,171 @@
+package mvh;
+
+import java.io.File;
+import java.io.IOException;
+import mvh.enums.Layout;
+import mvh.util.WorldGenerator;
+
+/**
+ * Generate a random world file of any size for testing at scale (see WorldGenerator). The same seed and options
+ * always give the same file.
+ * <p>
+ * Usage: Main --generate &lt;output world&gt; &lt;rows&gt; &lt;columns&gt; &lt;seed&gt; [--heroes n] [--monsters n]
+ * [--layout UNIFORM|CLUSTERED|FRONTS|CHECKERBOARD] [--clusters n] [--block n] [--health a-b] [--hero-weapon a-b]
+ * [--hero-armor a-b] [--weapons club:axe:sword] [--format SPARSE|ORIGINAL]
+ * <p>
+ * A number of heroes or monsters with a decimal point (0.05) is a share of all locations, otherwise (5000) it is a
+ * count.
+ * <p>
+ * Exit codes: 0 generated, 1 bad arguments or files
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class Generate {
+
+    /**
+     * The argument that selects generate mode (must be first)
+     */
+    static final String FLAG = "--generate";
+
+    /**
+     * The usage line printed for bad arguments
+     */
+    private static final String USAGE = "Usage: Main --generate <output world> <rows> <columns> <seed> [--heroes n] "
+            + "[--monsters n] [--layout UNIFORM|CLUSTERED|FRONTS|CHECKERBOARD] [--clusters n] [--block n] [--health a-b] "
+            + "[--hero-weapon a-b] [--hero-armor a-b] [--weapons club:axe:sword] [--format SPARSE|ORIGINAL]";
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private Generate() {
+    }
+
+    /**
+     * Generate a world file
+     *
+     * @param args Program arguments, starting with --generate
+     * @return The exit code for the program
+     */
+    static int run(String[] args) {
+        if (args.length < 5 || (args.length - 5) % 2 != 0) {
+            return usage("Generate mode requires an output world, rows, columns and a seed, and every option requires a value!");
+        }
+        File fileOutput = new File(args[1]);
+        WorldGenerator generator;
+        try {
+            generator = new WorldGenerator(Integer.parseInt(args[2]), Integer.parseInt(args[3]), Long.parseLong(args[4]));
+            String heroes = "0.05";
+            String monsters = "0.05";
+            for (int i = 5; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--heroes":
+                        heroes = value;
+                        break;
+                    case "--monsters":
+                        monsters = value;
+                        break;
+                    case "--layout":
+                        generator.setLayout(Layout.valueOf(value));
+                        break;
+                    case "--clusters":
+                        generator.setClusters(Integer.parseInt(value));
+                        break;
+                    case "--block":
+                        generator.setBlockSize(Integer.parseInt(value));
+                        break;
+                    case "--health": {
+                        int[] range = parseRange(value);
+                        generator.setHealth(range[0], range[1]);
+                        break;
+                    }
+                    case "--hero-weapon": {
+                        int[] range = parseRange(value);
+                        generator.setHeroWeapon(range[0], range[1]);
+                        break;
+                    }
+                    case "--hero-armor": {
+                        int[] range = parseRange(value);
+                        generator.setHeroArmor(range[0], range[1]);
+                        break;
+                    }
+                    case "--weapons": {
+                        String[] weights = value.split(":");
+                        int[] mix = new int[weights.length];
+                        for (int w = 0; w < weights.length; w++) {
+                            mix[w] = Integer.parseInt(weights[w].trim());
+                        }
+                        generator.setWeaponMix(mix);
+                        break;
+                    }
+                    case "--format":
+                        if (!value.equals("SPARSE") && !value.equals("ORIGINAL")) {
+                            throw new IllegalArgumentException("The format should be SPARSE or ORIGINAL not " + value);
+                        }
+                        generator.setSparse(value.equals("SPARSE"));
+                        break;
+                    default:
+                        return usage("Unknown option " + args[i] + "!");
+                }
+            }
+            double cells = Double.parseDouble(args[2]) * Double.parseDouble(args[3]);
+            generator.setDensities(parseDensity(heroes, cells), parseDensity(monsters, cells));
+        } catch (IllegalArgumentException e) {
+            return usage("Invalid argument (" + e.getMessage() + ")!");
+        }
+
+        long start = System.nanoTime();
+        try {
+            generator.write(fileOutput);
+        } catch (IllegalArgumentException e) {
+            return usage(e.getMessage() + "!");
+        } catch (IOException e) {
+            System.err.printf("Unable to write %s (%s)!%n", fileOutput.getAbsoluteFile(), e.getMessage());
+            return 1;
+        }
+        System.out.printf("Generated %s with %d heroes and %d monsters in %d ms%n", fileOutput.getName(),
+                generator.getHeroes(), generator.getMonsters(), (System.nanoTime() - start) / 1_000_000);
+        return 0;
+    }
+
+    /**
+     * Read a number of heroes or monsters as a density
+     *
+     * @param value A share of all locations (with a decimal point) or a count
+     * @param cells The number of locations of the map
+     * @return The share of all locations
+     */
+    private static double parseDensity(String value, double cells) {
+        if (value.contains(".")) {
+            return Double.parseDouble(value);
+        }
+        return Long.parseLong(value) / cells;
+    }
+
+    /**
+     * Read a range of values
+     *
+     * @param value The range as lowest-highest (or a single value)
+     * @return The range as {lowest, highest}
+     */
+    private static int[] parseRange(String value) {
+        int dash = value.indexOf('-', 1);
+        if (dash < 0) {
+            int single = Integer.parseInt(value.trim());
+            return new int[]{single, single};
+        }
+        return new int[]{Integer.parseInt(value.substring(0, dash).trim()), Integer.parseInt(value.substring(dash + 1).trim())};
+    }
+
+    /**
+     * Print a problem and the usage line to System.err
+     *
+     * @param problem What was wrong with the arguments
+     * @return The exit code for bad arguments
+     */
+    private static int usage(String problem) {
+        System.err.println(problem);
+        System.err.println(USAGE);
+        return 1;
+    }
+}
@@ -0,0 +1,474 @@
+package mvh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import mvh.enums.LogLevel;
+import mvh.enums.Outcome;
+import mvh.enums.Phase;
+import mvh.enums.RandomMode;
+import mvh.enums.TickMode;
+import mvh.util.Reader;
+import mvh.world.Checkpoint;
+import mvh.world.Hero;
+import mvh.world.Monster;
+import mvh.world.ReplayRecorder;
+import mvh.world.TickEvent;
+import mvh.world.TickMetrics;
+import mvh.world.World;
+import mvh.world.WorldRenderer;
+
+/**
+ * Non-interactive (headless) mode for scripting many runs. Nothing is ever read from System.in: the simulation runs to
+ * completion (or to a tick/time limit), and a single machine-readable result line is printed, for example
+ * RESULT world=world.txt seed=1 outcome=HEROES_WIN ticks=12 heroes=2 monsters=0 heroHealth=9 monsterHealth=0 millis=3
+ * <p>
+ * Usage: Main --headless &lt;world&gt; &lt;seed&gt; [--log &lt;file&gt;|auto] [--level &lt;level&gt;] [--max-ticks &lt;n&gt;] [--max-seconds &lt;n&gt;]
+ * [--tick-mode SEQUENTIAL|SIMULTANEOUS] [--random COMPATIBLE|STREAMS] [--checkpoint &lt;file&gt;]
+ * [--checkpoint-ticks &lt;n&gt;] [--checkpoint-seconds &lt;n&gt;] [--replay &lt;file&gt;] [--keyframe-ticks &lt;n&gt;]
+ * [--pursuit &lt;n&gt;] [--vision &lt;attack&gt;,&lt;move&gt;] [--hero-vision &lt;attack&gt;,&lt;move&gt;]
+ * [--monster-vision &lt;attack&gt;,&lt;move&gt;] [--metrics &lt;file&gt;] [--metrics-seconds &lt;n&gt;]
+ * [--jfr &lt;file&gt;] [--slow-tick-ms &lt;n&gt;] [--jfr-events TICKS|ALL]
+ * <p>
+ * Without --log nothing is logged. --log auto picks a log name from the world and seed that does not overwrite an
+ * existing file, and a named log file is overwritten without asking. Logs are written at SUMMARY level unless --level
+ * is given, and nothing but the result line is shown on the screen.
+ * <p>
+ * With --checkpoint the running world is saved to that file every --checkpoint-ticks ticks and/or every
+ * --checkpoint-seconds seconds, and when a tick/time limit stops it. Passing a checkpoint as the world resumes it: the
+ * tick mode, random mode, pursuit mode, vision and random state come from the checkpoint (the seed and those options are only
+ * reported).
+ * <p>
+ * With --replay every tick is recorded to a compact replay file (see ReplayRecorder) with a keyframe every
+ * --keyframe-ticks ticks (1000 unless given), which Main --replay can show at any tick.
+ * <p>
+ * With --pursuit entities with no enemy in sight head for the nearest enemy on the whole map, following flow fields
+ * recomputed every n ticks (see World.setPursuit, dense maps only).
+ * <p>
+ * --vision sets the sizes of the attack and move views of every entity (3,5 unless given), --hero-vision and
+ * --monster-vision of one type only (see World.setVision). Sizes are odd, from 3 to 63.
+ * <p>
+ * With --metrics every tick is measured (see TickMetrics): the figures are shown over JMX as mvh:type=TickMetrics and
+ * written to that file every --metrics-seconds seconds (10 unless given) and at the end.
+ * <p>
+ * With --jfr the run is recorded with Java Flight Recorder (the JDK's default settings) to that file, adding the
+ * simulation's own events: the world load and every tick of at least --slow-tick-ms milliseconds (see TickEvent), and
+ * with --jfr-events ALL every decision and attack too (see DecisionEvent and AttackEvent).
+ * <p>
+ * Exit codes: 0 the simulation finished, 2 a tick/time limit was reached first, 1 bad arguments or files
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class Headless {
+
+    /**
+     * The argument that selects headless mode (must be first)
+     */
+    static final String FLAG = "--headless";
+
+    /**
+     * Exit code when the simulation finished
+     */
+    static final int EXIT_FINISHED = 0;
+    /**
+     * Exit code for bad arguments or files
+     */
+    static final int EXIT_ERROR = 1;
+    /**
+     * Exit code when a tick or time limit ended the simulation before it finished
+     */
+    static final int EXIT_LIMIT = 2;
+
+    /**
+     * Ticks between the keyframes of a replay unless --keyframe-ticks is given
+     */
+    private static final int DEFAULT_KEYFRAME_TICKS = 1000;
+    /**
+     * Seconds between writing the metrics file unless --metrics-seconds is given
+     */
+    private static final int DEFAULT_METRICS_SECONDS = 10;
+
+    /**
+     * The usage line printed for bad arguments
+     */
+    private static final String USAGE = "Usage: Main --headless <world> <seed> [--log <file>|auto] [--level <level>] [--max-ticks <n>] [--max-seconds <n>] [--tick-mode <mode>] [--random <mode>] [--checkpoint <file>] [--checkpoint-ticks <n>] [--checkpoint-seconds <n>] [--replay <file>] [--keyframe-ticks <n>] [--pursuit <n>] [--vision <attack>,<move>] [--hero-vision <attack>,<move>] [--monster-vision <attack>,<move>] [--metrics <file>] [--metrics-seconds <n>] [--jfr <file>] [--slow-tick-ms <n>] [--jfr-events TICKS|ALL]";
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private Headless() {
+    }
+
+    /**
+     * Run a simulation with no user input
+     *
+     * @param args Program arguments, starting with --headless
+     * @return The exit code for the program
+     */
+    static int run(String[] args) {
+        if (args.length < 3 || (args.length - 3) % 2 != 0) {
+            return usage("Headless mode requires a world and a seed, and every option requires a value!");
+        }
+        File fileWorld = new File(args[1]);
+        String seed = args[2];
+        String log = null;
+        LogLevel level = LogLevel.SUMMARY;
+        long maxTicks = Long.MAX_VALUE;
+        long maxMillis = Long.MAX_VALUE;
+        TickMode tickMode = TickMode.SEQUENTIAL;
+        RandomMode randomMode = RandomMode.COMPATIBLE;
+        File fileCheckpoint = null;
+        long checkpointTicks = 0;
+        long checkpointMillis = 0;
+        File fileReplay = null;
+        int keyframeTicks = DEFAULT_KEYFRAME_TICKS;
+        int pursuitTicks = 0;
+        String vision = null;
+        String heroVision = null;
+        String monsterVision = null;
+        File fileMetrics = null;
+        long metricsMillis = DEFAULT_METRICS_SECONDS * 1000L;
+        File fileRecording = null;
+        Duration slowTick = null;
+        String recordingEvents = "TICKS";
+        try {
+            for (int i = 3; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--log":
+                        log = value;
+                        break;
+                    case "--level":
+                        level = LogLevel.valueOf(value);
+                        break;
+                    case "--max-ticks":
+                        maxTicks = Long.parseLong(value);
+                        break;
+                    case "--max-seconds":
+                        maxMillis = Math.round(Double.parseDouble(value) * 1000);
+                        break;
+                    case "--tick-mode":
+                        tickMode = TickMode.valueOf(value);
+                        break;
+                    case "--random":
+                        randomMode = RandomMode.valueOf(value);
+                        break;
+                    case "--checkpoint":
+                        fileCheckpoint = new File(value);
+                        break;
+                    case "--checkpoint-ticks":
+                        checkpointTicks = Long.parseLong(value);
+                        break;
+                    case "--checkpoint-seconds":
+                        checkpointMillis = Math.round(Double.parseDouble(value) * 1000);
+                        break;
+                    case "--replay":
+                        fileReplay = new File(value);
+                        break;
+                    case "--keyframe-ticks":
+                        keyframeTicks = Integer.parseInt(value);
+                        break;
+                    case "--pursuit":
+                        pursuitTicks = Integer.parseInt(value);
+                        break;
+                    case "--vision":
+                        vision = value;
+                        break;
+                    case "--hero-vision":
+                        heroVision = value;
+                        break;
+                    case "--monster-vision":
+                        monsterVision = value;
+                        break;
+                    case "--metrics":
+                        fileMetrics = new File(value);
+                        break;
+                    case "--metrics-seconds":
+                        metricsMillis = Math.round(Double.parseDouble(value) * 1000);
+                        break;
+                    case "--jfr":
+                        fileRecording = new File(value);
+                        break;
+                    case "--slow-tick-ms":
+                        slowTick = Duration.ofNanos(Math.round(Double.parseDouble(value) * 1_000_000));
+                        break;
+                    case "--jfr-events":
+                        if (!value.equals("TICKS") && !value.equals("ALL")) {
+                            throw new IllegalArgumentException("The JFR events should be TICKS or ALL not " + value);
+                        }
+                        recordingEvents = value;
+                        break;
+                    default:
+                        return usage("Unknown option " + args[i] + "!");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return usage("Invalid option value (" + e.getMessage() + ")!");
+        }
+        if (fileCheckpoint == null && (checkpointTicks > 0 || checkpointMillis > 0)) {
+            return usage("--checkpoint-ticks and --checkpoint-seconds need a --checkpoint file!");
+        }
+        if (keyframeTicks < 1) {
+            return usage("--keyframe-ticks must be > 0!");
+        }
+        if (pursuitTicks < 0) {
+            return usage("--pursuit must be >= 0!");
+        }
+        if (metricsMillis <= 0) {
+            return usage("--metrics-seconds must be > 0!");
+        }
+        if (slowTick != null && slowTick.isNegative()) {
+            return usage("--slow-tick-ms must be >= 0!");
+        }
+        if (fileRecording == null && (slowTick != null || !recordingEvents.equals("TICKS"))) {
+            return usage("--slow-tick-ms and --jfr-events need a --jfr file!");
+        }
+
+        if (!fileWorld.exists() || !fileWorld.isFile() || !fileWorld.canRead()) {
+            System.err.printf("The world file %s does not exist!%n", fileWorld.getAbsoluteFile());
+            return EXIT_ERROR;
+        }
+        Main.setupRNG(seed);
+
+        //Set up logging to file only (or no logging at all)
+        Menu.setEcho(false);
+        if (log == null) {
+            Menu.setLevel(LogLevel.OFF);
+        } else {
+            File fileLog = log.equals("auto") ? autoLogFile(fileWorld, seed) : new File(log);
+            Menu.setup(fileLog);
+            Menu.setLevel(level);
+        }
+
+        //Recording starts before the world is loaded so the load is recorded too
+        Recording recording = null;
+        if (fileRecording != null) {
+            try {
+                recording = startRecording(fileRecording, slowTick, recordingEvents.equals("ALL"));
+            } catch (IOException | ParseException e) {
+                System.err.printf("Unable to record %s (%s)!%n", fileRecording.getAbsoluteFile(), e.getMessage());
+                Menu.close();
+                return EXIT_ERROR;
+            }
+        }
+
+        long start = System.nanoTime();
+        //A checkpoint carries its own tick mode, random mode, pursuit mode, vision and random state
+        boolean resume = Checkpoint.isCheckpoint(fileWorld);
+        World world = Reader.loadWorld(fileWorld);
+        if (!resume) {
+            world.setTickMode(tickMode);
+            if (randomMode == RandomMode.STREAMS) {
+                world.useRandomStreams(Integer.parseInt(seed));
+            }
+            try {
+                setVision(world, vision, heroVision, monsterVision);
+            } catch (IllegalArgumentException e) {
+                Menu.close();
+                return usage(e.getMessage());
+            }
+            try {
+                world.setPursuit(pursuitTicks);
+            } catch (IllegalStateException e) {
+                System.err.printf("Unable to pursue in %s (%s)!%n", fileWorld.getName(), e.getMessage());
+                Menu.close();
+                return EXIT_ERROR;
+            }
+        }
+        ReplayRecorder recorder = null;
+        if (fileReplay != null) {
+            try {
+                recorder = new ReplayRecorder(fileReplay, keyframeTicks);
+                world.setRecorder(recorder);
+            } catch (IOException e) {
+                System.err.printf("Unable to record replay %s (%s)!%n", fileReplay.getAbsoluteFile(), e.getMessage());
+                Menu.close();
+                return EXIT_ERROR;
+            }
+        }
+        TickMetrics metrics = null;
+        if (fileMetrics != null) {
+            metrics = new TickMetrics();
+            world.setMetrics(metrics);
+            try {
+                metrics.register();
+            } catch (javax.management.JMException e) {
+                System.err.printf("Unable to show metrics over JMX (%s)!%n", e.getMessage());
+            }
+        }
+        boolean limited = false;
+        long lastCheckpoint = System.nanoTime();
+        long lastMetrics = System.nanoTime();
+        while (world.isActive()) {
+            if (world.getTick() >= maxTicks || (System.nanoTime() - start) / 1_000_000 >= maxMillis) {
+                limited = true;
+                //Save before ending, so the checkpoint can carry on from here
+                if (fileCheckpoint != null) {
+                    Main.saveCheckpoint(world, fileCheckpoint);
+                }
+                world.endSimulation();
+                break;
+            }
+            if (Menu.isLogging(LogLevel.TICK)) {
+                long rendering = System.nanoTime();
+                ByteBuffer[] rendered = WorldRenderer.encode(world);
+                long logging = System.nanoTime();
+                Menu.printEncoded(rendered);
+                if (metrics != null) {
+                    metrics.addPhaseTime(Phase.RENDER, logging - rendering);
+                    metrics.addPhaseTime(Phase.LOG, System.nanoTime() - logging);
+                }
+            }
+            world.advanceSimulation();
+            if (metrics != null && (System.nanoTime() - lastMetrics) / 1_000_000 >= metricsMillis) {
+                writeMetrics(metrics, fileMetrics);
+                lastMetrics = System.nanoTime();
+            }
+            if (fileCheckpoint != null && world.isActive()
+                    && ((checkpointTicks > 0 && world.getTick() % checkpointTicks == 0)
+                    || (checkpointMillis > 0 && (System.nanoTime() - lastCheckpoint) / 1_000_000 >= checkpointMillis))) {
+                Main.saveCheckpoint(world, fileCheckpoint);
+                lastCheckpoint = System.nanoTime();
+            }
+        }
+        if (recorder != null) {
+            try {
+                world.setRecorder(null);
+                recorder.close();
+            } catch (IOException e) {
+                System.err.printf("Unable to record replay %s (%s)!%n", fileReplay.getAbsoluteFile(), e.getMessage());
+            }
+        }
+        if (metrics != null) {
+            writeMetrics(metrics, fileMetrics);
+        }
+        if (recording != null) {
+            //Stopping writes the recording to its file
+            recording.stop();
+            recording.close();
+        }
+        Outcome outcome = world.getOutcome();
+        if (Menu.isLogging(LogLevel.SUMMARY)) {
+            Menu.printWorld(world);
+            Menu.println(outcome.getMessage());
+        }
+        Menu.close();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("RESULT world=%s seed=%s outcome=%s ticks=%d heroes=%d monsters=%d heroHealth=%d monsterHealth=%d millis=%d%n",
+                fileWorld.getName(), seed, outcome, world.getTick(), world.getHeroesAlive(), world.getMonstersAlive(),
+                world.getHeroHealth(), world.getMonsterHealth(), millis);
+        return limited ? EXIT_LIMIT : EXIT_FINISHED;
+    }
+
+    /**
+     * Start a Java Flight Recorder recording of the JDK's default events and the simulation's own events
+     *
+     * @param fileRecording The file written when the recording stops
+     * @param slowTick      The shortest tick recorded (null keeps TickEvent.SLOW_TICK)
+     * @param all           Record every decision and attack too
+     * @return The running recording
+     * @throws IOException    If the file cannot be written or the default settings read
+     * @throws ParseException If the default settings cannot be read
+     */
+    private static Recording startRecording(File fileRecording, Duration slowTick, boolean all) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        if (slowTick != null) {
+            recording.enable(TickEvent.class).withThreshold(slowTick);
+        }
+        if (all) {
+            recording.enable("mvh.EntityDecision");
+            recording.enable("mvh.Attack");
+        }
+        recording.setDestination(fileRecording.toPath());
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Write the metrics file, printing an error if it cannot be written
+     *
+     * @param metrics     The metrics
+     * @param fileMetrics The metrics file (replaced atomically)
+     */
+    private static void writeMetrics(TickMetrics metrics, File fileMetrics) {
+        try {
+            metrics.write(fileMetrics);
+        } catch (IOException e) {
+            System.err.printf("Unable to write metrics %s (%s)!%n", fileMetrics.getAbsoluteFile(), e.getMessage());
+        }
+    }
+
+    /**
+     * Pick a log file named after the world and seed that does not exist yet (world-seed.log, world-seed-1.log, ...)
+     *
+     * @param fileWorld The world file
+     * @param seed      The seed
+     * @return A log file that does not exist yet
+     */
+    private static File autoLogFile(File fileWorld, String seed) {
+        String name = fileWorld.getName();
+        int dot = name.lastIndexOf('.');
+        String base = (dot > 0 ? name.substring(0, dot) : name) + "-" + seed;
+        File fileLog = new File(base + ".log");
+        for (int n = 1; fileLog.exists(); n++) {
+            fileLog = new File(base + "-" + n + ".log");
+        }
+        return fileLog;
+    }
+
+    /**
+     * Set the views of a world from the values of --vision, --hero-vision and --monster-vision
+     *
+     * @param world    The world
+     * @param all      Sizes "attack,move" for every entity (null keeps the default)
+     * @param heroes   Sizes "attack,move" for heroes only (null keeps them)
+     * @param monsters Sizes "attack,move" for monsters only (null keeps them)
+     * @throws IllegalArgumentException If a value is not two valid view sizes
+     */
+    static void setVision(World world, String all, String heroes, String monsters) {
+        if (all != null) {
+            int[] sizes = parseVision(all);
+            world.setVision(sizes[0], sizes[1]);
+        }
+        if (heroes != null) {
+            int[] sizes = parseVision(heroes);
+            world.setVision(Hero.class, sizes[0], sizes[1]);
+        }
+        if (monsters != null) {
+            int[] sizes = parseVision(monsters);
+            world.setVision(Monster.class, sizes[0], sizes[1]);
+        }
+    }
+
+    /**
+     * Read the view sizes of a vision option
+     *
+     * @param value The option value, "attack,move"
+     * @return The attack size and the move size
+     * @throws IllegalArgumentException If the value is not two integers
+     */
+    private static int[] parseVision(String value) {
+        String[] sizes = value.split(",");
+        if (sizes.length != 2) {
+            throw new IllegalArgumentException("A vision should be <attack size>,<move size> not " + value + "!");
+        }
+        return new int[]{Integer.parseInt(sizes[0].trim()), Integer.parseInt(sizes[1].trim())};
+    }
+
+    /**
+     * Print an argument error and the usage line
+     *
+     * @param message The error message
+     * @return The error exit code
+     */
+    private static int usage(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        return EXIT_ERROR;
+    }
+}
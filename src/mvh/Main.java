@@ -3,7 +3,9 @@ package mvh;
 import java.io.File;
 import java.io.IOException;
 import java.util.Random;
+import mvh.enums.LogLevel;
 import mvh.util.Reader;
+import mvh.world.Checkpoint;
 import mvh.world.World;
 
 /**
@@ -27,10 +29,32 @@ public final class Main {
     /**
      * Check arguments, read world, setup logger, and start simulation
      *
-     * @param args Program arguments, Usage: Main &lt;world&gt; &lt;log&gt; &lt;seed&gt;
+     * @param args Program arguments, Usage: Main &lt;world&gt; &lt;log&gt; &lt;seed&gt; [level] (or Main --headless/--tournament/--convert/--replay/--generate ...)
+     *             The world can be a checkpoint, which resumes the saved simulation with its own random state
      */
     public static void main(String[] args) {
-        //Check for 3 arguments
+        //Headless mode never waits on the user (see Headless for its arguments)
+        if (args.length > 0 && args[0].equals(Headless.FLAG)) {
+            System.exit(Headless.run(args));
+        }
+        //Tournament mode simulates many seeds of one world at once (see Tournament for its arguments)
+        if (args.length > 0 && args[0].equals(Tournament.FLAG)) {
+            System.exit(Tournament.run(args));
+        }
+        //Convert mode turns a text world file into a binary one, or a binary one into text (see Convert)
+        if (args.length > 0 && args[0].equals(Convert.FLAG)) {
+            System.exit(Convert.run(args));
+        }
+        //Replay mode rebuilds a recorded run at any tick (see Replay)
+        if (args.length > 0 && args[0].equals(Replay.FLAG)) {
+            System.exit(Replay.run(args));
+        }
+        //Generate mode writes a random world file of any size (see Generate)
+        if (args.length > 0 && args[0].equals(Generate.FLAG)) {
+            System.exit(Generate.run(args));
+        }
+
+        //Check for 3 arguments (and the optional log level)
         checkArgument(args);
 
         //Get the two filenames
@@ -45,21 +69,80 @@ public final class Main {
 
         //Set up Menu with logger and read world from file
         Menu.setup(fileLog);
+        if (args.length == 4) {
+            setupLevel(args[3]);
+        }
         World world = Reader.loadWorld(fileWorld);
 
+        //Typing S at the step prompt saves a checkpoint next to the log file, pass it as the world to resume
+        File fileCheckpoint = checkpointFile(fileLog);
+        Menu.setSaveAction(() -> {
+            if (saveCheckpoint(world, fileCheckpoint)) {
+                System.out.printf("Checkpoint of tick %d saved to %s%n", world.getTick(), fileCheckpoint.getAbsoluteFile());
+            }
+        });
+
         //Run simulation
         runSimulation(world);
     }
 
     /**
-     * Verify that program has the 3 command line arguments necessary
+     * The checkpoint file saved on request for a log file (the log name with a .ckpt extension)
+     *
+     * @param fileLog The log file
+     * @return The checkpoint file next to it
+     */
+    private static File checkpointFile(File fileLog) {
+        String name = fileLog.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(fileLog.getAbsoluteFile().getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".ckpt");
+    }
+
+    /**
+     * Save a checkpoint of the world (between ticks), printing an error if it cannot be written
+     *
+     * @param world          The world to save
+     * @param fileCheckpoint The checkpoint file (replaced atomically)
+     * @return True if the checkpoint was written
+     */
+    static boolean saveCheckpoint(World world, File fileCheckpoint) {
+        try {
+            Checkpoint.write(world, fileCheckpoint);
+            return true;
+        } catch (IOException e) {
+            System.err.printf("Unable to write checkpoint %s (%s)!%n", fileCheckpoint.getAbsoluteFile(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Verify that program has the 3 command line arguments necessary (a 4th log level is optional)
      *
      * @param args The program arguments
      */
     private static void checkArgument(String[] args) {
-        if (args.length != 3) {
-            System.err.println("Program requires 2 arguments!");
-            System.err.println("Usage: Main <world> <log> <seed>");
+        if (args.length != 3 && args.length != 4) {
+            System.err.println("Program requires 3 arguments!");
+            System.err.println("Usage: Main <world> <log> <seed> [OFF/SUMMARY/TICK/ACTION]");
+            System.err.println("   or: Main --headless <world> <seed> [options] (runs without any user input)");
+            System.err.println("   or: Main --tournament <world> <first seed> <count> [options] (simulates many seeds at once)");
+            System.err.println("   or: Main --convert <input world> <output world> (text world file to binary, or binary to text)");
+            System.err.println("   or: Main --replay <replay> [tick] (shows a recorded run at a tick)");
+            System.err.println("   or: Main --generate <output world> <rows> <columns> <seed> [options] (writes a random world file)");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Setup how much of the simulation is printed/logged
+     *
+     * @param level The name of the log level
+     */
+    private static void setupLevel(String level) {
+        try {
+            Menu.setLevel(LogLevel.valueOf(level));
+        } catch (IllegalArgumentException e) {
+            System.err.printf("Fourth argument %s should be a log level (OFF/SUMMARY/TICK/ACTION)!%n", level);
             System.exit(1);
         }
     }
@@ -69,7 +152,7 @@ public final class Main {
      *
      * @param seed The integer seed for the RNG
      */
-    private static void setupRNG(String seed) {
+    static void setupRNG(String seed) {
         try {
             random = new Random(Integer.parseInt(seed));
         } catch (Exception e) {
@@ -125,15 +208,24 @@ public final class Main {
      */
     private static void runSimulation(World world) {
         while (world.isActive()) {
-            String message = world.gameString();
-            Menu.println(message);
+            //Only render the world if it will be shown
+            if (Menu.isLogging(LogLevel.TICK)) {
+                Menu.printWorld(world);
+            }
             if (Menu.continueSimulation()) {
                 world.advanceSimulation();
             } else {
                 world.endSimulation();
             }
         }
-        String message = world.gameString();
-        Menu.println(message);
+        if (Menu.isLogging(LogLevel.SUMMARY)) {
+            Menu.printWorld(world);
+        }
+        //The outcome line is only added when the final game is all that is shown (other levels print as they always did)
+        if (Menu.getLevel() == LogLevel.SUMMARY) {
+            Menu.println(world.getOutcome().getMessage());
+        }
+        //Write out anything still buffered for the screen and log file
+        Menu.close();
     }
 }
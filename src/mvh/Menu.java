@@ -1,8 +1,17 @@
 package mvh;
 
+import mvh.enums.LogLevel;
+import mvh.enums.OverflowPolicy;
 import mvh.util.Logger;
+import mvh.world.World;
+import mvh.world.WorldRenderer;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.Scanner;
 
 /**
@@ -16,6 +25,14 @@ public final class Menu {
      * The scanner to access System.in input commands
      */
     private static final Scanner scanner = new Scanner(System.in);
+    /**
+     * Buffered stream to the screen, flushed before any prompt and when the menu is closed (instead of every line)
+     */
+    private static final PrintStream console = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+    /**
+     * Number of log entries that can wait for the background log writer
+     */
+    private static final int LOG_CAPACITY = 8192;
     /**
      * A Logger for logging program execution to an output file
      */
@@ -27,12 +44,89 @@ public final class Menu {
     private static boolean ignore = false;
 
     /**
-     * Set up the logger with a filename
+     * Should printed objects also be shown on the screen (otherwise they only go to the log file)
+     */
+    private static boolean echo = true;
+
+    /**
+     * How much of the simulation is printed/logged (everything by default)
+     */
+    private static LogLevel level = LogLevel.ACTION;
+
+    /**
+     * What to run when the user asks to (S)ave a checkpoint (null if saving is not offered)
+     */
+    private static Runnable saveAction;
+
+    /**
+     * Set up the logger with a filename (logging is asynchronous and never loses entries)
      * @param fileLog The file to log to
      */
     public static void setup(File fileLog) {
-        logger = new Logger(fileLog);
+        setup(fileLog, LOG_CAPACITY, OverflowPolicy.BLOCK);
+    }
 
+    /**
+     * Set up an asynchronous logger with a filename
+     * @param fileLog  The file to log to
+     * @param capacity The number of entries that can wait for the background log writer
+     * @param policy   What to do with an entry when the log writer is capacity entries behind
+     */
+    public static void setup(File fileLog, int capacity, OverflowPolicy policy) {
+        logger = new Logger(fileLog, capacity, policy);
+    }
+
+    /**
+     * Turn showing printed objects on the screen on or off (they are always logged)
+     * @param echo True to show on screen as well as logging
+     */
+    public static void setEcho(boolean echo) {
+        Menu.echo = echo;
+    }
+
+    /**
+     * Set how much of the simulation is printed/logged
+     * @param level The most detailed level of message to show
+     */
+    public static void setLevel(LogLevel level) {
+        Menu.level = level;
+    }
+
+    /**
+     * How much of the simulation is printed/logged
+     * @return The most detailed level of message shown
+     */
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Offer to (S)ave a checkpoint at every step prompt
+     * @param saveAction What to run when the user types 'S' (null to stop offering it)
+     */
+    public static void setSaveAction(Runnable saveAction) {
+        Menu.saveAction = saveAction;
+    }
+
+    /**
+     * Will messages of a level be printed/logged? Check this before building a message so nothing is built when it
+     * would be thrown away
+     * @param messageLevel The level of the message
+     * @return True if messages of that level are shown
+     */
+    public static boolean isLogging(LogLevel messageLevel) {
+        return level.includes(messageLevel);
+    }
+
+    /**
+     * Flush the screen and log file and close the log file (call when the simulation ends)
+     */
+    public static void close() {
+        console.flush();
+        if (logger != null) {
+            logger.close();
+            logger = null;
+        }
     }
 
     /**
@@ -44,25 +138,67 @@ public final class Menu {
         if(logger == null){
             throw new RuntimeException("Cannot log until log file has been setup(File)!");
         }
-        System.out.println(obj);
+        if (echo) {
+            console.println(obj);
+        }
         logger.log(obj);
     }
 
+    /**
+     * Print the map and entity table of a world (the same text println(world.gameString()) prints), rendered straight
+     * to bytes by WorldRenderer (in parallel for large worlds) instead of building one big String
+     *
+     * @param world The world to print
+     */
+    public static void printWorld(World world) {
+        printEncoded(WorldRenderer.encode(world));
+    }
+
+    /**
+     * Print text already encoded in the default charset (such as WorldRenderer.encode gives) to the screen and log
+     *
+     * @param text The encoded text, ending with a new line (not changed)
+     */
+    public static void printEncoded(ByteBuffer[] text) {
+        if(logger == null){
+            throw new RuntimeException("Cannot log until log file has been setup(File)!");
+        }
+        if (echo) {
+            for (ByteBuffer buffer : text) {
+                ByteBuffer bytes = buffer.duplicate();
+                if (bytes.hasArray()) {
+                    console.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                } else {
+                    byte[] copy = new byte[bytes.remaining()];
+                    bytes.get(copy);
+                    console.write(copy, 0, copy.length);
+                }
+            }
+        }
+        logger.log(text);
+    }
+
     /**
      * Should the simulation (E)xit, (C)omplete, or anything else go step by step
      * (Note, if 'C' is selected the answer will always be true for rest of simulation
+     * If a save action is set, 'S' runs it and asks again
      *
      * @return 'E' is false, otherwise true
      */
     public static boolean continueSimulation() {
-        if (!ignore) {
-            System.out.println("(E)xit / (C)omplete/: Anything else to step once");
+        while (!ignore) {
+            console.flush();
+            System.out.println(saveAction == null ? "(E)xit / (C)omplete/: Anything else to step once" : "(E)xit / (C)omplete / (S)ave checkpoint/: Anything else to step once");
             String line = scanner.nextLine();
             if (line.equals("E")) {
                 return false;
             } else if (line.equals("C")) {
                 Menu.ignore = true;
+            } else if (line.equals("S") && saveAction != null) {
+                saveAction.run();
+                continue;
             }
+            break;
         }
         return true;
     }
@@ -72,6 +208,7 @@ public final class Menu {
      * @return True if 'Y', otherwise False
      */
     public static boolean checkYes() {
+        console.flush();
         System.out.println("(Y)es: Anything else is No");
         return scanner.nextLine().equals("Y");
     }
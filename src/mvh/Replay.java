@@ -0,0 +1,85 @@
+package mvh;
+
+import java.io.File;
+import java.io.IOException;
+import mvh.world.ReplayReader;
+import mvh.world.World;
+
+/**
+ * Show a recorded replay (see ReplayRecorder, recorded with Main --headless ... --replay &lt;file&gt;) at any tick.
+ * The world is rebuilt from the nearest keyframe and the recorded changes after it, without simulating anything.
+ * Without a tick, the range of recorded ticks is shown.
+ * <p>
+ * Usage: Main --replay &lt;replay&gt; [tick]
+ * <p>
+ * Exit codes: 0 shown, 1 bad arguments or files
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class Replay {
+
+    /**
+     * The argument that selects replay mode (must be first)
+     */
+    static final String FLAG = "--replay";
+
+    /**
+     * The usage line printed for bad arguments
+     */
+    private static final String USAGE = "Usage: Main --replay <replay> [tick]";
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private Replay() {
+    }
+
+    /**
+     * Print the world of a replay at a tick (or the recorded ticks)
+     *
+     * @param args Program arguments, starting with --replay
+     * @return The exit code for the program
+     */
+    static int run(String[] args) {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Replay mode requires a replay file and optionally a tick!");
+            System.err.println(USAGE);
+            return 1;
+        }
+        File fileReplay = new File(args[1]);
+        if (!fileReplay.exists() || !fileReplay.isFile() || !fileReplay.canRead()) {
+            System.err.printf("The replay file %s does not exist!%n", fileReplay.getAbsoluteFile());
+            return 1;
+        }
+        int tick = 0;
+        if (args.length == 3) {
+            try {
+                tick = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                System.err.printf("Tick %s should be an integer!%n", args[2]);
+                System.err.println(USAGE);
+                return 1;
+            }
+        }
+
+        try (ReplayReader reader = new ReplayReader(fileReplay)) {
+            if (args.length == 2) {
+                System.out.printf("Replay %s: ticks %d to %d, a keyframe every %d ticks%n", fileReplay.getName(),
+                        reader.getFirstTick(), reader.getLastTick(), reader.getKeyframeTicks());
+                return 0;
+            }
+            long start = System.nanoTime();
+            World world = reader.worldAt(tick);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("Tick %d of %s (rebuilt in %d ms)%n", tick, fileReplay.getName(), millis);
+            System.out.println(world.gameString());
+            if (!world.isActive()) {
+                System.out.println(world.getOutcome().getMessage());
+            }
+        } catch (IOException e) {
+            System.err.printf("Unable to read replay %s (%s)!%n", fileReplay.getAbsoluteFile(), e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+}
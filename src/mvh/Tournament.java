@@ -0,0 +1,322 @@
+package mvh;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import mvh.enums.LogLevel;
+import mvh.enums.Outcome;
+import mvh.enums.RandomMode;
+import mvh.enums.TickMode;
+import mvh.util.Reader;
+import mvh.world.World;
+
+/**
+ * Monte Carlo tournament: load a world file once and simulate it for many seeds at the same time on a work-stealing
+ * ForkJoinPool, then report win rates, the distribution of ticks, survivor health and throughput.
+ * Every seed gets its own copy of the world and its own random number generator, so the result for a seed is the same
+ * as running Main with that seed, whatever the number of threads.
+ * <p>
+ * Usage: Main --tournament &lt;world&gt; &lt;first seed&gt; &lt;count&gt; [--threads &lt;n&gt;] [--max-ticks &lt;n&gt;] [--results &lt;file&gt;]
+ * [--tick-mode SEQUENTIAL|SIMULTANEOUS] [--random COMPATIBLE|STREAMS] [--pursuit &lt;n&gt;] [--vision &lt;attack&gt;,&lt;move&gt;]
+ * [--hero-vision &lt;attack&gt;,&lt;move&gt;] [--monster-vision &lt;attack&gt;,&lt;move&gt;]
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class Tournament {
+
+    /**
+     * The argument that selects tournament mode (must be first)
+     */
+    static final String FLAG = "--tournament";
+
+    /**
+     * The usage line printed for bad arguments
+     */
+    private static final String USAGE = "Usage: Main --tournament <world> <first seed> <count> [--threads <n>] [--max-ticks <n>] [--results <file>] [--tick-mode <mode>] [--random <mode>] [--pursuit <n>] [--vision <attack>,<move>] [--hero-vision <attack>,<move>] [--monster-vision <attack>,<move>]";
+
+    /**
+     * The result of simulating one seed
+     */
+    private static final class Result {
+        /**
+         * The seed simulated
+         */
+        private final int seed;
+        /**
+         * How the simulation finished
+         */
+        private final Outcome outcome;
+        /**
+         * Number of ticks simulated
+         */
+        private final int ticks;
+        /**
+         * Total health of alive heroes at the end
+         */
+        private final long heroHealth;
+        /**
+         * Total health of alive monsters at the end
+         */
+        private final long monsterHealth;
+
+        /**
+         * Record the end state of a simulated world
+         *
+         * @param seed  The seed simulated
+         * @param world The world after simulating
+         */
+        private Result(int seed, World world) {
+            this.seed = seed;
+            this.outcome = world.getOutcome();
+            this.ticks = world.getTick();
+            this.heroHealth = world.getHeroHealth();
+            this.monsterHealth = world.getMonsterHealth();
+        }
+    }
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private Tournament() {
+    }
+
+    /**
+     * Run the tournament and print the summary
+     *
+     * @param args Program arguments, starting with --tournament
+     * @return The exit code for the program (0 success, 1 bad arguments or files)
+     */
+    static int run(String[] args) {
+        if (args.length < 4 || (args.length - 4) % 2 != 0) {
+            return usage("Tournament mode requires a world, a first seed and a count, and every option requires a value!");
+        }
+        File fileWorld = new File(args[1]);
+        int firstSeed;
+        int count;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxTicks = Integer.MAX_VALUE;
+        File fileResults = null;
+        TickMode tickMode = TickMode.SEQUENTIAL;
+        RandomMode randomMode = RandomMode.COMPATIBLE;
+        int pursuitTicks = 0;
+        String vision = null;
+        String heroVision = null;
+        String monsterVision = null;
+        try {
+            firstSeed = Integer.parseInt(args[2]);
+            count = Integer.parseInt(args[3]);
+            for (int i = 4; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--max-ticks":
+                        maxTicks = Integer.parseInt(value);
+                        break;
+                    case "--results":
+                        fileResults = new File(value);
+                        break;
+                    case "--tick-mode":
+                        tickMode = TickMode.valueOf(value);
+                        break;
+                    case "--random":
+                        randomMode = RandomMode.valueOf(value);
+                        break;
+                    case "--pursuit":
+                        pursuitTicks = Integer.parseInt(value);
+                        break;
+                    case "--vision":
+                        vision = value;
+                        break;
+                    case "--hero-vision":
+                        heroVision = value;
+                        break;
+                    case "--monster-vision":
+                        monsterVision = value;
+                        break;
+                    default:
+                        return usage("Unknown option " + args[i] + "!");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return usage("Invalid option value (" + e.getMessage() + ")!");
+        }
+        if (count < 1 || threads < 1) {
+            return usage("The count and number of threads must be > 0!");
+        }
+        if (pursuitTicks < 0) {
+            return usage("--pursuit must be >= 0!");
+        }
+        if (!fileWorld.exists() || !fileWorld.isFile() || !fileWorld.canRead()) {
+            System.err.printf("The world file %s does not exist!%n", fileWorld.getAbsoluteFile());
+            return 1;
+        }
+
+        //Nothing is logged, the worlds are simulated on many threads at once
+        Menu.setLevel(LogLevel.OFF);
+        World template = Reader.loadWorld(fileWorld);
+        template.setTickMode(tickMode);
+        try {
+            Headless.setVision(template, vision, heroVision, monsterVision);
+        } catch (IllegalArgumentException e) {
+            return usage(e.getMessage());
+        }
+        try {
+            template.setPursuit(pursuitTicks);
+        } catch (IllegalStateException e) {
+            System.err.printf("Unable to pursue in %s (%s)!%n", fileWorld.getName(), e.getMessage());
+            return 1;
+        }
+
+        long start = System.nanoTime();
+        Result[] results = simulate(template, firstSeed, count, threads, maxTicks, randomMode);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (fileResults != null && !writeResults(fileResults, results)) {
+            return 1;
+        }
+        report(fileWorld, firstSeed, count, threads, results, seconds);
+        return 0;
+    }
+
+    /**
+     * Simulate a copy of the world for each seed on a work-stealing pool
+     *
+     * @param template   The loaded world (never simulated itself)
+     * @param firstSeed  The first seed
+     * @param count      The number of seeds (firstSeed, firstSeed + 1, ...)
+     * @param threads    The number of worker threads
+     * @param maxTicks   The most ticks to simulate a world for
+     * @param randomMode How each world draws its random numbers
+     * @return The result for each seed, in seed order
+     */
+    private static Result[] simulate(World template, int firstSeed, int count, int threads, int maxTicks, RandomMode randomMode) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<Result>> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int seed = firstSeed + i;
+                tasks.add(pool.submit(() -> simulate(template, seed, maxTicks, randomMode)));
+            }
+            Result[] results = new Result[count];
+            for (int i = 0; i < count; i++) {
+                results[i] = tasks.get(i).join();
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Simulate one seed on a copy of the world
+     *
+     * @param template   The loaded world
+     * @param seed       The seed for this simulation
+     * @param maxTicks   The most ticks to simulate for
+     * @param randomMode How the world draws its random numbers
+     * @return The result of the simulation
+     */
+    private static Result simulate(World template, int seed, int maxTicks, RandomMode randomMode) {
+        //Copying only reads the template (which is never simulated), so many threads can copy it at once
+        World world = template.copy();
+        if (randomMode == RandomMode.STREAMS) {
+            world.useRandomStreams(seed);
+        } else {
+            world.setRandom(new Random(seed));
+        }
+        while (world.isActive() && world.getTick() < maxTicks) {
+            world.advanceSimulation();
+        }
+        return new Result(seed, world);
+    }
+
+    /**
+     * Write one line per seed: seed,outcome,ticks,heroHealth,monsterHealth
+     *
+     * @param fileResults The file to write
+     * @param results     The results to write
+     * @return True if the file was written
+     */
+    private static boolean writeResults(File fileResults, Result[] results) {
+        try (PrintWriter printWriter = new PrintWriter(fileResults)) {
+            printWriter.println("seed,outcome,ticks,heroHealth,monsterHealth");
+            for (Result result : results) {
+                printWriter.printf(Locale.ROOT, "%d,%s,%d,%d,%d%n", result.seed, result.outcome, result.ticks, result.heroHealth, result.monsterHealth);
+            }
+            return true;
+        } catch (FileNotFoundException e) {
+            System.err.printf("Unable to open results file %s!%n", fileResults.getAbsoluteFile());
+            return false;
+        }
+    }
+
+    /**
+     * Print win rates, tick distribution, survivor health and throughput
+     *
+     * @param fileWorld The world file
+     * @param firstSeed The first seed
+     * @param count     The number of seeds
+     * @param threads   The number of worker threads
+     * @param results   The results of every seed
+     * @param seconds   The wall time spent simulating
+     */
+    private static void report(File fileWorld, int firstSeed, int count, int threads, Result[] results, double seconds) {
+        int[] outcomes = new int[Outcome.values().length];
+        int[] ticks = new int[results.length];
+        long heroHealth = 0;
+        long monsterHealth = 0;
+        for (int i = 0; i < results.length; i++) {
+            outcomes[results[i].outcome.ordinal()]++;
+            ticks[i] = results[i].ticks;
+            heroHealth += results[i].heroHealth;
+            monsterHealth += results[i].monsterHealth;
+        }
+        Arrays.sort(ticks);
+        long totalTicks = 0;
+        for (int tick : ticks) {
+            totalTicks += tick;
+        }
+
+        System.out.printf(Locale.ROOT, "Tournament of %s, seeds %d to %d, %d threads%n", fileWorld.getName(), firstSeed, firstSeed + count - 1, threads);
+        for (Outcome outcome : Outcome.values()) {
+            System.out.printf(Locale.ROOT, "%-14s %6.2f%% (%d)%n", outcome, 100.0 * outcomes[outcome.ordinal()] / count, outcomes[outcome.ordinal()]);
+        }
+        System.out.printf(Locale.ROOT, "Ticks          mean=%.1f min=%d p50=%d p90=%d p99=%d max=%d%n", (double) totalTicks / count,
+                ticks[0], percentile(ticks, 50), percentile(ticks, 90), percentile(ticks, 99), ticks[ticks.length - 1]);
+        System.out.printf(Locale.ROOT, "Survivor health heroes mean=%.2f monsters mean=%.2f%n", (double) heroHealth / count, (double) monsterHealth / count);
+        System.out.printf(Locale.ROOT, "Throughput     %.1f simulations/second (%d in %.3f s)%n", count / seconds, count, seconds);
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     *
+     * @param sorted  The sorted values
+     * @param percent The percentile (0-100)
+     * @return The value at that percentile
+     */
+    private static int percentile(int[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Print an argument error and the usage line
+     *
+     * @param message The error message
+     * @return The error exit code
+     */
+    private static int usage(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        return 1;
+    }
+}
@@ -1,5 +1,6 @@
 package mvh.enums;
 
+import java.util.Random;
 import mvh.Main;
 
 /**
@@ -56,7 +57,17 @@ public enum Direction {
      * @return A random Direction from the available 9 directions
      */
     public static Direction getRandomDirection() {
-        return Direction.values()[Main.random.nextInt(Direction.values().length)];
+        return getRandomDirection(Main.random);
+    }
+
+    /**
+     * Get a random direction from the set of 9 available options using the given random number generator
+     *
+     * @param random The random number generator to draw from
+     * @return A random Direction from the available 9 directions
+     */
+    public static Direction getRandomDirection(Random random) {
+        return Direction.values()[random.nextInt(Direction.values().length)];
     }
 
     /**
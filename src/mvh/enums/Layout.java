@@ -0,0 +1,25 @@
+package mvh.enums;
+
+/**
+ * Enumeration of where a generated world places its heroes and monsters (see WorldGenerator)
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum Layout {
+    /**
+     * Heroes and monsters anywhere on the map
+     */
+    UNIFORM,
+    /**
+     * Heroes and monsters gathered in square clusters (armies) placed at random
+     */
+    CLUSTERED,
+    /**
+     * Heroes along the top of the map and monsters along the bottom, facing each other
+     */
+    FRONTS,
+    /**
+     * Square blocks that alternate between hero and monster territory, like a checkerboard
+     */
+    CHECKERBOARD
+}
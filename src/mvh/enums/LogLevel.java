@@ -0,0 +1,35 @@
+package mvh.enums;
+
+/**
+ * Enumeration of how much of a simulation is printed/logged, each level includes everything of the levels before it
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum LogLevel {
+    /**
+     * Nothing is printed or logged
+     */
+    OFF,
+    /**
+     * Only the final game and the outcome
+     */
+    SUMMARY,
+    /**
+     * The game after every tick
+     */
+    TICK,
+    /**
+     * Every move, attack and death inside a tick
+     */
+    ACTION;
+
+    /**
+     * Does this level include the given level (are messages of that level shown when logging at this level)
+     *
+     * @param other The level of a message
+     * @return True if messages of the other level should be shown
+     */
+    public boolean includes(LogLevel other) {
+        return other != OFF && this.compareTo(other) >= 0;
+    }
+}
@@ -0,0 +1,33 @@
+package mvh.enums;
+
+/**
+ * Enumeration of how a simulation finished
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum Outcome {
+    HEROES_WIN("Heroes win!"), MONSTERS_WIN("Monsters win!"), NO_WINNER("Nobody wins!"), UNFINISHED("Simulation ended early!");
+
+    /**
+     * The message to show for this outcome
+     */
+    private final String message;
+
+    /**
+     * Each outcome has a message
+     *
+     * @param message The message to show for this outcome
+     */
+    Outcome(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Get the message for this outcome
+     *
+     * @return The message to show for this outcome
+     */
+    public String getMessage() {
+        return message;
+    }
+}
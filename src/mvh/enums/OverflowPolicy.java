@@ -0,0 +1,17 @@
+package mvh.enums;
+
+/**
+ * Enumeration of what an asynchronous log does with a new line when its buffer is full
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait for the background writer to make room (nothing is lost)
+     */
+    BLOCK,
+    /**
+     * Throw the new line away and count it as dropped (the simulation never waits on the log)
+     */
+    DROP
+}
@@ -0,0 +1,33 @@
+package mvh.enums;
+
+/**
+ * Enumeration of the parts of running a tick that TickMetrics times separately
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum Phase {
+    /**
+     * Entities deciding where to attack or move (including recomputing pursuit flow fields)
+     */
+    DECIDE,
+    /**
+     * Moving entities
+     */
+    MOVE,
+    /**
+     * Attacks, damage and deaths
+     */
+    ATTACK,
+    /**
+     * The end of tick bookkeeping: dropping the dead, checking if the simulation is over and recording the replay
+     */
+    CHECK,
+    /**
+     * Building the map and entity table of the world to show it
+     */
+    RENDER,
+    /**
+     * Writing the rendered world to the log
+     */
+    LOG
+}
@@ -0,0 +1,18 @@
+package mvh.enums;
+
+/**
+ * Enumeration of how a World draws its random numbers (damage rolls and random moves)
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum RandomMode {
+    /**
+     * One java.util.Random shared by every draw in the order they are made (the same sequences as always)
+     */
+    COMPATIBLE,
+    /**
+     * Every draw comes from its own stream derived from the world seed, the tick, the entity's ID and the purpose of
+     * the draw, so results do not depend on the order entities are evaluated in or the number of threads
+     */
+    STREAMS
+}
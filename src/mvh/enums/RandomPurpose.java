@@ -0,0 +1,17 @@
+package mvh.enums;
+
+/**
+ * Enumeration of what a random draw is used for, each purpose gets its own random stream in RandomMode.STREAMS
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum RandomPurpose {
+    /**
+     * Random choices made while an entity decides where to attack or move
+     */
+    DECISION,
+    /**
+     * The damage rolled when an entity attacks
+     */
+    DAMAGE
+}
@@ -0,0 +1,18 @@
+package mvh.enums;
+
+/**
+ * Enumeration of how the entities of a World take their turns each tick
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public enum TickMode {
+    /**
+     * Entities act one after another in the order they were added, each seeing the world as changed by those before
+     */
+    SEQUENTIAL,
+    /**
+     * Entities all decide against the world as it was at the start of the tick (in parallel), then the decisions are
+     * resolved in the order entities were added: all attacks first, then all moves
+     */
+    SIMULTANEOUS
+}
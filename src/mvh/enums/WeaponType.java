@@ -14,6 +14,10 @@ public enum WeaponType {
      * Each weapon has a strength
      */
     private final int weaponStrength;
+    /**
+     * Every weapon type (values() copies its array on each call)
+     */
+    private static final WeaponType[] TYPES = values();
 
     /**
      * Weapons are created wit ha set strength
@@ -42,6 +46,21 @@ public enum WeaponType {
         }
     }
 
+    /**
+     * Helper to look up the weapon with a strength (no two weapons have the same strength)
+     *
+     * @param weaponStrength The strength of the weapon
+     * @return The enum type of the weapon
+     */
+    public static WeaponType withStrength(int weaponStrength) {
+        for (WeaponType type : TYPES) {
+            if (type.weaponStrength == weaponStrength) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("No weapon type has a strength of " + weaponStrength + "!");
+    }
+
     /**
      * Get the strength of the weapon
      *
@@ -0,0 +1,344 @@
+package mvh.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import mvh.enums.OverflowPolicy;
+
+/**
+ * An asynchronous log file writer. Lines are put in a bounded ring buffer and a background thread drains the buffer,
+ * encoding many lines into one large buffer before each write to the FileChannel (so there is one write call per batch
+ * instead of one per line). Text already encoded (such as a rendered world, see WorldRenderer.encode) is queued the
+ * same way and written with one gathering write. flush() waits until everything added so far is on disk, close() flushes and stops the thread.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class AsyncLogSink {
+
+    /**
+     * Size of the byte buffer lines are batched into before each write
+     */
+    private static final int BATCH_BYTES = 1 << 20;
+
+    /**
+     * The channel to the log file
+     */
+    private final FileChannel channel;
+    /**
+     * What to do when the ring buffer is full
+     */
+    private final OverflowPolicy policy;
+    /**
+     * The ring buffer of entries waiting to be written (a String line, or the ByteBuffer[] of encoded text)
+     */
+    private final Object[] ring;
+    /**
+     * Index of the oldest line in the ring
+     */
+    private int head;
+    /**
+     * Number of lines in the ring
+     */
+    private int count;
+    /**
+     * Number of lines ever added to the ring
+     */
+    private long added;
+    /**
+     * Number of lines ever written to the file
+     */
+    private long written;
+    /**
+     * Number of lines dropped because the ring was full (DROP policy)
+     */
+    private long dropped;
+    /**
+     * Has close() been called
+     */
+    private boolean closed;
+    /**
+     * Error from the writer thread (reported to the next caller)
+     */
+    private IOException failure;
+
+    /**
+     * Guards the ring and counters
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalled when lines are added (or the sink is closed)
+     */
+    private final Condition notEmpty = lock.newCondition();
+    /**
+     * Signalled when the writer has taken lines out of the ring (room and/or progress)
+     */
+    private final Condition drained = lock.newCondition();
+
+    /**
+     * The background writer thread
+     */
+    private final Thread writer;
+
+    /**
+     * Open (truncate) the log file and start the background writer
+     *
+     * @param fileLog  The log file
+     * @param capacity The number of lines the ring buffer holds
+     * @param policy   What to do when the ring buffer is full
+     * @throws IOException If the log file cannot be opened
+     */
+    public AsyncLogSink(File fileLog, int capacity, OverflowPolicy policy) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Log buffer capacity must be > 0. Value given was " + capacity + "!");
+        }
+        this.channel = FileChannel.open(fileLog.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.policy = policy;
+        this.ring = new Object[capacity];
+        this.writer = new Thread(this::drain, "mvh-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Add a line to the log (a line separator is added on the end)
+     *
+     * @param line The line to add
+     */
+    public void append(String line) {
+        add(line);
+    }
+
+    /**
+     * Add text already encoded in the default charset to the log (written as it is, so it must end with its own line
+     * separator). The buffers must not be changed afterwards.
+     *
+     * @param text The encoded text, in order
+     */
+    public void append(ByteBuffer[] text) {
+        add(text);
+    }
+
+    /**
+     * Add an entry to the ring, waiting for room or dropping it when the ring is full (see OverflowPolicy)
+     *
+     * @param line The line (String) or encoded text (ByteBuffer[])
+     */
+    private void add(Object line) {
+        lock.lock();
+        try {
+            checkOpen();
+            while (count == ring.length) {
+                if (policy == OverflowPolicy.DROP) {
+                    dropped++;
+                    return;
+                }
+                drained.awaitUninterruptibly();
+                checkOpen();
+            }
+            ring[(head + count) % ring.length] = line;
+            count++;
+            added++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every line added so far has been written to the file
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            long target = added;
+            while (written < target && failure == null) {
+                notEmpty.signal();
+                drained.awaitUninterruptibly();
+            }
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush everything, stop the background writer and close the file
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure = e;
+        }
+        lock.lock();
+        try {
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of lines dropped because the buffer was full
+     *
+     * @return The number of dropped lines
+     */
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Throw if the sink has been closed or the writer has failed (lock must be held)
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Cannot log after the log has been closed!");
+        }
+        checkFailure();
+    }
+
+    /**
+     * Throw if the writer thread has failed (lock must be held)
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new RuntimeException("Unable to write to log file!", failure);
+        }
+    }
+
+    /**
+     * Background writer: take every waiting line out of the ring, encode them into one buffer and write it
+     */
+    private void drain() {
+        //Characters the charset cannot encode are written as its replacement ('?'), as a PrintWriter does
+        CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_BYTES);
+        String separator = System.lineSeparator();
+        Object[] batch = new Object[ring.length];
+        while (true) {
+            int taken;
+            lock.lock();
+            try {
+                while (count == 0 && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (count == 0) {
+                    return;
+                }
+                taken = count;
+                for (int i = 0; i < taken; i++) {
+                    batch[i] = ring[head];
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                }
+                count = 0;
+                //There is room again for anyone blocked in append()
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                for (int i = 0; i < taken; i++) {
+                    if (batch[i] instanceof ByteBuffer[]) {
+                        //Encoded text goes straight to the file after the lines before it
+                        write(buffer);
+                        ByteBuffer[] text = (ByteBuffer[]) batch[i];
+                        while (text.length > 0 && text[text.length - 1].hasRemaining()) {
+                            channel.write(text);
+                        }
+                    } else {
+                        encode(encoder, CharBuffer.wrap((String) batch[i]), buffer);
+                        encode(encoder, CharBuffer.wrap(separator), buffer);
+                    }
+                    batch[i] = null;
+                }
+                write(buffer);
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    drained.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            lock.lock();
+            try {
+                written += taken;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Encode all the characters into the batch buffer (and flush the encoder), writing the buffer out whenever it fills
+     *
+     * @param encoder The charset encoder
+     * @param chars   The characters to encode
+     * @param buffer  The batch buffer
+     * @throws IOException If the file cannot be written
+     */
+    private void encode(CharsetEncoder encoder, CharBuffer chars, ByteBuffer buffer) throws IOException {
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                write(buffer);
+            }
+        } while (!result.isUnderflow());
+        do {
+            result = encoder.flush(buffer);
+            if (result.isOverflow()) {
+                write(buffer);
+            }
+        } while (!result.isUnderflow());
+        encoder.reset();
+    }
+
+    /**
+     * Write out the batch buffer and empty it
+     *
+     * @param buffer The batch buffer
+     * @throws IOException If the file cannot be written
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
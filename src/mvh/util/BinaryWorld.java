@@ -0,0 +1,404 @@
+package mvh.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import mvh.enums.WeaponType;
+import mvh.world.World;
+
+/**
+ * Compact binary world files. A world file in this format is a fixed header followed by one fixed-width record per
+ * entity, so a world loads in time proportional to its number of entities (not its number of locations), straight out
+ * of a memory-mapped file. All values are big-endian.
+ * <p>
+ * Header (HEADER_BYTES): int magic "MVHW", int version, int rows, int columns, int entity count, int reserved (0)
+ * <p>
+ * Record (RECORD_BYTES, in entity order): int row, int column, int health, int weapon (a hero's weapon strength, or
+ * the C/A/S weapon letter of a monster), int armor (heroes only), char symbol, byte type (1 hero, 2 monster),
+ * byte reserved (0)
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class BinaryWorld {
+
+    /**
+     * The first four bytes of every binary world file ("MVHW")
+     */
+    static final int MAGIC = 0x4D564857;
+    /**
+     * The version of the format written
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the header in bytes
+     */
+    static final int HEADER_BYTES = 24;
+    /**
+     * Size of an entity record in bytes
+     */
+    static final int RECORD_BYTES = 24;
+    /**
+     * Size of an entity record in ints (symbol, type and reserved share the last int)
+     */
+    private static final int RECORD_INTS = RECORD_BYTES / Integer.BYTES;
+    /**
+     * Record type of a hero
+     */
+    static final byte HERO = 1;
+    /**
+     * Record type of a monster
+     */
+    static final byte MONSTER = 2;
+
+    /**
+     * Largest number of records mapped at once (a mapping can be at most 2GB)
+     */
+    private static final int RECORDS_PER_MAPPING = (1 << 30) / RECORD_BYTES;
+    /**
+     * Number of records copied out of the mapped file at a time when loading
+     */
+    private static final int BATCH_RECORDS = 4096;
+    /**
+     * Size of the buffer records are written through
+     */
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private BinaryWorld() {
+    }
+
+    /**
+     * Check if a file is a binary world file (starts with the magic number)
+     *
+     * @param file The file to check
+     * @return True if the file is a binary world file, false if it is not (or cannot be read)
+     */
+    public static boolean isBinary(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading until the magic number is in or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Load a binary world file through a memory-mapped FileChannel, adding entities in the order of their records
+     *
+     * @param file The binary world file
+     * @return The loaded world
+     * @throws IOException If the file cannot be read or is not a valid binary world file
+     */
+    public static World load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("The binary world file is too short for its header");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            int rows = header.getInt(8);
+            int columns = header.getInt(12);
+            int count = header.getInt(16);
+            checkHeader(header.getInt(0), header.getInt(4), rows, columns, count, size);
+            World world = new World(rows, columns);
+            int[] batch = new int[BATCH_RECORDS * RECORD_INTS];
+            //Map at most RECORDS_PER_MAPPING records at a time (a single mapping cannot be larger than 2GB)
+            for (long first = 0; first < count; first += RECORDS_PER_MAPPING) {
+                int records = (int) Math.min(RECORDS_PER_MAPPING, count - first);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES,
+                        (long) records * RECORD_BYTES);
+                //Records are copied out a batch at a time with a bulk get (much faster than reading value by value)
+                IntBuffer ints = mapped.asIntBuffer();
+                while (ints.hasRemaining()) {
+                    int length = Math.min(batch.length, ints.remaining());
+                    ints.get(batch, 0, length);
+                    for (int offset = 0; offset < length; offset += RECORD_INTS) {
+                        addRecord(world, batch, offset);
+                    }
+                }
+            }
+            return world;
+        }
+    }
+
+    /**
+     * Convert a text world file into a binary world file, streaming one line at a time (the world is never built)
+     *
+     * @param text   The text world file to read
+     * @param binary The binary world file to write (overwritten)
+     * @throws IOException If a file cannot be read/written or the text world file is not valid
+     */
+    public static void textToBinary(File text, File binary) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(text));
+             FileChannel channel = FileChannel.open(binary.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int rows = Integer.parseInt(bufferedReader.readLine().trim());
+            int columns = Integer.parseInt(bufferedReader.readLine().trim());
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+            //The entity count is not known yet, the header is written again at the end
+            putHeader(buffer, rows, columns, 0);
+            int count = 0;
+            for (long cell = 0; cell < (long) rows * columns; cell++) {
+                String line = bufferedReader.readLine();
+                if (line == null) {
+                    throw new IOException("The text world file ends before all " + rows + "x" + columns + " locations");
+                }
+                String[] lineSplit = line.split(",");
+                if (lineSplit.length > Reader.minRequiredData) {
+                    if (buffer.remaining() < RECORD_BYTES) {
+                        drain(buffer, channel);
+                    }
+                    putRecord(buffer, lineSplit);
+                    count++;
+                }
+            }
+            drain(buffer, channel);
+            putHeader(buffer, rows, columns, count);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException | NullPointerException e) {
+            throw new IOException("The text world file is not valid (" + e.getMessage() + ")", e);
+        }
+    }
+
+    /**
+     * Convert a binary world file into a text world file (one line per location, row by row)
+     * Records do not have to be in row order, they are sorted by location first if needed
+     *
+     * @param binary The binary world file to read
+     * @param text   The text world file to write (overwritten)
+     * @throws IOException If a file cannot be read/written or the binary world file is not valid
+     */
+    public static void binaryToText(File binary, File text) throws IOException {
+        try (FileChannel channel = FileChannel.open(binary.toPath(), StandardOpenOption.READ);
+             BufferedWriter writer = new BufferedWriter(new FileWriter(text), WRITE_BUFFER_BYTES)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("The binary world file is too short for its header");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            int rows = header.getInt(8);
+            int columns = header.getInt(12);
+            int count = header.getInt(16);
+            checkHeader(header.getInt(0), header.getInt(4), rows, columns, count, size);
+            MappedByteBuffer[] mappings = new MappedByteBuffer[(int) ((count + (long) RECORDS_PER_MAPPING - 1) / RECORDS_PER_MAPPING)];
+            for (int mapping = 0; mapping < mappings.length; mapping++) {
+                long first = (long) mapping * RECORDS_PER_MAPPING;
+                int records = (int) Math.min(RECORDS_PER_MAPPING, count - first);
+                mappings[mapping] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES,
+                        (long) records * RECORD_BYTES);
+            }
+
+            //Find the location of every record, records written from a text file are already in location order
+            long[] cells = new long[count];
+            boolean sorted = true;
+            for (int record = 0; record < count; record++) {
+                ByteBuffer mapped = mappings[record / RECORDS_PER_MAPPING];
+                int offset = (record % RECORDS_PER_MAPPING) * RECORD_BYTES;
+                int row = mapped.getInt(offset);
+                int column = mapped.getInt(offset + 4);
+                if (row < 0 || row >= rows || column < 0 || column >= columns) {
+                    throw new IOException("Entity location " + row + "," + column + " is outside the world");
+                }
+                cells[record] = (long) row * columns + column;
+                sorted &= record == 0 || cells[record - 1] < cells[record];
+            }
+            int[] order = locationOrder(cells, sorted);
+
+            writer.write(rows + "\n" + columns + "\n");
+            int next = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    writer.write(Integer.toString(row));
+                    writer.write(',');
+                    writer.write(Integer.toString(column));
+                    long cell = (long) row * columns + column;
+                    if (next < count && cells[order[next]] == cell) {
+                        int record = order[next++];
+                        writeRecord(writer, mappings[record / RECORDS_PER_MAPPING], (record % RECORDS_PER_MAPPING) * RECORD_BYTES);
+                    }
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * The order to write records in so their locations are in row order
+     *
+     * @param cells  The location (row * columns + column) of each record
+     * @param sorted Are the locations already in increasing order
+     * @return The record numbers in location order
+     * @throws IOException If two records have the same location
+     */
+    private static int[] locationOrder(long[] cells, boolean sorted) throws IOException {
+        int[] order = new int[cells.length];
+        if (sorted) {
+            for (int record = 0; record < order.length; record++) {
+                order[record] = record;
+            }
+            return order;
+        }
+        Integer[] boxed = new Integer[cells.length];
+        for (int record = 0; record < boxed.length; record++) {
+            boxed[record] = record;
+        }
+        Arrays.sort(boxed, Comparator.comparingLong(record -> cells[record]));
+        for (int i = 0; i < order.length; i++) {
+            order[i] = boxed[i];
+            if (i > 0 && cells[order[i - 1]] == cells[order[i]]) {
+                throw new IOException("Two entities have the same location in the binary world file");
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Make sure a header describes a file this version can read
+     *
+     * @param magic   The magic number read
+     * @param version The version read
+     * @param rows    The number of rows read
+     * @param columns The number of columns read
+     * @param count   The number of entities read
+     * @param size    The size of the file in bytes
+     * @throws IOException If the header is not valid for the file
+     */
+    private static void checkHeader(int magic, int version, int rows, int columns, int count, long size) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("The file is not a binary world file");
+        }
+        if (version != VERSION) {
+            throw new IOException("Binary world version " + version + " is not supported (only " + VERSION + ")");
+        }
+        if (rows < 1 || columns < 1 || count < 0 || count > (long) rows * columns) {
+            throw new IOException("The binary world header is not valid (" + rows + "x" + columns + ", " + count + " entities)");
+        }
+        if (size != HEADER_BYTES + (long) count * RECORD_BYTES) {
+            throw new IOException("The binary world file should hold " + count + " entities but is " + size + " bytes");
+        }
+    }
+
+    /**
+     * Create the entity of a record and add it to the world
+     *
+     * @param world  The world to add to
+     * @param ints   The records as ints
+     * @param offset The offset of the record in ints
+     * @throws IOException If the record is not valid
+     */
+    private static void addRecord(World world, int[] ints, int offset) throws IOException {
+        int row = ints[offset];
+        int column = ints[offset + 1];
+        int health = ints[offset + 2];
+        int weapon = ints[offset + 3];
+        int armor = ints[offset + 4];
+        char symbol = (char) (ints[offset + 5] >>> 16);
+        byte type = (byte) (ints[offset + 5] >>> 8);
+        if (row < 0 || row >= world.getRows() || column < 0 || column >= world.getColumns()) {
+            throw new IOException("Entity location " + row + "," + column + " is outside the world");
+        }
+        if (world.isOccupied(row, column)) {
+            throw new IOException("Two entities have the location " + row + "," + column);
+        }
+        if (type == HERO) {
+            world.addHero(row, column, health, symbol, weapon, armor);
+        } else if (type == MONSTER) {
+            world.addMonster(row, column, health, symbol, WeaponType.getWeaponType((char) weapon));
+        } else {
+            throw new IOException("Entity type " + type + " at " + row + "," + column + " is not valid");
+        }
+    }
+
+    /**
+     * Write the header into the start of an empty buffer
+     *
+     * @param buffer  The buffer to write into
+     * @param rows    The number of rows
+     * @param columns The number of columns
+     * @param count   The number of entities
+     */
+    private static void putHeader(ByteBuffer buffer, int rows, int columns, int count) {
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).putInt(count).putInt(0);
+    }
+
+    /**
+     * Write the record of an entity line of a text world file (row,column,TYPE,symbol,health,...) into a buffer
+     *
+     * @param buffer    The buffer to write into
+     * @param lineSplit The line split on commas
+     * @throws IOException If the entity type is not valid
+     */
+    private static void putRecord(ByteBuffer buffer, String[] lineSplit) throws IOException {
+        buffer.putInt(Integer.parseInt(lineSplit[0].trim()));
+        buffer.putInt(Integer.parseInt(lineSplit[1].trim()));
+        buffer.putInt(Integer.parseInt(lineSplit[Reader.entityHealthIndex]));
+        if (lineSplit[Reader.entityTypeIndex].equals("HERO")) {
+            buffer.putInt(Integer.parseInt(lineSplit[Reader.heroAttackIndex]));
+            buffer.putInt(Integer.parseInt(lineSplit[Reader.heroArmorIndex]));
+            buffer.putChar(lineSplit[Reader.entitySymbolIndex].charAt(0)).put(HERO);
+        } else if (lineSplit[Reader.entityTypeIndex].equals("MONSTER")) {
+            buffer.putInt(lineSplit[Reader.monsterWeaponIndex].charAt(0));
+            buffer.putInt(0);
+            buffer.putChar(lineSplit[Reader.entitySymbolIndex].charAt(0)).put(MONSTER);
+        } else {
+            throw new IOException("Entity type " + lineSplit[Reader.entityTypeIndex] + " is not valid");
+        }
+        buffer.put((byte) 0);
+    }
+
+    /**
+     * Write the entity part of a text world line (,TYPE,symbol,health,...) for a record
+     *
+     * @param writer Where to write the text
+     * @param buffer The buffer holding the record
+     * @param offset The offset of the record in the buffer
+     * @throws IOException If the text cannot be written or the record is not valid
+     */
+    private static void writeRecord(BufferedWriter writer, ByteBuffer buffer, int offset) throws IOException {
+        int health = buffer.getInt(offset + 8);
+        int weapon = buffer.getInt(offset + 12);
+        int armor = buffer.getInt(offset + 16);
+        char symbol = buffer.getChar(offset + 20);
+        byte type = buffer.get(offset + 22);
+        if (type == HERO) {
+            writer.write(",HERO," + symbol + "," + health + "," + weapon + "," + armor);
+        } else if (type == MONSTER) {
+            writer.write(",MONSTER," + symbol + "," + health + "," + (char) weapon);
+        } else {
+            throw new IOException("Entity type " + type + " is not valid");
+        }
+    }
+
+    /**
+     * Write out everything in a buffer and make it empty again
+     *
+     * @param buffer  The buffer to write (in write mode)
+     * @param channel Where to write it
+     * @throws IOException If the channel cannot be written to
+     */
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -2,7 +2,11 @@ package mvh.util;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import mvh.enums.OverflowPolicy;
 
 /**
  * Class to handle logging information out to a log file as program operates
@@ -12,9 +16,13 @@ import java.io.PrintWriter;
 public final class Logger {
 
     /**
-     * The PrintWriter to record log entries
+     * The PrintWriter to record log entries (null when logging asynchronously)
      */
     private PrintWriter printWriter;
+    /**
+     * The asynchronous sink to record log entries (null when logging synchronously)
+     */
+    private AsyncLogSink sink;
 
     /**
      * Constructs a logger (PrintWriter)
@@ -32,14 +40,86 @@ public final class Logger {
     }
 
     /**
-     * Stores the given Object into the log file (flushes immediately after)
+     * Constructs an asynchronous logger, entries are buffered and written in large batches by a background thread
+     * Prints error message to System Error and exits if log file cannot be opened
+     *
+     * @param fileLog  The log file
+     * @param capacity The number of entries that can wait to be written
+     * @param policy   What to do with a new entry when capacity entries are already waiting
+     */
+    public Logger(File fileLog, int capacity, OverflowPolicy policy) {
+        try {
+            sink = new AsyncLogSink(fileLog, capacity, policy);
+        } catch (IOException e) {
+            System.err.printf("Unable to open log file %s!%n", fileLog.getAbsoluteFile());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Stores the given Object into the log file (a synchronous logger flushes immediately after)
      * The object is converted to a string when added to the file
      *
      * @param obj The object to store in the log file (note, a new line is added on the end)
      */
     public void log(Object obj) {
-        printWriter.println(obj);
-        printWriter.flush();
+        if (sink != null) {
+            sink.append(String.valueOf(obj));
+        } else {
+            printWriter.println(obj);
+            printWriter.flush();
+        }
+    }
+
+    /**
+     * Stores text already encoded in the default charset into the log file as it is (it must end with its own line
+     * separator)
+     *
+     * @param text The encoded text, in order (not changed, it is read from duplicates)
+     */
+    public void log(ByteBuffer[] text) {
+        if (sink != null) {
+            ByteBuffer[] copies = new ByteBuffer[text.length];
+            for (int i = 0; i < text.length; i++) {
+                copies[i] = text[i].duplicate();
+            }
+            sink.append(copies);
+        } else {
+            for (ByteBuffer buffer : text) {
+                printWriter.print(Charset.defaultCharset().decode(buffer.duplicate()));
+            }
+            printWriter.flush();
+        }
+    }
+
+    /**
+     * Wait until every entry logged so far is in the log file
+     */
+    public void flush() {
+        if (sink != null) {
+            sink.flush();
+        } else {
+            printWriter.flush();
+        }
+    }
+
+    /**
+     * Flush and close the log file, nothing can be logged afterwards
+     */
+    public void close() {
+        if (sink != null) {
+            sink.close();
+        } else {
+            printWriter.close();
+        }
     }
 
+    /**
+     * Number of entries thrown away because the asynchronous buffer was full
+     *
+     * @return The number of dropped entries (always 0 for a synchronous logger)
+     */
+    public long getDropped() {
+        return sink == null ? 0 : sink.getDropped();
+    }
 }
@@ -4,7 +4,12 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import mvh.enums.Symbol;
 import mvh.enums.WeaponType;
+import mvh.world.Checkpoint;
+import mvh.world.Entity;
 import mvh.world.Hero;
 import mvh.world.Monster;
 import mvh.world.World;
@@ -27,99 +32,198 @@ public final class Reader {
     static int monsterWeaponIndex = 5;
     static int heroAttackIndex = 5;
     static int heroArmorIndex = 6;
+    static int legendOffset = -2;
+    static String mapHeader = "MAP";
 
     /**
      * A class method that will open a user provided input file, read its contents, and create a world and return it
-     * (unless the file cannot be read, at this point the program will exit with an error)
+     * (unless the file cannot be read, at this point the program will exit with an error). The file can be a binary
+     * world file (see BinaryWorld), a checkpoint of a running simulation (see Checkpoint) or one of three text
+     * formats, told apart by the first line:
+     * <ul>
+     * <li>the number of rows: the original format, the number of columns then one line per location row by row
+     * (row,column for floor, row,column,TYPE,symbol,health,... for an entity)</li>
+     * <li>SPARSE: the number of rows, the number of columns, then one row,column,TYPE,symbol,health,... line per entity
+     * only (entities take their turns in the order they are listed)</li>
+     * <li>MAP: a map exactly like World.worldString() (walls all around, '.' for floor, entity symbols elsewhere),
+     * followed by a legend of one TYPE,symbol,health,... line per symbol used on the map</li>
+     * </ul>
      * @param fileWorld File object linking to the file.txt entered by the user as an argument
      * @return world object which is a 2D grid (array) containing our entities (monsters or heroes), the floor are the
-     * null spots
+     * null spots (the load is recorded as a WorldLoadEvent when Java Flight Recorder is recording)
      */
     public static World loadWorld(File fileWorld) {
-        // creating world object
-        World world;
+        WorldLoadEvent event = new WorldLoadEvent();
+        event.begin();
+        World world = readWorld(fileWorld);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = fileWorld.getPath();
+            event.fileSize = fileWorld.length();
+            event.cells = (long) world.getRows() * world.getColumns();
+            event.entities = (long) world.getHeroesAlive() + world.getMonstersAlive() + world.getHeroesDead() + world.getMonstersDead();
+            event.commit();
+        }
+        return world;
+    }
+
+    /**
+     * Read a world file in whichever format it is (see loadWorld)
+     *
+     * @param fileWorld The world file
+     * @return The world read
+     */
+    private static World readWorld(File fileWorld) {
+        // binary world files (see BinaryWorld) are loaded from a memory-mapped file instead of line by line
+        if (BinaryWorld.isBinary(fileWorld)) {
+            try {
+                return BinaryWorld.load(fileWorld);
+            } catch (IOException e) {
+                System.err.println("Error reading from the file named: " + fileWorld.getName() + ", Path: " + fileWorld.getAbsolutePath() + " (" + e.getMessage() + ")");
+                System.exit(1);
+            }
+        }
+        // checkpoints (see Checkpoint) resume a saved simulation exactly where it stopped
+        if (Checkpoint.isCheckpoint(fileWorld)) {
+            try {
+                return Checkpoint.read(fileWorld);
+            } catch (IOException e) {
+                System.err.println("Error reading from the file named: " + fileWorld.getName() + ", Path: " + fileWorld.getAbsolutePath() + " (" + e.getMessage() + ")");
+                System.exit(1);
+            }
+        }
 
         // Creating the fileReader and bufferedReader within the try round brackets to enable file closing via resources
         // also catches any exceptions that may occur
         try (FileReader fileReader = new FileReader(fileWorld); BufferedReader bufferedReader = new BufferedReader(fileReader);){
 
-            // getting the number of rows (first line) and columns (second line)
-            int rows = Integer.parseInt(bufferedReader.readLine());
-            int columns = Integer.parseInt(bufferedReader.readLine());
-
-            // initializing world
-            world = new World(rows, columns);
-
-            // looping through all of the rows (which is 1 less than the number of rows and attainable when r<rows)
-            for (int r = 0; r < rows; r++){
-
-                // looping through all of the columns (which is 1 less than the number of columns and attainable when c<columns)
-                for (int c = 0; c < columns; c++){
-                    String line = bufferedReader.readLine();
-
-                    //splitting the line via the commas
-                    String[] lineSplit = line.split(",");
-
-                    // checking if there is an entity present in this cell (rowXcolumn) if there is the length line will
-                    // be > 2 (minRequiredData)
-
-                    if (lineSplit.length > minRequiredData){
-
-                        // if index 2 of the split comma separated line is Monster, create a monster entity and add it
-                        // to the world in this row X column
-                        if (lineSplit[entityTypeIndex].equals("MONSTER")){
-
-                            // getting the symbol of the entity which is in string form, so it is converted into a char
-                            // and using index 0 because it is only one symbol at index 3 (entitiySymbolIndex) of the
-                            // split comma separated line
-                            char entitySymbolChar = lineSplit[entitySymbolIndex].charAt(0);
-
-                            // obtaining the char for the weapon type in the same fashion as the symbol.
-                            char weaponChar = lineSplit[monsterWeaponIndex].charAt(0);
-                            // getting weapon using the weapon type method
-                            WeaponType weapon = WeaponType.getWeaponType(weaponChar);
-
-                            //creating monster, health is converted into an int from the split line
-                            Monster monster = new Monster(Integer.parseInt(lineSplit[entityHealthIndex]),entitySymbolChar,weapon);
+            // the first line tells us which text format this is (MAP, otherwise SPARSE or the number of rows of the
+            // original format)
+            String header = bufferedReader.readLine();
+            if (header != null && header.trim().equals(mapHeader)) {
+                return loadMap(bufferedReader);
+            }
 
-                            // adding monster to the world at its specified row and column
-                            world.addEntity(r , c, monster);
-                        }
-                        // else if index 2 of the split comma separated line is hero, create a hero entity and add it
-                        // to the world in this row (r) X column (c)
-                        else if (lineSplit[2].equals("HERO")){
+            // the original and SPARSE formats are parsed straight from the bytes of the file, in parallel for big files
+            return WorldParser.parse(fileWorld);
+        } //catching any errors from reading the file
+        catch(IOException e){
+            System.err.println("Error reading from the file named: " + fileWorld.getName() + ", Path: " + fileWorld.getAbsolutePath() + " (" + e.getMessage() + ")");
+            System.exit(1);
+        }
+        /* Throw a RuntimeException if this point of the coded is reached, because if the try block is successful
+        in reading the input file it should return world there, if there was an issue reading the file the program should
+        exit in the catch block. There is no reason why the program should progress to this point.
+        */
+        throw new RuntimeException("Error creating world");
+    }
 
-                            // getting the symbol of the entity which is in string form, so it is converted into a char
-                            // and using index 0 because it is only one symbol at index 3 (entitiySymbolIndex) of the
-                            // split comma separated line
-                            char entitySymbolChar = lineSplit[entitySymbolIndex].charAt(0);
+    /**
+     * Read the rest of a MAP world file (after the MAP line): a map drawn like World.worldString() followed by a
+     * legend with one TYPE,symbol,health,... line for each symbol on the map. Entities take their turns row by row,
+     * the same order as the original format, and every entity with the same symbol gets the stats in the legend
+     * @param bufferedReader reader positioned after the MAP line
+     * @return world object containing an entity for every symbol on the map
+     * @throws IOException if the file cannot be read or is not a valid MAP world file
+     */
+    private static World loadMap(BufferedReader bufferedReader) throws IOException {
+        char wall = Symbol.WALL.getSymbol();
+        char floor = Symbol.FLOOR.getSymbol();
+        try {
+            // the top wall gives the width of the map (the world is 2 narrower)
+            String top = bufferedReader.readLine().trim();
+            int width = top.length();
+            if (width < 3 || !isWall(top)) {
+                throw new IOException("The map must start with a wall line");
+            }
 
-                            // creating the hero, health, attack, and defense were obtained using indexing of the
-                            // split comma separated line
-                            Hero hero = new Hero(Integer.parseInt(lineSplit[entityHealthIndex]),entitySymbolChar,Integer.parseInt(lineSplit[heroAttackIndex]), Integer.parseInt(lineSplit[heroArmorIndex]));
+            // every line up to the bottom wall is one row of the world
+            List<String> mapRows = new ArrayList<>();
+            String line = bufferedReader.readLine();
+            while (line != null && !isWall(line.trim())) {
+                String mapRow = line.trim();
+                if (mapRow.length() != width || mapRow.charAt(0) != wall || mapRow.charAt(width - 1) != wall) {
+                    throw new IOException("Map row " + mapRows.size() + " is not " + width + " wide with walls at both ends");
+                }
+                mapRows.add(mapRow);
+                line = bufferedReader.readLine();
+            }
+            if (line == null || line.trim().length() != width || mapRows.isEmpty()) {
+                throw new IOException("The map must have at least one row and end with a wall line as wide as the first");
+            }
 
-                            // adding hero to the world at its specified row and column
-                            world.addEntity(r , c, hero);
+            // the legend (indexed by symbol) gives the stats of every symbol
+            String[][] legend = new String[Character.MAX_VALUE + 1][];
+            while ((line = bufferedReader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] lineSplit = line.split(",");
+                char symbol = lineSplit[entitySymbolIndex + legendOffset].charAt(0);
+                if (symbol == wall || symbol == floor || symbol == Symbol.DEAD.getSymbol()) {
+                    throw new IOException("The symbol " + symbol + " cannot be used for an entity");
+                }
+                // the rest of the line is checked when the first entity with this symbol is created (entity IDs are
+                // only given out to entities on the map)
+                legend[symbol] = lineSplit;
+            }
 
+            // creating an entity for every symbol on the map, row by row
+            World world = new World(mapRows.size(), width - 2);
+            for (int r = 0; r < mapRows.size(); r++) {
+                String mapRow = mapRows.get(r);
+                for (int c = 0; c < width - 2; c++) {
+                    char symbol = mapRow.charAt(c + 1);
+                    if (symbol != floor) {
+                        if (legend[symbol] == null) {
+                            throw new IOException("The symbol " + symbol + " at " + r + "," + c + " is not in the legend");
                         }
-
+                        world.addEntity(r, c, createEntity(legend[symbol], legendOffset));
                     }
-
-
                 }
-
             }
             return world;
-        } //catching any errors from reading the file
-        catch(IOException e){
-            System.err.println("Error reading from the file named: " + fileWorld.getName() + ", Path: " + fileWorld.getAbsolutePath());
-            System.exit(1);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | NullPointerException e) {
+            throw new IOException("The MAP world file is not valid (" + e.getMessage() + ")", e);
         }
-        /* Throw a RuntimeException if this point of the coded is reached, because if the try block is successful
-        in reading the input file it should return world there, if there was an issue reading the file the program should
-        exit in the catch block. There is no reason why the program should progress to this point.
-        */
-        throw new RuntimeException("Error creating world");
     }
 
+    /**
+     * Is a line of a MAP world file a top/bottom wall (only wall symbols)
+     * @param line the line to check
+     * @return true if the line is not empty and only has wall symbols
+     */
+    private static boolean isWall(String line) {
+        if (line.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) != Symbol.WALL.getSymbol()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create the hero or monster described by a split comma separated line
+     * @param lineSplit the split line (TYPE at entityTypeIndex + offset, symbol, health, then weapon or attack/armor)
+     * @param offset how far the fields are moved from the original format's indexes (legendOffset for legend lines,
+     *               which have no row and column)
+     * @return the new hero or monster
+     * @throws IOException if the type is not HERO or MONSTER
+     */
+    private static Entity createEntity(String[] lineSplit, int offset) throws IOException {
+        String type = lineSplit[entityTypeIndex + offset].trim();
+        char entitySymbolChar = lineSplit[entitySymbolIndex + offset].trim().charAt(0);
+        int health = Integer.parseInt(lineSplit[entityHealthIndex + offset].trim());
+        if (type.equals("MONSTER")) {
+            WeaponType weapon = WeaponType.getWeaponType(lineSplit[monsterWeaponIndex + offset].trim().charAt(0));
+            return new Monster(health, entitySymbolChar, weapon);
+        } else if (type.equals("HERO")) {
+            return new Hero(health, entitySymbolChar, Integer.parseInt(lineSplit[heroAttackIndex + offset].trim()),
+                    Integer.parseInt(lineSplit[heroArmorIndex + offset].trim()));
+        }
+        throw new IOException("Entity type " + type + " is not HERO or MONSTER");
+    }
 }
@@ -0,0 +1,112 @@
+package mvh.util;
+
+import java.util.Random;
+import mvh.enums.RandomPurpose;
+
+/**
+ * A counter-based random number generator: the state is a single long that is advanced by a constant and mixed
+ * (SplitMix64) for every draw, so a stream is fully described by its starting seed and can be restarted at any time
+ * without allocating. Seeds for a stream are derived from (world seed, tick, entity ID, purpose) with seedOf.
+ * This extends java.util.Random so entities can use it wherever they are handed a Random, but it is not thread safe:
+ * every thread needs its own instance.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class StreamRandom extends Random {
+
+    /**
+     * Version of the serialized form (Random is Serializable)
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The increment of the counter (the golden ratio, as in SplittableRandom)
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The counter, advanced by GOLDEN_GAMMA for every draw
+     */
+    private long state;
+
+    /**
+     * A new stream starting at the given seed
+     *
+     * @param seed The seed of the stream
+     */
+    public StreamRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * The seed of the stream for one purpose of one entity in one tick of a world
+     *
+     * @param worldSeed The seed of the world
+     * @param tick      The tick being simulated
+     * @param entityId  The ID of the entity drawing
+     * @param purpose   What the draws are used for
+     * @return The seed of the stream
+     */
+    public static long seedOf(long worldSeed, int tick, int entityId, RandomPurpose purpose) {
+        long seed = mix(worldSeed + GOLDEN_GAMMA);
+        seed = mix(seed + tick * GOLDEN_GAMMA);
+        seed = mix(seed + entityId * GOLDEN_GAMMA);
+        return mix(seed + (purpose.ordinal() + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Mix a seed and an index into a well spread seed
+     *
+     * @param seed  The seed
+     * @param index The index to mix in
+     * @return The mixed seed
+     */
+    public static long mix(long seed, long index) {
+        return mix(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Restart this stream at a new seed
+     *
+     * @param seed The seed of the stream
+     */
+    @Override
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * The next random bits of the stream
+     *
+     * @param bits The number of random bits wanted (1-32)
+     * @return The random bits in the low bits of an int
+     */
+    @Override
+    protected int next(int bits) {
+        state += GOLDEN_GAMMA;
+        return (int) (mix(state) >>> (64 - bits));
+    }
+
+    /**
+     * The next random long of the stream
+     *
+     * @return A random long
+     */
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * SplitMix64 finaliser, spreads the bits of a long
+     *
+     * @param z The value to mix
+     * @return The mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,600 @@
+package mvh.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import mvh.enums.Layout;
+import mvh.enums.WeaponType;
+
+/**
+ * Writes random world files (in the SPARSE or original text format, see Reader.loadWorld) for testing at scale.
+ * Heroes and monsters are placed by a Layout with the given densities (shares of all locations, a count is turned
+ * into the density that gives it on average), and their health, hero weapon and armor strengths and monster weapon
+ * types are drawn from the given ranges and mix.
+ * <p>
+ * The file is written row by row as it is generated, and only the locations that get an entity cost any work: the
+ * gap to the next entity in a run of locations with the same chances is drawn at once (a geometric distribution), so
+ * a map of billions of locations with few entities is written in time and memory that do not grow with its area (the
+ * original format still writes one line for every location). All random numbers come from one StreamRandom started
+ * at the seed and drawn in file order, so the same seed and settings always write the same file.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class WorldGenerator {
+
+    /**
+     * Share of the rows each army's front takes in Layout.FRONTS
+     */
+    private static final int FRONT_DIVISOR = 4;
+    /**
+     * Share of the map each faction's clusters cover in Layout.CLUSTERED
+     */
+    private static final double CLUSTER_SHARE = 0.1;
+    /**
+     * Size of the output buffer
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Number of rows of the map
+     */
+    private final int rows;
+    /**
+     * Number of columns of the map
+     */
+    private final int columns;
+    /**
+     * The seed of the random numbers
+     */
+    private final long seed;
+    /**
+     * Share of all locations holding a hero
+     */
+    private double heroDensity = 0.05;
+    /**
+     * Share of all locations holding a monster
+     */
+    private double monsterDensity = 0.05;
+    /**
+     * Where heroes and monsters are placed
+     */
+    private Layout layout = Layout.UNIFORM;
+    /**
+     * Number of clusters of each faction in Layout.CLUSTERED
+     */
+    private int clusters = 8;
+    /**
+     * Width and height of a block in Layout.CHECKERBOARD
+     */
+    private int blockSize = 16;
+    /**
+     * Lowest and highest health of an entity
+     */
+    private int[] health = {10, 10};
+    /**
+     * Lowest and highest weapon strength of a hero
+     */
+    private int[] heroWeapon = {1, 5};
+    /**
+     * Lowest and highest armor strength of a hero
+     */
+    private int[] heroArmor = {0, 2};
+    /**
+     * Weight of each WeaponType (in WeaponType order) when drawing a monster's weapon
+     */
+    private int[] weaponWeights = {1, 1, 1};
+    /**
+     * Write the SPARSE format (otherwise the original one line per location format)
+     */
+    private boolean sparse = true;
+
+    /**
+     * Chance of a hero at a location of a hero region (set up by write)
+     */
+    private double heroChance;
+    /**
+     * Chance of a monster at a location of a monster region (set up by write)
+     */
+    private double monsterChance;
+    /**
+     * Width and height of a cluster (set up by write in Layout.CLUSTERED)
+     */
+    private int clusterSide;
+    /**
+     * Top row and left column of each hero cluster, then of each monster cluster (set up by write in Layout.CLUSTERED)
+     */
+    private int[] clusterRows, clusterColumns;
+    /**
+     * Number of heroes written by the last write
+     */
+    private long heroes;
+    /**
+     * Number of monsters written by the last write
+     */
+    private long monsters;
+    /**
+     * Bytes of the line being written
+     */
+    private final byte[] line = new byte[96];
+    /**
+     * Length of the line being written
+     */
+    private int length;
+
+    /**
+     * A generator of ROWSxCOLUMNS worlds (5% heroes and 5% monsters placed uniformly until set otherwise)
+     *
+     * @param rows    The number of rows of the map
+     * @param columns The number of columns of the map
+     * @param seed    The seed of the random numbers
+     * @throws IllegalArgumentException If the map is empty
+     */
+    public WorldGenerator(int rows, int columns, long seed) {
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("The map must be at least 1x1, not " + rows + "x" + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.seed = seed;
+    }
+
+    /**
+     * Set the densities of heroes and monsters
+     *
+     * @param heroes   Share of all locations holding a hero (0 to 1)
+     * @param monsters Share of all locations holding a monster (0 to 1)
+     * @throws IllegalArgumentException If a share is not from 0 to 1
+     */
+    public void setDensities(double heroes, double monsters) {
+        if (!(heroes >= 0 && heroes <= 1 && monsters >= 0 && monsters <= 1)) {
+            throw new IllegalArgumentException("Densities must be from 0 to 1, not " + heroes + " and " + monsters);
+        }
+        this.heroDensity = heroes;
+        this.monsterDensity = monsters;
+    }
+
+    /**
+     * Set the number of heroes and monsters wanted (the file holds about that many, see the class comment)
+     *
+     * @param heroes   The number of heroes
+     * @param monsters The number of monsters
+     * @throws IllegalArgumentException If a count is negative or more than the map holds
+     */
+    public void setCounts(long heroes, long monsters) {
+        double cells = (double) rows * columns;
+        setDensities(heroes / cells, monsters / cells);
+    }
+
+    /**
+     * Set where heroes and monsters are placed
+     *
+     * @param layout The layout (UNIFORM until set)
+     */
+    public void setLayout(Layout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * Set the number of clusters of each faction in Layout.CLUSTERED (each faction's clusters cover about a tenth of
+     * the map)
+     *
+     * @param clusters The number of clusters (8 until set)
+     * @throws IllegalArgumentException If there is not at least one cluster
+     */
+    public void setClusters(int clusters) {
+        if (clusters < 1) {
+            throw new IllegalArgumentException("There must be at least one cluster, not " + clusters);
+        }
+        this.clusters = clusters;
+    }
+
+    /**
+     * Set the width and height of the blocks of Layout.CHECKERBOARD
+     *
+     * @param blockSize The block size (16 until set)
+     * @throws IllegalArgumentException If the size is not at least 1
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("The block size must be at least 1, not " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Set the range of the health of every entity
+     *
+     * @param min The lowest health (at least 1)
+     * @param max The highest health
+     * @throws IllegalArgumentException If the range is empty or below 1
+     */
+    public void setHealth(int min, int max) {
+        this.health = range(min, max, 1, "Health");
+    }
+
+    /**
+     * Set the range of the weapon strength of heroes
+     *
+     * @param min The lowest weapon strength (at least 1)
+     * @param max The highest weapon strength
+     * @throws IllegalArgumentException If the range is empty or below 1
+     */
+    public void setHeroWeapon(int min, int max) {
+        this.heroWeapon = range(min, max, 1, "Hero weapon strength");
+    }
+
+    /**
+     * Set the range of the armor strength of heroes
+     *
+     * @param min The lowest armor strength (at least 0)
+     * @param max The highest armor strength
+     * @throws IllegalArgumentException If the range is empty or below 0
+     */
+    public void setHeroArmor(int min, int max) {
+        this.heroArmor = range(min, max, 0, "Hero armor strength");
+    }
+
+    /**
+     * Set how often monsters get each weapon type
+     *
+     * @param weights The weight of each WeaponType, in WeaponType order (CLUB, AXE, SWORD)
+     * @throws IllegalArgumentException If there is not one weight per type, a weight is negative or all are 0
+     */
+    public void setWeaponMix(int... weights) {
+        if (weights.length != WeaponType.values().length) {
+            throw new IllegalArgumentException("There must be " + WeaponType.values().length + " weapon weights, not " + weights.length);
+        }
+        long total = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weapon weights must not be negative");
+            }
+            total += weight;
+        }
+        if (total == 0 || total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Weapon weights must add up to 1 or more");
+        }
+        this.weaponWeights = weights.clone();
+    }
+
+    /**
+     * Set the format of the file
+     *
+     * @param sparse Write the SPARSE format, one line per entity (the default), otherwise the original format with
+     *               one line per location
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * Number of heroes in the last file written
+     *
+     * @return The number of heroes written
+     */
+    public long getHeroes() {
+        return heroes;
+    }
+
+    /**
+     * Number of monsters in the last file written
+     *
+     * @return The number of monsters written
+     */
+    public long getMonsters() {
+        return monsters;
+    }
+
+    /**
+     * Generate a world and write it to a file
+     *
+     * @param file The file to write
+     * @throws IOException              If the file cannot be written
+     * @throws IllegalArgumentException If the densities are too high for the layout (a region would need more
+     *                                  entities than locations)
+     */
+    public void write(File file) throws IOException {
+        StreamRandom random = new StreamRandom(seed);
+        setUpLayout(random);
+        heroes = 0;
+        monsters = 0;
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file), BUFFER_BYTES)) {
+            length = 0;
+            if (sparse) {
+                putText("SPARSE\n");
+            }
+            putInt(rows);
+            putText("\n");
+            putInt(columns);
+            putText("\n");
+            output.write(line, 0, length);
+            for (int row = 0; row < rows; row++) {
+                int column = 0;
+                while (column < columns) {
+                    int end = segmentEnd(row, column);
+                    column = writeSegment(output, random, row, column, end);
+                }
+            }
+        }
+    }
+
+    /**
+     * Work out the chances of each layout region (and place the clusters of Layout.CLUSTERED)
+     *
+     * @param random The random numbers (clusters are placed before anything is written)
+     * @throws IllegalArgumentException If a region would need a chance above 1
+     */
+    private void setUpLayout(StreamRandom random) {
+        double cells = (double) rows * columns;
+        //Each faction's density is over the whole map, so it is concentrated into the share of the map it may use
+        double share = 1;
+        switch (layout) {
+            case FRONTS:
+                share = (double) Math.max(1, rows / FRONT_DIVISOR) / rows;
+                break;
+            case CHECKERBOARD:
+                share = 0.5;
+                break;
+            case CLUSTERED:
+                clusterSide = (int) Math.max(1, Math.min(Math.min(rows, columns), Math.sqrt(CLUSTER_SHARE * cells / clusters)));
+                share = Math.min(1, (double) clusters * clusterSide * clusterSide / cells);
+                clusterRows = new int[clusters * 2];
+                clusterColumns = new int[clusters * 2];
+                for (int cluster = 0; cluster < clusters * 2; cluster++) {
+                    clusterRows[cluster] = random.nextInt(rows - clusterSide + 1);
+                    clusterColumns[cluster] = random.nextInt(columns - clusterSide + 1);
+                }
+                break;
+            default:
+                break;
+        }
+        heroChance = heroDensity / share;
+        monsterChance = monsterDensity / share;
+        if (heroChance > 1 || monsterChance > 1 || (layout == Layout.UNIFORM && heroChance + monsterChance > 1)) {
+            throw new IllegalArgumentException(String.format("The densities are too high for the %s layout (at most %.4f of the map for each side%s)",
+                    layout, share, layout == Layout.UNIFORM ? " and for both together" : ""));
+        }
+    }
+
+    /**
+     * The end of the run of locations from a location on that has the same chances
+     *
+     * @param row    The row
+     * @param column The first column of the run
+     * @return The column after the run
+     */
+    private int segmentEnd(int row, int column) {
+        switch (layout) {
+            case CHECKERBOARD:
+                return (int) Math.min(columns, ((long) column / blockSize + 1) * blockSize);
+            case CLUSTERED:
+                long end = columns;
+                for (int cluster = 0; cluster < clusterRows.length; cluster++) {
+                    if (row >= clusterRows[cluster] && row < clusterRows[cluster] + clusterSide) {
+                        int start = clusterColumns[cluster];
+                        int stop = start + clusterSide;
+                        if (start > column) {
+                            end = Math.min(end, start);
+                        } else if (stop > column) {
+                            end = Math.min(end, stop);
+                        }
+                    }
+                }
+                return (int) end;
+            default:
+                return columns;
+        }
+    }
+
+    /**
+     * Chance of a hero at a location
+     *
+     * @param row    The row
+     * @param column The column
+     * @return The chance
+     */
+    private double heroChanceAt(int row, int column) {
+        switch (layout) {
+            case FRONTS:
+                return row < Math.max(1, rows / FRONT_DIVISOR) ? heroChance : 0;
+            case CHECKERBOARD:
+                return ((row / blockSize) + (column / blockSize)) % 2 == 0 ? heroChance : 0;
+            case CLUSTERED:
+                return inCluster(0, row, column) ? heroChance : 0;
+            default:
+                return heroChance;
+        }
+    }
+
+    /**
+     * Chance of a monster at a location
+     *
+     * @param row    The row
+     * @param column The column
+     * @return The chance
+     */
+    private double monsterChanceAt(int row, int column) {
+        switch (layout) {
+            case FRONTS:
+                return row >= rows - Math.max(1, rows / FRONT_DIVISOR) ? monsterChance : 0;
+            case CHECKERBOARD:
+                return ((row / blockSize) + (column / blockSize)) % 2 == 1 ? monsterChance : 0;
+            case CLUSTERED:
+                return inCluster(clusters, row, column) ? monsterChance : 0;
+            default:
+                return monsterChance;
+        }
+    }
+
+    /**
+     * Is a location in one of a faction's clusters
+     *
+     * @param first  The index of the faction's first cluster (0 for heroes, clusters for monsters)
+     * @param row    The row
+     * @param column The column
+     * @return True if it is in a cluster
+     */
+    private boolean inCluster(int first, int row, int column) {
+        for (int cluster = first; cluster < first + clusters; cluster++) {
+            if (row >= clusterRows[cluster] && row < clusterRows[cluster] + clusterSide
+                    && column >= clusterColumns[cluster] && column < clusterColumns[cluster] + clusterSide) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generate and write a run of locations with the same chances
+     *
+     * @param output The file
+     * @param random The random numbers
+     * @param row    The row
+     * @param column The first column of the run
+     * @param end    The column after the run
+     * @return The column after the run
+     * @throws IOException If the file cannot be written
+     */
+    private int writeSegment(OutputStream output, StreamRandom random, int row, int column, int end) throws IOException {
+        double hero = heroChanceAt(row, column);
+        double monster = monsterChanceAt(row, column);
+        double chance = hero + monster;
+        if (chance > 1) {
+            //Overlapping hero and monster regions share the locations
+            hero /= chance;
+            chance = 1;
+        }
+        long next = column;
+        while (true) {
+            if (chance <= 0) {
+                next = end;
+            } else if (chance < 1) {
+                //Number of empty locations before the next entity
+                next += (long) Math.floor(Math.log(1 - random.nextDouble()) / Math.log1p(-chance));
+            }
+            if (!sparse) {
+                for (long empty = column; empty < Math.min(next, end); empty++) {
+                    length = 0;
+                    putLocation(row, (int) empty);
+                    putText("\n");
+                    output.write(line, 0, length);
+                }
+            }
+            if (next >= end) {
+                return end;
+            }
+            length = 0;
+            putLocation(row, (int) next);
+            if (random.nextDouble() * chance < hero) {
+                putText(",HERO,H,");
+                putInt(draw(random, health));
+                putText(",");
+                putInt(draw(random, heroWeapon));
+                putText(",");
+                putInt(draw(random, heroArmor));
+                heroes++;
+            } else {
+                putText(",MONSTER,M,");
+                putInt(draw(random, health));
+                putText(",");
+                line[length++] = (byte) WeaponType.values()[drawWeapon(random)].name().charAt(0);
+                monsters++;
+            }
+            putText("\n");
+            output.write(line, 0, length);
+            column = (int) next + 1;
+            next = column;
+        }
+    }
+
+    /**
+     * Draw a value of a range
+     *
+     * @param random The random numbers
+     * @param range  The lowest and highest value
+     * @return The value
+     */
+    private static int draw(StreamRandom random, int[] range) {
+        return range[0] + random.nextInt(range[1] - range[0] + 1);
+    }
+
+    /**
+     * Draw a monster's weapon type by the weapon weights
+     *
+     * @param random The random numbers
+     * @return The ordinal of the WeaponType
+     */
+    private int drawWeapon(StreamRandom random) {
+        int total = 0;
+        for (int weight : weaponWeights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        int type = 0;
+        while (pick >= weaponWeights[type]) {
+            pick -= weaponWeights[type++];
+        }
+        return type;
+    }
+
+    /**
+     * Check a range of values
+     *
+     * @param min    The lowest value
+     * @param max    The highest value
+     * @param lowest The lowest value allowed
+     * @param name   What the values are (for the error message)
+     * @return The range as {min, max}
+     * @throws IllegalArgumentException If the range is empty or starts below lowest
+     */
+    private static int[] range(int min, int max, int lowest, String name) {
+        if (min < lowest || max < min || (long) max - min >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(name + " must be a range from " + lowest + " up, not " + min + "-" + max);
+        }
+        return new int[]{min, max};
+    }
+
+    /**
+     * Add "row,column" to the line
+     *
+     * @param row    The row
+     * @param column The column
+     */
+    private void putLocation(int row, int column) {
+        putInt(row);
+        line[length++] = ',';
+        putInt(column);
+    }
+
+    /**
+     * Add an integer to the line
+     *
+     * @param value The integer (not negative)
+     */
+    private void putInt(int value) {
+        int start = length;
+        do {
+            line[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        //The digits went in backwards
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = line[i];
+            line[i] = line[j];
+            line[j] = digit;
+        }
+    }
+
+    /**
+     * Add ASCII text to the line
+     *
+     * @param text The text
+     */
+    private void putText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            line[length++] = (byte) text.charAt(i);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package mvh.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event of loading a world file (Reader.loadWorld, in any format); its duration is the time
+ * taken to read and parse the file
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@Name("mvh.WorldLoad")
+@Label("World Load")
+@Category("Monsters vs Heroes")
+@Description("Reading a world file into a World")
+@StackTrace(false)
+public final class WorldLoadEvent extends jdk.jfr.Event {
+
+    /**
+     * The path of the world file
+     */
+    @Label("File")
+    String file;
+
+    /**
+     * The size of the world file
+     */
+    @Label("File Size")
+    @DataAmount
+    long fileSize;
+
+    /**
+     * Number of locations of the map
+     */
+    @Label("Cells")
+    long cells;
+
+    /**
+     * Number of heroes and monsters in the world (ALIVE or DEAD)
+     */
+    @Label("Entities")
+    long entities;
+}
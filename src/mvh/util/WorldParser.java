@@ -0,0 +1,639 @@
+package mvh.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import mvh.enums.WeaponType;
+import mvh.world.World;
+
+/**
+ * Parser for the original and SPARSE text world files (see Reader.loadWorld) that works on the raw bytes of the file.
+ * The file is read through a FileChannel into large direct buffers, commas and new lines are found by scanning bytes
+ * and numbers are parsed in place, so no String (or String[]) is created per line.
+ * <p>
+ * Big files are split into chunks of CHUNK_BYTES that are parsed at the same time on the common ForkJoin pool. A chunk
+ * owns every line that starts inside it (so chunks line up with new lines) and collects its entities as primitive
+ * records. The records are then turned into entities and added to the World one chunk after another in file order,
+ * so entity IDs and the order entities take their turns are exactly the same as reading the file line by line.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class WorldParser {
+
+    /**
+     * Size of the direct buffer each chunk is read through
+     */
+    private static final int BUFFER_BYTES = 4 << 20;
+    /**
+     * Size of the part of the file parsed by each parallel task
+     */
+    private static final long CHUNK_BYTES = 32L << 20;
+    /**
+     * Most bytes looked at for the header lines
+     */
+    private static final int HEADER_BYTES = 256;
+    /**
+     * Number of ints in the record of a parsed entity
+     */
+    private static final int RECORD_INTS = 6;
+    /**
+     * Record type of a hero
+     */
+    private static final int HERO = 1;
+    /**
+     * Record type of a monster
+     */
+    private static final int MONSTER = 2;
+    /**
+     * Bytes of the HERO entity type
+     */
+    private static final byte[] HERO_TYPE = {'H', 'E', 'R', 'O'};
+    /**
+     * Bytes of the MONSTER entity type
+     */
+    private static final byte[] MONSTER_TYPE = {'M', 'O', 'N', 'S', 'T', 'E', 'R'};
+    /**
+     * Bytes of the SPARSE header line
+     */
+    private static final byte[] SPARSE_HEADER = {'S', 'P', 'A', 'R', 'S', 'E'};
+
+    /**
+     * The direct buffer of each thread (re-used for every chunk the thread parses)
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_BYTES));
+
+    /**
+     * The lines of a file starting in [start, end), and the entities parsed from them
+     */
+    private static final class Chunk {
+        /**
+         * File offset this chunk starts at (moved forward to the first line that starts at or after it)
+         */
+        private final long start;
+        /**
+         * File offset this chunk ends at (the line starting before it is still finished)
+         */
+        private final long end;
+        /**
+         * Number of lines this chunk owns
+         */
+        private long lines;
+        /**
+         * Number of entities parsed
+         */
+        private int count;
+        /**
+         * Line (counted from the first line of this chunk) each entity was on
+         */
+        private long[] lineOf = new long[64];
+        /**
+         * Record of each entity: row, column, health, weapon (hero weapon strength or monster weapon letter), armor,
+         * symbol and type (symbol << 8 | type)
+         */
+        private int[] records = new int[64 * RECORD_INTS];
+
+        /**
+         * A chunk of a file
+         *
+         * @param start The first byte of the chunk
+         * @param end   The byte after the last byte of the chunk
+         */
+        private Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Add an entity record (growing the arrays when full)
+         *
+         * @param row    The row given on the line (SPARSE only)
+         * @param column The column given on the line (SPARSE only)
+         * @param health The health of the entity
+         * @param weapon The weapon strength of a hero or the weapon letter of a monster
+         * @param armor  The armor strength of a hero
+         * @param symbol The symbol of the entity
+         * @param type   HERO or MONSTER
+         */
+        private void add(int row, int column, int health, int weapon, int armor, char symbol, int type) {
+            if (count == lineOf.length) {
+                lineOf = Arrays.copyOf(lineOf, count * 2);
+                records = Arrays.copyOf(records, count * 2 * RECORD_INTS);
+            }
+            lineOf[count] = lines;
+            int offset = count * RECORD_INTS;
+            records[offset] = row;
+            records[offset + 1] = column;
+            records[offset + 2] = health;
+            records[offset + 3] = weapon;
+            records[offset + 4] = armor;
+            records[offset + 5] = symbol << 8 | type;
+            count++;
+        }
+    }
+
+    /**
+     * Parses the lines of one chunk out of a direct buffer (one parser per chunk, so chunks can be parsed at once)
+     */
+    private static final class LineParser {
+        /**
+         * The buffer holding the file bytes being parsed
+         */
+        private final ByteBuffer buffer;
+        /**
+         * Index in the buffer of the next byte to look at on the current line
+         */
+        private int position;
+        /**
+         * Index in the buffer of the end of the current line (its new line, or carriage return)
+         */
+        private int end;
+        /**
+         * File offset of the current line (for error messages)
+         */
+        private long lineStart;
+
+        /**
+         * A parser reading from the given buffer
+         *
+         * @param buffer The buffer the chunk is read into
+         */
+        private LineParser(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Parse one line of the original format: row,column for floor or row,column,TYPE,symbol,health,... for an
+         * entity. Like the original reader the row and column are not used (lines are always in row order) and
+         * anything that is not a HERO or MONSTER is floor
+         *
+         * @param chunk Where to add the entity of the line
+         * @throws IOException If an entity on the line is not valid
+         */
+        private void parseOriginal(Chunk chunk) throws IOException {
+            skipField();
+            skipField();
+            parseEntity(chunk, 0, 0, false);
+        }
+
+        /**
+         * Parse one line of a SPARSE file: row,column,TYPE,symbol,health,... (blank lines are skipped)
+         *
+         * @param chunk Where to add the entity of the line
+         * @throws IOException If the line is not a valid entity
+         */
+        private void parseSparse(Chunk chunk) throws IOException {
+            skipSpaces();
+            if (position >= end) {
+                return;
+            }
+            int row = parseInt();
+            int column = parseInt();
+            parseEntity(chunk, row, column, true);
+        }
+
+        /**
+         * Parse the TYPE,symbol,health,... part of a line
+         *
+         * @param chunk    Where to add the entity
+         * @param row      The row given on the line
+         * @param column   The column given on the line
+         * @param required Must the line hold a HERO or MONSTER (otherwise it may be floor)
+         * @throws IOException If the entity is not valid
+         */
+        private void parseEntity(Chunk chunk, int row, int column, boolean required) throws IOException {
+            int type = matchField(HERO_TYPE) ? HERO : matchField(MONSTER_TYPE) ? MONSTER : 0;
+            if (type == 0) {
+                if (required) {
+                    throw error("the entity type is not HERO or MONSTER");
+                }
+                return;
+            }
+            skipField();
+            char symbol = parseChar();
+            int health = parseInt();
+            if (type == MONSTER) {
+                char weapon = parseChar();
+                chunk.add(row, column, health, weapon, 0, symbol, MONSTER);
+            } else {
+                int weapon = parseInt();
+                int armor = parseInt();
+                chunk.add(row, column, health, weapon, armor, symbol, HERO);
+            }
+        }
+
+        /**
+         * Does the next field hold exactly the given word (the field is not skipped)
+         *
+         * @param word The bytes of the word
+         * @return True if the field is the word
+         */
+        private boolean matchField(byte[] word) {
+            int index = position;
+            while (index < end && isSpace(buffer.get(index))) {
+                index++;
+            }
+            for (byte letter : word) {
+                if (index >= end || buffer.get(index) != letter) {
+                    return false;
+                }
+                index++;
+            }
+            while (index < end && isSpace(buffer.get(index))) {
+                index++;
+            }
+            return index >= end || buffer.get(index) == ',';
+        }
+
+        /**
+         * Move past the next field and its comma
+         */
+        private void skipField() {
+            while (position < end && buffer.get(position) != ',') {
+                position++;
+            }
+            position++;
+        }
+
+        /**
+         * Move past spaces and tabs
+         */
+        private void skipSpaces() {
+            while (position < end && isSpace(buffer.get(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Parse the next field as an integer (with an optional sign) and move past it
+         *
+         * @return The integer
+         * @throws IOException If the field is not an integer
+         */
+        private int parseInt() throws IOException {
+            skipSpaces();
+            boolean negative = false;
+            if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                negative = buffer.get(position) == '-';
+                position++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (position < end) {
+                byte digit = buffer.get(position);
+                if (digit < '0' || digit > '9') {
+                    break;
+                }
+                value = value * 10 + (digit - '0');
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw error("a number is too large");
+                }
+                digits++;
+                position++;
+            }
+            skipSpaces();
+            if (digits == 0 || (position < end && buffer.get(position) != ',')) {
+                throw error("a number was expected");
+            }
+            position++;
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw error("a number is too large");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Parse the first character of the next field (decoding UTF-8) and move past the field
+         *
+         * @return The first character of the field
+         * @throws IOException If the field is empty
+         */
+        private char parseChar() throws IOException {
+            skipSpaces();
+            if (position >= end || buffer.get(position) == ',') {
+                throw error("a symbol was expected");
+            }
+            int first = buffer.get(position) & 0xFF;
+            char letter;
+            if (first < 0x80) {
+                letter = (char) first;
+            } else if ((first & 0xE0) == 0xC0) {
+                letter = (char) ((first & 0x1F) << 6 | continuation(1));
+            } else if ((first & 0xF0) == 0xE0) {
+                letter = (char) ((first & 0x0F) << 12 | continuation(1) << 6 | continuation(2));
+            } else {
+                int codePoint = (first & 0x07) << 18 | continuation(1) << 12 | continuation(2) << 6 | continuation(3);
+                letter = Character.highSurrogate(codePoint);
+            }
+            skipField();
+            return letter;
+        }
+
+        /**
+         * The payload of a UTF-8 continuation byte of the current character
+         *
+         * @param index Which byte of the character (1-3)
+         * @return The low 6 bits of the byte
+         */
+        private int continuation(int index) {
+            return position + index < end ? buffer.get(position + index) & 0x3F : 0;
+        }
+
+        /**
+         * An error for the current line
+         *
+         * @param reason What is wrong with the line
+         * @return The exception to throw
+         */
+        private IOException error(String reason) {
+            return new IOException("The line starting at byte " + lineStart + " is not valid (" + reason + ")");
+        }
+    }
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private WorldParser() {
+    }
+
+    /**
+     * Parse an original or SPARSE text world file into a World
+     *
+     * @param file The world file
+     * @return The world described by the file
+     * @throws IOException If the file cannot be read or is not valid
+     */
+    public static World parse(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            //The header: an optional SPARSE line, then the number of rows and columns
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(size, HEADER_BYTES));
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // keep reading until the header buffer is full
+            }
+            long[] lines = new long[3];
+            int headerLines = 0;
+            for (int index = 0; index < header.position() && headerLines < lines.length; index++) {
+                if (header.get(index) == '\n') {
+                    lines[headerLines++] = index + 1;
+                }
+            }
+            boolean sparse = headerLines > 0 && startsWithWord(header, 0, (int) lines[0], SPARSE_HEADER);
+            int first = sparse ? 1 : 0;
+            if (headerLines < first + 2) {
+                throw new IOException("The world file must start with the number of rows and columns");
+            }
+            int rows = headerInt(header, first == 0 ? 0 : (int) lines[first - 1], (int) lines[first]);
+            int columns = headerInt(header, (int) lines[first], (int) lines[first + 1]);
+            if (rows < 1 || columns < 1) {
+                throw new IOException("The world must have at least one row and column");
+            }
+            long dataStart = lines[first + 1];
+
+            //Parse the rest of the file in chunks (at the same time if there is more than one)
+            int chunkCount = (int) Math.max(1, (size - dataStart + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            Chunk[] chunks = new Chunk[chunkCount];
+            for (int index = 0; index < chunkCount; index++) {
+                long start = dataStart + index * CHUNK_BYTES;
+                chunks[index] = new Chunk(start, index == chunkCount - 1 ? size : start + CHUNK_BYTES);
+            }
+            IntStream tasks = IntStream.range(0, chunkCount);
+            if (chunkCount > 1) {
+                tasks = tasks.parallel();
+            }
+            try {
+                tasks.forEach(index -> {
+                    try {
+                        parseChunk(channel, size, chunks[index], index > 0, sparse);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return build(chunks, rows, columns, sparse);
+        }
+    }
+
+    /**
+     * Turn the records of every chunk into entities, adding them to a new World in file order
+     *
+     * @param chunks  The parsed chunks in file order
+     * @param rows    The number of rows
+     * @param columns The number of columns
+     * @param sparse  Do the records give their own location (SPARSE), otherwise the line number is the location
+     * @return The new world
+     * @throws IOException If an entity is not valid or the file has too few lines
+     */
+    private static World build(Chunk[] chunks, int rows, int columns, boolean sparse) throws IOException {
+        World world = new World(rows, columns);
+        long cells = (long) rows * columns;
+        long firstLine = 0;
+        for (Chunk chunk : chunks) {
+            for (int index = 0; index < chunk.count; index++) {
+                int offset = index * RECORD_INTS;
+                int row;
+                int column;
+                if (sparse) {
+                    row = chunk.records[offset];
+                    column = chunk.records[offset + 1];
+                    if (row < 0 || row >= rows || column < 0 || column >= columns) {
+                        throw new IOException("Entity location " + row + "," + column + " is outside the world");
+                    }
+                    if (world.isOccupied(row, column)) {
+                        throw new IOException("Two entities have the location " + row + "," + column);
+                    }
+                } else {
+                    //Only the first rows x columns lines are locations, like the original reader
+                    long cell = firstLine + chunk.lineOf[index];
+                    if (cell >= cells) {
+                        break;
+                    }
+                    row = (int) (cell / columns);
+                    column = (int) (cell % columns);
+                }
+                int health = chunk.records[offset + 2];
+                int weapon = chunk.records[offset + 3];
+                char symbol = (char) (chunk.records[offset + 5] >>> 8);
+                if ((chunk.records[offset + 5] & 0xFF) == HERO) {
+                    world.addHero(row, column, health, symbol, weapon, chunk.records[offset + 4]);
+                } else {
+                    try {
+                        world.addMonster(row, column, health, symbol, WeaponType.getWeaponType((char) weapon));
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(e.getMessage(), e);
+                    }
+                }
+            }
+            firstLine += chunk.lines;
+        }
+        if (!sparse && firstLine < cells) {
+            throw new IOException("The world file ends before all " + rows + "x" + columns + " locations");
+        }
+        return world;
+    }
+
+    /**
+     * Parse every line that starts inside a chunk
+     *
+     * @param channel The file
+     * @param size    The size of the file
+     * @param chunk   The chunk to parse
+     * @param align   Does the chunk start part way through the data (so it must skip to the next line first)
+     * @param sparse  Is this a SPARSE file
+     * @throws IOException If the file cannot be read or a line is not valid
+     */
+    private static void parseChunk(FileChannel channel, long size, Chunk chunk, boolean align, boolean sparse) throws IOException {
+        ByteBuffer buffer = BUFFERS.get();
+        LineParser parser = new LineParser(buffer);
+        //The line that ends just before the chunk starts belongs to this chunk, so look from the byte before the start
+        long bufferStart = align ? chunk.start - 1 : chunk.start;
+        buffer.limit(0);
+        fill(channel, buffer, bufferStart, size);
+        int index = 0;
+        if (align) {
+            while (true) {
+                while (index < buffer.limit() && buffer.get(index) != '\n') {
+                    index++;
+                }
+                if (index < buffer.limit() || bufferStart + buffer.limit() >= size) {
+                    break;
+                }
+                //A long line started in the previous chunk, keep skipping it
+                bufferStart += buffer.limit();
+                index = 0;
+                buffer.limit(0);
+                fill(channel, buffer, bufferStart, size);
+            }
+            index++;
+        }
+        while (true) {
+            //Find the end of the line (reading more of the file if it is not all in the buffer)
+            int newLine = index;
+            while (newLine < buffer.limit() && buffer.get(newLine) != '\n') {
+                newLine++;
+            }
+            if (newLine == buffer.limit() && bufferStart + buffer.limit() < size) {
+                if (index == 0 && buffer.limit() == buffer.capacity()) {
+                    throw new IOException("The line starting at byte " + bufferStart + " is too long");
+                }
+                buffer.position(index);
+                buffer.compact();
+                buffer.flip();
+                bufferStart += index;
+                index = 0;
+                fill(channel, buffer, bufferStart, size);
+                continue;
+            }
+            long lineStart = bufferStart + index;
+            if (index >= buffer.limit() || lineStart >= chunk.end) {
+                //No line left in the file, or the line belongs to the next chunk
+                return;
+            }
+            int end = newLine;
+            if (end > index && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            parser.position = index;
+            parser.end = end;
+            parser.lineStart = lineStart;
+            if (sparse) {
+                parser.parseSparse(chunk);
+            } else {
+                parser.parseOriginal(chunk);
+            }
+            chunk.lines++;
+            index = newLine + 1;
+        }
+    }
+
+    /**
+     * Read more of the file into the space after the buffer's limit (the buffer's index 0 is file offset bufferStart)
+     *
+     * @param channel     The file
+     * @param buffer      The buffer (bytes up to its limit are kept)
+     * @param bufferStart The file offset of index 0 of the buffer
+     * @param size        The size of the file
+     * @throws IOException If the file cannot be read
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, long bufferStart, long size) throws IOException {
+        int kept = buffer.limit();
+        buffer.limit(buffer.capacity());
+        buffer.position(kept);
+        while (buffer.hasRemaining() && bufferStart + buffer.position() < size) {
+            if (channel.read(buffer, bufferStart + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Is a header line exactly the given word (ignoring spaces and a carriage return)
+     *
+     * @param buffer The header bytes
+     * @param from   The first byte of the line
+     * @param to     The byte after the line's new line
+     * @param word   The word
+     * @return True if the line is the word
+     */
+    private static boolean startsWithWord(ByteBuffer buffer, int from, int to, byte[] word) {
+        int index = from;
+        while (index < to && isSpace(buffer.get(index))) {
+            index++;
+        }
+        for (byte letter : word) {
+            if (index >= to || buffer.get(index++) != letter) {
+                return false;
+            }
+        }
+        while (index < to && (isSpace(buffer.get(index)) || buffer.get(index) == '\r' || buffer.get(index) == '\n')) {
+            index++;
+        }
+        return index == to;
+    }
+
+    /**
+     * Parse a header line holding a single number
+     *
+     * @param buffer The header bytes
+     * @param from   The first byte of the line
+     * @param to     The byte after the line's new line
+     * @return The number on the line
+     * @throws IOException If the line is not a number
+     */
+    private static int headerInt(ByteBuffer buffer, int from, int to) throws IOException {
+        long value = 0;
+        int digits = 0;
+        for (int index = from; index < to; index++) {
+            byte digit = buffer.get(index);
+            if (digit >= '0' && digit <= '9' && value <= Integer.MAX_VALUE) {
+                value = value * 10 + (digit - '0');
+                digits++;
+            } else if (!isSpace(digit) && digit != '\r' && digit != '\n') {
+                throw new IOException("The world file must start with the number of rows and columns");
+            }
+        }
+        if (digits == 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("The world file must start with the number of rows and columns");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Is a byte a space or tab
+     *
+     * @param letter The byte
+     * @return True if it is a space or tab
+     */
+    private static boolean isSpace(byte letter) {
+        return letter == ' ' || letter == '\t';
+    }
+}
@@ -0,0 +1,47 @@
+package mvh.world;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event of one attack that hits an entity, with the damage rolled and the damage left after
+ * armor. Combat happens many times a tick, so it is off unless a recording enables mvh.Attack.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@Name("mvh.Attack")
+@Label("Attack")
+@Category("Monsters vs Heroes")
+@Description("An entity attacking another")
+@StackTrace(false)
+@Enabled(false)
+public final class AttackEvent extends jdk.jfr.Event {
+
+    /**
+     * The ID of the attacking entity
+     */
+    @Label("Attacker ID")
+    int attackerId;
+
+    /**
+     * The ID of the attacked entity
+     */
+    @Label("Target ID")
+    int targetId;
+
+    /**
+     * The damage rolled
+     */
+    @Label("Damage")
+    int damage;
+
+    /**
+     * The damage left after the target's armor
+     */
+    @Label("True Damage")
+    int trueDamage;
+}
@@ -0,0 +1,408 @@
+package mvh.world;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import mvh.enums.Direction;
+import mvh.enums.RandomMode;
+import mvh.enums.TickMode;
+import mvh.enums.WeaponType;
+
+/**
+ * Binary checkpoints of a running World, so a long simulation can be stopped and resumed later with exactly the same
+ * results as if it had never stopped. A checkpoint holds everything the next tick depends on: the map (including dead
+ * entities still lying on it), the entity order with each entity's ID, health and location, the tick, the state, the
+ * tick and random modes, the state of the random number generator and the next entity ID. All values are big-endian.
+ * <p>
+ * Header: int magic "MVHC", int version, int rows, int columns, byte sparse, byte active, int tick, byte tick mode,
+ * byte random mode, long stream seed, int next entity ID, int length + serialized java.util.Random (length 0 if none),
+ * int entity count
+ * <p>
+ * Entity (in entity order): byte type (0 wall, 1 hero, 2 monster), int ID, char symbol, int health, int weapon (a
+ * hero's weapon strength, or a monster's weapon type ordinal), int armor (heroes only), long packed location
+ * <p>
+ * Map: int occupied count, then per occupied location: int row, int column, int entity index (-1 for a wall)
+ * <p>
+ * Pursuit (version 2 on, see World.setPursuit): int ticks between recomputing, int tick last computed, byte has flow
+ * fields, then if it has them rows * columns bytes of the heroes' flow field and the same of the monsters'
+ * <p>
+ * Vision (version 3 on, see World.setVision): byte hero attack size, byte hero move size, byte monster attack size,
+ * byte monster move size
+ * <p>
+ * A checkpoint is written to a temporary file next to the target and then renamed over it, so a crash while writing
+ * never leaves a half-written checkpoint behind.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class Checkpoint {
+
+    /**
+     * The first four bytes of every checkpoint file ("MVHC")
+     */
+    static final int MAGIC = 0x4D564843;
+    /**
+     * The version of the format written
+     */
+    static final int VERSION = 3;
+    /**
+     * The oldest version of the format that can still be read (no pursuit section)
+     */
+    private static final int FIRST_VERSION = 1;
+    /**
+     * Entity type of a wall
+     */
+    private static final byte WALL = 0;
+    /**
+     * Entity type of a hero
+     */
+    private static final byte HERO = 1;
+    /**
+     * Entity type of a monster
+     */
+    private static final byte MONSTER = 2;
+    /**
+     * Map entry of a location holding a wall (walls are not in the entity order)
+     */
+    private static final int WALL_INDEX = -1;
+    /**
+     * Size of the buffer a checkpoint is written and read through
+     */
+    private static final int BUFFER_BYTES = 1 << 20;
+    /**
+     * The only classes allowed when reading back the serialized random number generator
+     */
+    private static final ObjectInputFilter RANDOM_FILTER = ObjectInputFilter.Config.createFilter(
+            "java.util.Random;mvh.util.StreamRandom;!*");
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private Checkpoint() {
+    }
+
+    /**
+     * Check if a file is a checkpoint (starts with the magic number)
+     *
+     * @param file The file to check
+     * @return True if the file is a checkpoint, false if it is not (or cannot be read)
+     */
+    public static boolean isCheckpoint(File file) {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            return input.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write a checkpoint of a world, atomically replacing the file if it already exists
+     *
+     * @param world The world to save (between ticks)
+     * @param file  The checkpoint file
+     * @throws IOException If the checkpoint cannot be written
+     */
+    public static void write(World world, File file) throws IOException {
+        File absolute = file.getAbsoluteFile();
+        File temporary = new File(absolute.getParentFile(), absolute.getName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_BYTES));
+            writeWorld(world, output);
+            output.flush();
+            //The data must be on disk before the rename makes it the checkpoint
+            stream.getFD().sync();
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+        try {
+            Files.move(temporary.toPath(), absolute.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), absolute.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read a checkpoint back into a world that continues exactly where the saved one stopped (this also restores the
+     * next entity ID, so entities created afterwards get the same IDs as in an uninterrupted run)
+     *
+     * @param file The checkpoint file
+     * @return The restored world, with its own random number generator
+     * @throws IOException If the file cannot be read or is not a valid checkpoint
+     */
+    public static World read(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_BYTES))) {
+            return readWorld(input);
+        }
+    }
+
+    /**
+     * Write the whole state of a world
+     *
+     * @param world  The world to save
+     * @param output Where to write it
+     * @throws IOException If it cannot be written
+     */
+    static void writeWorld(World world, DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(world.getRows());
+        output.writeInt(world.getColumns());
+        output.writeBoolean(world.isSparse());
+        output.writeBoolean(world.isActive());
+        output.writeInt(world.getTick());
+        output.writeByte(world.getTickMode().ordinal());
+        output.writeByte(world.getRandomMode().ordinal());
+        output.writeLong(world.getSeed());
+        output.writeInt(Entity.getIDCounter());
+        byte[] random = serializeRandom(world.getRandom());
+        output.writeInt(random.length);
+        output.write(random);
+
+        EntityStore entities = world.getEntityStore();
+        int count = entities.size();
+        output.writeInt(count);
+        for (int index = 0; index < count; index++) {
+            byte type = typeOf(entities.getFaction(index));
+            output.writeByte(type);
+            output.writeInt(entities.getId(index));
+            output.writeChar(entities.getSymbol(index));
+            output.writeInt(entities.getHealth(index));
+            int weapon = entities.getWeaponStrength(index);
+            output.writeInt(type == MONSTER ? WeaponType.withStrength(weapon).ordinal() : weapon);
+            output.writeInt(type == HERO ? entities.getArmorStrength(index) : 0);
+            output.writeLong(world.getLocationAt(index));
+        }
+
+        //Count first, then write, so the map section can be read without knowing its length in advance
+        int[] cells = {0};
+        world.forEachCell((row, column, cell) -> cells[0]++);
+        output.writeInt(cells[0]);
+        try {
+            world.forEachCell((row, column, cell) -> {
+                try {
+                    output.writeInt(row);
+                    output.writeInt(column);
+                    output.writeInt(cell == Grid.WALL ? WALL_INDEX : cell - 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        output.writeInt(world.getPursuitTicks());
+        output.writeInt(world.getPursuitTick());
+        FlowField heroFlow = world.getFlowField(true);
+        output.writeBoolean(heroFlow != null);
+        if (heroFlow != null) {
+            output.write(heroFlow.getFlow());
+            output.write(world.getFlowField(false).getFlow());
+        }
+
+        output.writeByte(world.getAttackSize(Hero.class));
+        output.writeByte(world.getMoveSize(Hero.class));
+        output.writeByte(world.getAttackSize(Monster.class));
+        output.writeByte(world.getMoveSize(Monster.class));
+    }
+
+    /**
+     * Read the whole state of a world
+     *
+     * @param input Where to read it from
+     * @return The restored world
+     * @throws IOException If it cannot be read or is not a valid checkpoint
+     */
+    static World readWorld(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("The file is not a checkpoint");
+        }
+        int version = input.readInt();
+        if (version < FIRST_VERSION || version > VERSION) {
+            throw new IOException("Checkpoint version " + version + " is not supported (expected " + FIRST_VERSION + " to " + VERSION + ")");
+        }
+        int rows = input.readInt();
+        int columns = input.readInt();
+        if (rows < 1 || columns < 1) {
+            throw new IOException("Checkpoint has an invalid size of " + rows + "x" + columns);
+        }
+        World world = new World(rows, columns, input.readBoolean());
+        boolean active = input.readBoolean();
+        int tick = input.readInt();
+        TickMode tickMode = TickMode.values()[checkOrdinal(input.readByte(), TickMode.values().length, "tick mode")];
+        RandomMode randomMode = RandomMode.values()[checkOrdinal(input.readByte(), RandomMode.values().length, "random mode")];
+        long seed = input.readLong();
+        int nextId = input.readInt();
+        byte[] random = new byte[input.readInt()];
+        input.readFully(random);
+
+        int count = input.readInt();
+        for (int index = 0; index < count; index++) {
+            byte type = input.readByte();
+            int id = input.readInt();
+            char symbol = input.readChar();
+            int health = input.readInt();
+            int weapon = input.readInt();
+            int armor = input.readInt();
+            long location = input.readLong();
+            if (type == HERO) {
+                EntityStore.checkHealth(health);
+                world.restoreEntity(EntityStore.HERO, id, symbol, health, weapon, armor, location);
+            } else if (type == MONSTER) {
+                EntityStore.checkHealth(health);
+                WeaponType weaponType = WeaponType.values()[checkOrdinal(weapon, WeaponType.values().length, "weapon type")];
+                world.restoreEntity(EntityStore.MONSTER, id, symbol, health, weaponType.getWeaponStrength(),
+                        Monster.MONSTER_ARMOR_STRENGTH, location);
+            } else if (type == WALL) {
+                world.restoreEntity(EntityStore.NONE, id, symbol, health, 0, 0, location);
+            } else {
+                throw new IOException("Checkpoint entity " + index + " has an unknown type " + type);
+            }
+        }
+        Entity.setIDCounter(nextId);
+
+        int cells = input.readInt();
+        for (int cell = 0; cell < cells; cell++) {
+            int row = input.readInt();
+            int column = input.readInt();
+            int index = input.readInt();
+            if (row < 0 || row >= rows || column < 0 || column >= columns || index < WALL_INDEX || index >= count) {
+                throw new IOException("Checkpoint map entry " + cell + " (" + row + "," + column + "," + index + ") is invalid");
+            }
+            world.placeEntity(row, column, index == WALL_INDEX ? World.WALL_INDEX : index);
+        }
+
+        if (version >= 2) {
+            int pursuitTicks = input.readInt();
+            int pursuitTick = input.readInt();
+            if (pursuitTicks < 0 || (pursuitTicks > 0 && world.isSparse())) {
+                throw new IOException("Checkpoint has an invalid pursuit interval " + pursuitTicks);
+            }
+            FlowField heroFlow = null;
+            FlowField monsterFlow = null;
+            if (input.readBoolean()) {
+                heroFlow = readFlowField(input, rows, columns);
+                monsterFlow = readFlowField(input, rows, columns);
+            }
+            world.restorePursuit(pursuitTicks, pursuitTick, heroFlow, monsterFlow);
+        }
+        if (version >= 3) {
+            try {
+                world.setVision(Hero.class, input.readByte(), input.readByte());
+                world.setVision(Monster.class, input.readByte(), input.readByte());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Checkpoint has an invalid vision (" + e.getMessage() + ")");
+            }
+        }
+
+        world.restoreProgress(tick, active);
+        world.setTickMode(tickMode);
+        if (random.length > 0) {
+            world.setRandom(deserializeRandom(random));
+        }
+        if (randomMode == RandomMode.STREAMS) {
+            world.useRandomStreams(seed);
+        }
+        return world;
+    }
+
+    /**
+     * Read a saved flow field
+     *
+     * @param input   Where to read it from
+     * @param rows    The number of rows of the map
+     * @param columns The number of columns of the map
+     * @return The flow field
+     * @throws IOException If it cannot be read or holds an invalid direction
+     */
+    private static FlowField readFlowField(DataInputStream input, int rows, int columns) throws IOException {
+        byte[] flow = new byte[Math.multiplyExact(rows, columns)];
+        input.readFully(flow);
+        for (byte direction : flow) {
+            if (direction < -1 || direction >= Direction.values().length) {
+                throw new IOException("Checkpoint has an invalid flow direction " + direction);
+            }
+        }
+        return new FlowField(rows, columns, flow);
+    }
+
+    /**
+     * Checkpoint type of an entity
+     *
+     * @param faction The faction of the entity in its store
+     * @return HERO, MONSTER or WALL
+     */
+    private static byte typeOf(byte faction) {
+        if (faction == EntityStore.HERO) {
+            return HERO;
+        } else if (faction == EntityStore.MONSTER) {
+            return MONSTER;
+        }
+        return WALL;
+    }
+
+    /**
+     * Check that a saved enum ordinal is in range
+     *
+     * @param ordinal The saved ordinal
+     * @param length  The number of enum values
+     * @param name    What the ordinal is for (for the error message)
+     * @return The ordinal
+     * @throws IOException If the ordinal is out of range
+     */
+    private static int checkOrdinal(int ordinal, int length, String name) throws IOException {
+        if (ordinal < 0 || ordinal >= length) {
+            throw new IOException("Checkpoint has an invalid " + name + " " + ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Save the exact state of a random number generator (java.util.Random is Serializable, its seed is not public)
+     *
+     * @param random The generator (may be null)
+     * @return The serialized generator, empty if there is none
+     * @throws IOException If it cannot be serialized
+     */
+    private static byte[] serializeRandom(Random random) throws IOException {
+        if (random == null) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(random);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restore a random number generator saved by serializeRandom
+     *
+     * @param bytes The serialized generator
+     * @return The generator, continuing from where the saved one was
+     * @throws IOException If it cannot be read back
+     */
+    private static Random deserializeRandom(byte[] bytes) throws IOException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            input.setObjectInputFilter(RANDOM_FILTER);
+            return (Random) input.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Checkpoint random number generator cannot be restored (" + e.getMessage() + ")");
+        }
+    }
+}
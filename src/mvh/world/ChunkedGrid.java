@@ -0,0 +1,292 @@
+package mvh.world;
+
+/**
+ * A sparse Grid for huge, mostly empty maps. The map is split into CHUNK_SIZExCHUNK_SIZE chunks, and a chunk is only
+ * allocated while it holds an entity (a chunk that is not allocated is all floor), so memory grows with the number of
+ * entities rather than the area of the map. Chunks are found with an open addressing hash table keyed by the chunk's
+ * row and column (linear probing, entries are shifted back on removal so no tombstones are left behind).
+ * Reading from several threads at once is safe as long as nothing is written at the same time.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+final class ChunkedGrid implements Grid {
+
+    /**
+     * Number of bits of a row/column that index inside a chunk
+     */
+    private static final int CHUNK_BITS = 3;
+    /**
+     * The width and height of a chunk
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    /**
+     * Mask for the row/column inside a chunk
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /**
+     * Starting capacity of the chunk table (a power of two, it doubles when half full)
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * One allocated chunk of the map
+     */
+    private static final class Chunk {
+        /**
+         * The cell values of the locations of the chunk, row by row (floor is 0)
+         */
+        private final int[] cells = new int[CHUNK_SIZE * CHUNK_SIZE];
+        /**
+         * Number of locations that are not floor (the chunk is freed when this reaches 0)
+         */
+        private int occupied;
+    }
+
+    /**
+     * Number of rows in the map
+     */
+    private final int rows;
+    /**
+     * Number of columns in the map
+     */
+    private final int columns;
+    /**
+     * Key (packed chunk row and column) of each slot of the table
+     */
+    private long[] keys;
+    /**
+     * Chunk of each slot of the table (null if the slot is empty)
+     */
+    private Chunk[] chunks;
+    /**
+     * Number of allocated chunks
+     */
+    private int size;
+
+    /**
+     * A new grid of ROWSxCOLUMNS floor (no chunks allocated)
+     *
+     * @param rows    The number of rows
+     * @param columns The number of columns
+     */
+    ChunkedGrid(int rows, int columns) {
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("A grid needs at least one row and column");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.keys = new long[INITIAL_CAPACITY];
+        this.chunks = new Chunk[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Get the number of rows in this grid
+     *
+     * @return The number of rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of columns in this grid
+     *
+     * @return The number of columns
+     */
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get what is at a location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The cell value of the location (FLOOR if its chunk is not allocated)
+     */
+    @Override
+    public int get(int row, int column) {
+        checkBounds(row, column);
+        int slot = find(key(row, column));
+        return chunks[slot] == null ? FLOOR : chunks[slot].cells[cell(row, column)];
+    }
+
+    /**
+     * Put something at a location, allocating its chunk if needed and freeing the chunk if it becomes all floor
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @param value  The cell value to put there
+     */
+    @Override
+    public void set(int row, int column, int value) {
+        checkBounds(row, column);
+        long key = key(row, column);
+        int slot = find(key);
+        Chunk chunk = chunks[slot];
+        if (chunk == null) {
+            if (value == FLOOR) {
+                return;
+            }
+            chunk = new Chunk();
+            keys[slot] = key;
+            chunks[slot] = chunk;
+            if (++size * 2 > chunks.length) {
+                resize();
+            }
+        }
+        int cell = cell(row, column);
+        if (chunk.cells[cell] == FLOOR && value != FLOOR) {
+            chunk.occupied++;
+        } else if (chunk.cells[cell] != FLOOR && value == FLOOR) {
+            chunk.occupied--;
+        }
+        chunk.cells[cell] = value;
+        if (chunk.occupied == 0) {
+            remove(find(key));
+        }
+    }
+
+    /**
+     * Visit every location that is not floor (chunk by chunk, in no particular order)
+     *
+     * @param visitor What to call for each location
+     */
+    @Override
+    public void forEachOccupied(CellVisitor visitor) {
+        for (int slot = 0; slot < chunks.length; slot++) {
+            Chunk chunk = chunks[slot];
+            if (chunk != null) {
+                int firstRow = (int) (keys[slot] >> 32) << CHUNK_BITS;
+                int firstColumn = (int) keys[slot] << CHUNK_BITS;
+                for (int cell = 0; cell < chunk.cells.length; cell++) {
+                    if (chunk.cells[cell] != FLOOR) {
+                        visitor.visit(firstRow + (cell >> CHUNK_BITS), firstColumn + (cell & CHUNK_MASK), chunk.cells[cell]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create an empty chunked grid of the same size
+     *
+     * @return A grid of floor the same size as this one
+     */
+    @Override
+    public Grid emptyCopy() {
+        return new ChunkedGrid(rows, columns);
+    }
+
+    /**
+     * Number of chunks currently allocated
+     *
+     * @return The number of chunks holding at least one entity
+     */
+    int getChunkCount() {
+        return size;
+    }
+
+    /**
+     * Make sure a location is inside the map (a dense grid would throw for these too)
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     */
+    private void checkBounds(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            throw new ArrayIndexOutOfBoundsException("Location " + row + "," + column + " is outside the world");
+        }
+    }
+
+    /**
+     * The key of the chunk holding a location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The chunk row in the high 32 bits and chunk column in the low 32 bits
+     */
+    private static long key(int row, int column) {
+        return ((long) (row >> CHUNK_BITS) << 32) | ((column >> CHUNK_BITS) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The index of a location inside its chunk
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The index into the chunk's cells
+     */
+    private static int cell(int row, int column) {
+        return ((row & CHUNK_MASK) << CHUNK_BITS) | (column & CHUNK_MASK);
+    }
+
+    /**
+     * The preferred slot of a key (a mixed hash so neighbouring chunks spread over the table)
+     *
+     * @param key  The chunk key
+     * @param mask The table length - 1
+     * @return The first slot to look in
+     */
+    private static int home(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Find the slot holding a key, or the empty slot where it would go
+     *
+     * @param key The chunk key
+     * @return The slot of the key (chunks[slot] is null if the chunk is not allocated)
+     */
+    private int find(long key) {
+        int mask = chunks.length - 1;
+        int slot = home(key, mask);
+        while (chunks[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Free the chunk in a slot, moving later entries of the same probe run back so every key stays findable
+     *
+     * @param slot The slot to empty
+     */
+    private void remove(int slot) {
+        int mask = chunks.length - 1;
+        chunks[slot] = null;
+        size--;
+        int next = (slot + 1) & mask;
+        while (chunks[next] != null) {
+            int home = home(keys[next], mask);
+            // move the entry back if the emptied slot lies on its probe run (between its home and where it is now)
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                chunks[slot] = chunks[next];
+                chunks[next] = null;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    /**
+     * Double the table and re-insert every chunk
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        Chunk[] oldChunks = chunks;
+        keys = new long[oldKeys.length * 2];
+        chunks = new Chunk[oldChunks.length * 2];
+        for (int slot = 0; slot < oldChunks.length; slot++) {
+            if (oldChunks[slot] != null) {
+                int newSlot = find(oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                chunks[newSlot] = oldChunks[slot];
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package mvh.world;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import mvh.enums.Direction;
+
+/**
+ * Java Flight Recorder event of one entity deciding where to attack or move (Entity.attackWhere and, if it does not
+ * attack, Entity.chooseMove). There is one per ALIVE entity per tick, so it is off unless a recording enables
+ * mvh.EntityDecision.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@Name("mvh.EntityDecision")
+@Label("Entity Decision")
+@Category("Monsters vs Heroes")
+@Description("An entity deciding where to attack or move")
+@StackTrace(false)
+@Enabled(false)
+public final class DecisionEvent extends jdk.jfr.Event {
+
+    /**
+     * The ID of the entity
+     */
+    @Label("Entity ID")
+    int entityId;
+
+    /**
+     * Did it decide to attack (otherwise to move)
+     */
+    @Label("Attack")
+    boolean attack;
+
+    /**
+     * The direction it decided on
+     */
+    @Label("Direction")
+    String direction;
+
+    /**
+     * Record the decision if the recording wants it
+     *
+     * @param entity      The entity that decided
+     * @param attackWhere Where it attacks (null if it moves)
+     * @param moveWhere   Where it moves (if it does not attack)
+     */
+    void decided(Entity entity, Direction attackWhere, Direction moveWhere) {
+        if (shouldCommit()) {
+            entityId = entity.getId();
+            attack = attackWhere != null;
+            direction = String.valueOf(attack ? attackWhere : moveWhere);
+            commit();
+        }
+    }
+}
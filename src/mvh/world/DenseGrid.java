@@ -0,0 +1,94 @@
+package mvh.world;
+
+/**
+ * A Grid that keeps every location of the map in a 2D array (fast, but memory grows with the area of the map)
+ * @author Ryan Loi
+ * @version 1.0
+ */
+final class DenseGrid implements Grid {
+
+    /**
+     * The cell value of every location (see Grid), floor is 0
+     */
+    private final int[][] cells;
+
+    /**
+     * A new grid of ROWSxCOLUMNS floor
+     *
+     * @param rows    The number of rows
+     * @param columns The number of columns
+     */
+    DenseGrid(int rows, int columns) {
+        this.cells = new int[rows][columns];
+    }
+
+    /**
+     * Get the number of rows in this grid
+     *
+     * @return The number of rows
+     */
+    @Override
+    public int getRows() {
+        return cells.length;
+    }
+
+    /**
+     * Get the number of columns in this grid
+     *
+     * @return The number of columns
+     */
+    @Override
+    public int getColumns() {
+        return cells[0].length;
+    }
+
+    /**
+     * Get what is at a location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The cell value of the location
+     */
+    @Override
+    public int get(int row, int column) {
+        return cells[row][column];
+    }
+
+    /**
+     * Put something at a location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @param cell   The cell value to put there
+     */
+    @Override
+    public void set(int row, int column, int cell) {
+        cells[row][column] = cell;
+    }
+
+    /**
+     * Visit every location that is not floor, row by row
+     *
+     * @param visitor What to call for each location
+     */
+    @Override
+    public void forEachOccupied(CellVisitor visitor) {
+        for (int row = 0; row < cells.length; row++) {
+            for (int column = 0; column < cells[row].length; column++) {
+                if (cells[row][column] != FLOOR) {
+                    visitor.visit(row, column, cells[row][column]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create an empty dense grid of the same size
+     *
+     * @return A grid of floor the same size as this one
+     */
+    @Override
+    public Grid emptyCopy() {
+        return new DenseGrid(getRows(), getColumns());
+    }
+}
@@ -4,6 +4,8 @@ import mvh.enums.Direction;
 
 /**
  * A World is made up of entities (this class itself does not exist, but extensions of it (child classes) will).
+ * An Entity holds no values of its own, it is a view of one index of an EntityStore (its own until it is added to a
+ * World, then the World's).
  * @author Jonathan Hudson
  * @version 1.0
  */
@@ -19,21 +21,14 @@ public abstract class Entity {
     }
 
     /**
-     * Entities have a state
+     * The store holding this entity's symbol, health, state, ID and strengths (a detached store of its own until it
+     * is added to a World, then the World's store, see EntityStore)
      */
-    private State state;
+    private EntityStore store;
     /**
-     * Entities all have a symbol for printing a map
+     * Index of this entity in its store
      */
-    private final char symbol;
-    /**
-     * Entities have health and at <=0 they will go from ALIVE to DEAD
-     */
-    private int health;
-    /**
-     * ID to help tell each entity apart so shared symbols don't become confusing
-     */
-    private final int id;
+    private int index;
 
     /**
      * Allows us to generate unique IDs for each entity crated.
@@ -51,30 +46,62 @@ public abstract class Entity {
      * @param health The health of the entity
      */
     protected Entity(char symbol, int health) {
-        this.symbol = symbol;
-        if (health < 0) {
-            throw new IllegalArgumentException("Health for entity must be > 0. Value given was " + health + "!");
-        }
-        this.health = health;
-        this.state = State.ALIVE;
-        //If health was too low (<=0) then update this entity to dead
-        checkDead();
+        this(symbol, health, 0, 0);
+    }
+
+    /**
+     * Create entity with given symbol, health and strengths (the strengths are kept for Heroes and Monsters)
+     *
+     * @param symbol         The symbol of entity
+     * @param health         The health of the entity
+     * @param weaponStrength The weapon strength of the entity
+     * @param armorStrength  The armor strength of the entity
+     */
+    Entity(char symbol, int health, int weaponStrength, int armorStrength) {
+        EntityStore.checkHealth(health);
         //If we are a wall we have a set ID, otherwise we generate new ID
-        if (this instanceof Wall) {
-            this.id = WALL_ID;
-        } else {
-            this.id = counter;
-            counter++;
-        }
+        int id = this instanceof Wall ? WALL_ID : nextId();
+        //If health was too low (<=0) then the entity starts dead
+        this.store = EntityStore.detached();
+        this.index = store.add(EntityStore.factionOf(this), id, symbol, health, weaponStrength, armorStrength);
+    }
+
+    /**
+     * Create a view of an entity already in a store (the World's store creates these, see EntityStore.getEntity)
+     *
+     * @param store The store holding the entity
+     * @param index The index of the entity in the store
+     */
+    Entity(EntityStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    /**
+     * Create an exact copy of another entity (same symbol, health, state and ID), used when copying a World
+     *
+     * @param other The entity to copy
+     */
+    protected Entity(Entity other) {
+        this.store = EntityStore.detached();
+        this.index = store.add(EntityStore.factionOf(this), other.getId(), other.getSymbol(), other.getHealth(),
+                other.store.getWeaponStrength(other.index), other.store.getArmorStrength(other.index));
     }
 
+    /**
+     * Create an exact copy of this entity (same ID) that can be placed in a copy of its World
+     *
+     * @return A copy of this entity
+     */
+    public abstract Entity copy();
+
     /**
      * Get symbol
      *
      * @return The symbol for map
      */
     public char getSymbol() {
-        return symbol;
+        return store.getSymbol(index);
     }
 
     /**
@@ -83,7 +110,7 @@ public abstract class Entity {
      * @return The health of entity, should be >= 0 (0 is DEAD)
      */
     public int getHealth() {
-        return health;
+        return store.getHealth(index);
     }
 
     /**
@@ -92,7 +119,7 @@ public abstract class Entity {
      * @return True if state is alive (health should be > 0)
      */
     public boolean isAlive() {
-        return state == State.ALIVE;
+        return store.isAlive(index);
     }
 
     /**
@@ -106,25 +133,50 @@ public abstract class Entity {
 
     /**
      * Damage the health of entity for the given positive (or 0) amount
-     * We will update state of ALIVE/DEAD if health falls to <= 0
+     * We will update state of ALIVE/DEAD if health falls to <= 0, and the World the entity is in is kept up to date
      *
      * @param damage The damage to subtract from the entity
      */
     public void damage(int damage) {
-        if (damage < 0) {
-            throw new IllegalArgumentException("Damage must be reported as positive (or zero) value (which is subtracted)!");
-        }
-        this.health = Math.max(0, this.health - damage);
-        checkDead();
+        store.damageFromEntity(index, damage);
     }
 
     /**
-     * Internal function to check if entity has moved from alive to dead
+     * Get the ID of this entity
+     *
+     * @return The unique ID of this entity (0 for walls)
      */
-    private void checkDead() {
-        if (this.health <= 0) {
-            this.state = State.DEAD;
-        }
+    public int getId() {
+        return store.getId(index);
+    }
+
+    /**
+     * Get the store holding this entity's values
+     *
+     * @return The World's store once added to a World, otherwise the entity's own
+     */
+    EntityStore getStore() {
+        return store;
+    }
+
+    /**
+     * Get the index of this entity in its store
+     *
+     * @return The index given by World.addEntity once added to a World
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * Make this entity a view of another index (done by World.addEntity, and when moving a re-usable view)
+     *
+     * @param store The store holding the entity's values
+     * @param index The index of the entity in the store
+     */
+    void bind(EntityStore store, int index) {
+        this.store = store;
+        this.index = index;
     }
 
     /**
@@ -147,7 +199,7 @@ public abstract class Entity {
      * @param local The local view of the entity
      * @return The Direction the entity wants to move (presumption that entity already decided to not attack)
      */
-    public abstract Direction chooseMove(World local);
+    public abstract Direction chooseMove(LocalView local);
 
     /**
      * Where does this entity want to attack based on local view of world (immediate neighbors 3x3)
@@ -155,7 +207,7 @@ public abstract class Entity {
      * @param local The local view of the entity (immediate neighbors 3x3)
      * @return The Direction the entity wants to attack (null if not attacking)
      */
-    public abstract Direction attackWhere(World local);
+    public abstract Direction attackWhere(LocalView local);
 
     /**
      * Can this entity be moved on top of
@@ -177,7 +229,7 @@ public abstract class Entity {
      * @return "CLASS(ID)" form of entity
      */
     public String shortString() {
-        return getClass().getSimpleName().substring(0, 4) + "(" + id + ")";
+        return getClass().getSimpleName().substring(0, 4) + "(" + getId() + ")";
     }
 
     /**
@@ -187,7 +239,17 @@ public abstract class Entity {
      */
     @Override
     public String toString() {
-        return shortString() + "\t" + symbol + "\t" + health + "\t" + state;
+        return shortString() + "\t" + getSymbol() + "\t" + getHealth() + "\t" + stateName(isAlive());
+    }
+
+    /**
+     * The name of the state printed by toString
+     *
+     * @param alive Is the entity ALIVE
+     * @return "ALIVE" or "DEAD"
+     */
+    static String stateName(boolean alive) {
+        return (alive ? State.ALIVE : State.DEAD).name();
     }
 
     /**
@@ -196,4 +258,31 @@ public abstract class Entity {
     public static void resetIDCounter() {
         counter = 1;
     }
+
+    /**
+     * Give out the next ID (for a new entity, see World.addHero)
+     *
+     * @return The ID
+     */
+    static int nextId() {
+        return counter++;
+    }
+
+    /**
+     * Get the ID the next entity created will be given (saved in checkpoints)
+     *
+     * @return The next ID
+     */
+    static int getIDCounter() {
+        return counter;
+    }
+
+    /**
+     * Set the ID the next entity created will be given (used when restoring a checkpoint)
+     *
+     * @param next The next ID
+     */
+    static void setIDCounter(int next) {
+        counter = next;
+    }
 }
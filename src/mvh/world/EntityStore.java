@@ -0,0 +1,608 @@
+package mvh.world;
+
+import mvh.enums.WeaponType;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage of entities: the health, alive flag, faction, weapon strength, armor strength, symbol and
+ * ID of every entity are kept in parallel primitive arrays, indexed by the dense index the World gives an entity when
+ * it is added, and nowhere else. A tick streams through these arrays instead of following references to Entity
+ * objects, and a world of millions of entities holds no object per entity at all.
+ * <p>
+ * A Hero or Monster object is only a view of one index of a store (see Entity): the objects a caller added are kept
+ * as the views of their index, other views are only created when something asks for one (getEntity) and are then
+ * kept so the same object is always returned. The tick itself never creates views, each faction decides through one
+ * re-usable view moved from entity to entity (see actor). Anything that is not a Hero or a Monster (Walls, or other
+ * kinds of Entity) always keeps its object, as its behaviour is its own.
+ * <p>
+ * Every Entity made on its own (new Hero(...)) keeps its values in a detached store of its own until it is added to
+ * a World. Stores are not thread safe, but any number of threads can read one while nothing writes to it.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+final class EntityStore {
+
+    /**
+     * Faction of anything that is not a Hero or a Monster (Walls)
+     */
+    static final byte NONE = 0;
+    /**
+     * Faction of Heroes
+     */
+    static final byte HERO = 1;
+    /**
+     * Faction of Monsters
+     */
+    static final byte MONSTER = 2;
+
+    /**
+     * Starting capacity of the arrays (they double when full)
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Start of the short string of each faction (the first four letters of the class name, as Entity.shortString)
+     */
+    private static final String[] SHORT_NAMES = {null, Hero.class.getSimpleName().substring(0, 4),
+            Monster.class.getSimpleName().substring(0, 4)};
+
+    /**
+     * Is this the store of a single entity that has not been added to a World
+     */
+    private final boolean detached;
+    /**
+     * The World these entities are in, told about damage done through an Entity (null for a detached store)
+     */
+    private World world;
+    /**
+     * Health of each entity
+     */
+    private int[] health;
+    /**
+     * ALIVE (true) or DEAD (false) state of each entity
+     */
+    private boolean[] alive;
+    /**
+     * Faction of each entity (NONE, HERO, MONSTER)
+     */
+    private byte[] faction;
+    /**
+     * Weapon strength of each entity
+     */
+    private int[] weaponStrength;
+    /**
+     * Armor strength of each entity
+     */
+    private int[] armorStrength;
+    /**
+     * Map symbol of each entity
+     */
+    private char[] symbol;
+    /**
+     * ID of each entity
+     */
+    private int[] id;
+    /**
+     * The Entity object viewing each index, null where none has been asked for yet (the array itself is null until
+     * the first view)
+     */
+    private Entity[] views;
+    /**
+     * Number of entities stored
+     */
+    private int size;
+    /**
+     * Indexes of the entities taking turns (in entity order): every ALIVE entity, plus those that died since the last
+     * compactActive(). Ticks walk this list instead of every entity ever added, most of which are dead in big battles
+     */
+    private int[] active;
+    /**
+     * Number of indexes in active
+     */
+    private int activeSize;
+    /**
+     * Number of entities in active that died since the last compactActive()
+     */
+    private int activeDead;
+    /**
+     * Number of ALIVE entities of each faction (indexed by NONE, HERO, MONSTER), kept up to date by add and damage
+     */
+    private final int[] aliveCount = new int[3];
+    /**
+     * Number of DEAD entities of each faction (indexed by NONE, HERO, MONSTER)
+     */
+    private final int[] deadCount = new int[3];
+    /**
+     * Total health of the ALIVE entities of each faction (indexed by NONE, HERO, MONSTER)
+     */
+    private final long[] healthTotal = new long[3];
+
+    /**
+     * An empty store
+     */
+    EntityStore() {
+        this(INITIAL_CAPACITY, false);
+    }
+
+    /**
+     * An empty store with room for some entities
+     *
+     * @param capacity The starting capacity of the arrays
+     * @param detached Is it the store of a single entity that has not been added to a World
+     */
+    private EntityStore(int capacity, boolean detached) {
+        this.detached = detached;
+        this.health = new int[capacity];
+        this.alive = new boolean[capacity];
+        this.faction = new byte[capacity];
+        this.weaponStrength = new int[capacity];
+        this.armorStrength = new int[capacity];
+        this.symbol = new char[capacity];
+        this.id = new int[capacity];
+        this.active = new int[capacity];
+    }
+
+    /**
+     * A store for one entity made on its own, until it is added to a World
+     *
+     * @return An empty detached store
+     */
+    static EntityStore detached() {
+        return new EntityStore(1, true);
+    }
+
+    /**
+     * Is this the store of a single entity that has not been added to a World
+     *
+     * @return True for a store made by detached()
+     */
+    boolean isDetached() {
+        return detached;
+    }
+
+    /**
+     * Set the World told about damage done through an Entity of this store (see damageFromEntity)
+     *
+     * @param world The World these entities are in
+     */
+    void setWorld(World world) {
+        this.world = world;
+    }
+
+    /**
+     * Check the health an entity is created with
+     *
+     * @param health The health
+     * @throws IllegalArgumentException If the health is negative
+     */
+    static void checkHealth(int health) {
+        if (health < 0) {
+            throw new IllegalArgumentException("Health for entity must be > 0. Value given was " + health + "!");
+        }
+    }
+
+    /**
+     * Add an entity to the end of the store from its values (it is ALIVE if its health is above 0)
+     *
+     * @param faction        HERO, MONSTER or NONE
+     * @param id             The ID of the entity
+     * @param symbol         The map symbol of the entity
+     * @param health         The health of the entity (0 or more)
+     * @param weaponStrength The weapon strength of the entity
+     * @param armorStrength  The armor strength of the entity
+     * @return The index the entity was stored at
+     */
+    int add(byte faction, int id, char symbol, int health, int weaponStrength, int armorStrength) {
+        if (size == this.health.length) {
+            grow();
+        }
+        int index = size;
+        this.health[index] = health;
+        this.alive[index] = health > 0;
+        this.faction[index] = faction;
+        this.weaponStrength[index] = weaponStrength;
+        this.armorStrength[index] = armorStrength;
+        this.symbol[index] = symbol;
+        this.id[index] = id;
+        if (alive[index]) {
+            aliveCount[faction]++;
+            healthTotal[faction] += health;
+            if (activeSize == active.length) {
+                active = Arrays.copyOf(active, activeSize * 2);
+            }
+            active[activeSize++] = index;
+        } else {
+            deadCount[faction]++;
+        }
+        size++;
+        return index;
+    }
+
+    /**
+     * Add an entity to the end of the store, copying its current values into the arrays. The entity is kept as the
+     * view of its index (the caller binds it to this store if it should read its values from here from now on)
+     *
+     * @param entity The entity to add
+     * @return The index the entity was stored at
+     */
+    int add(Entity entity) {
+        int index = add(factionOf(entity), entity.getId(), entity.getSymbol(), entity.getHealth(),
+                entity.weaponStrength(), entity.armorStrength());
+        setView(index, entity);
+        return index;
+    }
+
+    /**
+     * Work out the faction of an entity
+     *
+     * @param entity The entity to check
+     * @return HERO, MONSTER or NONE
+     */
+    static byte factionOf(Entity entity) {
+        if (entity instanceof Hero) {
+            return HERO;
+        } else if (entity instanceof Monster) {
+            return MONSTER;
+        }
+        return NONE;
+    }
+
+    /**
+     * Double the capacity of every array
+     */
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, health.length * 2);
+        health = Arrays.copyOf(health, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        faction = Arrays.copyOf(faction, capacity);
+        weaponStrength = Arrays.copyOf(weaponStrength, capacity);
+        armorStrength = Arrays.copyOf(armorStrength, capacity);
+        symbol = Arrays.copyOf(symbol, capacity);
+        id = Arrays.copyOf(id, capacity);
+        if (views != null) {
+            views = Arrays.copyOf(views, capacity);
+        }
+    }
+
+    /**
+     * Damage the entity at an index, it goes from ALIVE to DEAD if its health falls to 0
+     *
+     * @param index  The index of the entity
+     * @param damage The positive (or zero) damage to subtract
+     * @return True if this damage killed the entity
+     * @throws IllegalArgumentException If the damage is negative
+     */
+    boolean damage(int index, int damage) {
+        if (damage < 0) {
+            throw new IllegalArgumentException("Damage must be reported as positive (or zero) value (which is subtracted)!");
+        }
+        int before = health[index];
+        health[index] = Math.max(0, before - damage);
+        if (!alive[index]) {
+            return false;
+        }
+        healthTotal[faction[index]] -= before - health[index];
+        if (health[index] > 0) {
+            return false;
+        }
+        alive[index] = false;
+        activeDead++;
+        aliveCount[faction[index]]--;
+        deadCount[faction[index]]++;
+        return true;
+    }
+
+    /**
+     * Damage the entity at an index from outside a tick (Entity.damage), then tell the World so it can record the
+     * damage and, if the entity died, take it off its location and check whether the simulation has ended
+     *
+     * @param index  The index of the entity
+     * @param damage The positive (or zero) damage to subtract
+     * @throws IllegalArgumentException If the damage is negative
+     */
+    void damageFromEntity(int index, int damage) {
+        boolean died = damage(index, damage);
+        if (world != null) {
+            world.damaged(index, damage, died);
+        }
+    }
+
+    /**
+     * Drop the entities that died from the active list, keeping the rest in entity order (call between ticks, this
+     * costs one pass over the active list and only happens if something died)
+     */
+    void compactActive() {
+        if (activeDead == 0) {
+            return;
+        }
+        int kept = 0;
+        for (int position = 0; position < activeSize; position++) {
+            int index = active[position];
+            if (alive[index]) {
+                active[kept++] = index;
+            }
+        }
+        activeSize = kept;
+        activeDead = 0;
+    }
+
+    /**
+     * Create an independent copy of this store (same entities, order, values and active list). Views of heroes and
+     * monsters are not copied, the copy creates its own when asked, other entities are copied with Entity.copy()
+     *
+     * @return A copy of this store
+     */
+    EntityStore copy() {
+        EntityStore copy = new EntityStore(Math.max(size, 1), false);
+        System.arraycopy(health, 0, copy.health, 0, size);
+        System.arraycopy(alive, 0, copy.alive, 0, size);
+        System.arraycopy(faction, 0, copy.faction, 0, size);
+        System.arraycopy(weaponStrength, 0, copy.weaponStrength, 0, size);
+        System.arraycopy(armorStrength, 0, copy.armorStrength, 0, size);
+        System.arraycopy(symbol, 0, copy.symbol, 0, size);
+        System.arraycopy(id, 0, copy.id, 0, size);
+        copy.size = size;
+        copy.active = Arrays.copyOf(active, Math.max(activeSize, 1));
+        copy.activeSize = activeSize;
+        copy.activeDead = activeDead;
+        System.arraycopy(aliveCount, 0, copy.aliveCount, 0, aliveCount.length);
+        System.arraycopy(deadCount, 0, copy.deadCount, 0, deadCount.length);
+        System.arraycopy(healthTotal, 0, copy.healthTotal, 0, healthTotal.length);
+        for (int index = 0; index < size; index++) {
+            if (faction[index] == NONE) {
+                Entity entity = views[index].copy();
+                copy.setView(index, entity);
+                if (entity.getStore().isDetached() && !(entity instanceof Wall)) {
+                    entity.bind(copy, index);
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Number of entities in the active list (every ALIVE entity, plus any that died since the last compactActive())
+     *
+     * @return The length of the active list
+     */
+    int activeSize() {
+        return activeSize;
+    }
+
+    /**
+     * Get the index of an entity in the active list
+     *
+     * @param position The place in the active list (0 to activeSize() - 1)
+     * @return The index of the entity
+     */
+    int activeIndex(int position) {
+        return active[position];
+    }
+
+    /**
+     * Number of entities stored
+     *
+     * @return The number of entities stored
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Number of ALIVE entities of a faction (kept as entities are added and die, so this does not scan anything)
+     *
+     * @param faction HERO, MONSTER or NONE
+     * @return The number of alive entities of the faction
+     */
+    int getAliveCount(byte faction) {
+        return aliveCount[faction];
+    }
+
+    /**
+     * Number of DEAD entities of a faction (added dead, or killed since)
+     *
+     * @param faction HERO, MONSTER or NONE
+     * @return The number of dead entities of the faction
+     */
+    int getDeadCount(byte faction) {
+        return deadCount[faction];
+    }
+
+    /**
+     * Total health of the ALIVE entities of a faction
+     *
+     * @param faction HERO, MONSTER or NONE
+     * @return The summed health of alive entities of the faction
+     */
+    long getHealthTotal(byte faction) {
+        return healthTotal[faction];
+    }
+
+    /**
+     * Get the Entity object for an index, creating the view the first time a hero or monster is asked for (it is then
+     * kept, so the same object is returned every time)
+     *
+     * @param index The index of the entity
+     * @return The Entity object viewing that index
+     */
+    Entity getEntity(int index) {
+        Entity entity = getView(index);
+        if (entity == null) {
+            entity = faction[index] == HERO ? new Hero(this, index) : new Monster(this, index);
+            setView(index, entity);
+        }
+        return entity;
+    }
+
+    /**
+     * Get the Entity object for an index if there is one, without creating it
+     *
+     * @param index The index of the entity
+     * @return The view of that index, null if none has been created
+     */
+    Entity getView(int index) {
+        return views == null ? null : views[index];
+    }
+
+    /**
+     * Keep an Entity object as the view of an index
+     *
+     * @param index  The index of the entity
+     * @param entity The object returned by getEntity from now on
+     */
+    private void setView(int index, Entity entity) {
+        if (views == null) {
+            views = new Entity[health.length];
+        }
+        views[index] = entity;
+    }
+
+    /**
+     * Views to decide with, one for each faction, that are moved from entity to entity (see actor)
+     *
+     * @return The views, indexed by HERO/MONSTER (none for NONE)
+     */
+    Entity[] actors() {
+        return new Entity[]{null, new Hero(this, 0), new Monster(this, 0)};
+    }
+
+    /**
+     * The Entity object an entity decides with: for a hero or monster the view of its faction moved to its index (so
+     * no object is created or kept), for anything else its own object
+     *
+     * @param index  The index of the entity
+     * @param actors The views of each faction (see actors), only used by one thread at a time
+     * @return The object to call attackWhere/chooseMove on (valid until the actor is moved again)
+     */
+    Entity actor(int index, Entity[] actors) {
+        if (faction[index] == NONE) {
+            return views[index];
+        }
+        Entity actor = actors[faction[index]];
+        actor.bind(this, index);
+        return actor;
+    }
+
+    /**
+     * Can the entity at an index be moved on top of (heroes and monsters only once DEAD)
+     *
+     * @param index The index of the entity
+     * @return True if it can be moved on top of
+     */
+    boolean canMoveOnTopOf(int index) {
+        return faction[index] == NONE ? views[index].canMoveOnTopOf() : !alive[index];
+    }
+
+    /**
+     * Can the entity at an index be attacked (heroes and monsters only while ALIVE)
+     *
+     * @param index The index of the entity
+     * @return True if it can be attacked
+     */
+    boolean canBeAttacked(int index) {
+        return faction[index] == NONE ? views[index].canBeAttacked() : alive[index];
+    }
+
+    /**
+     * The "CLASS(ID)" form of the entity at an index (same as Entity.shortString)
+     *
+     * @param index The index of the entity
+     * @return The short string of the entity
+     */
+    String shortString(int index) {
+        if (faction[index] == NONE) {
+            return views[index].shortString();
+        }
+        return SHORT_NAMES[faction[index]] + "(" + id[index] + ")";
+    }
+
+    /**
+     * Append the "CLASS(ID) SYMBOL HEALTH STATE INFO" form of the entity at an index (the same text as its toString,
+     * without creating a view of it)
+     *
+     * @param builder Where to add the text
+     * @param index   The index of the entity
+     * @return The builder
+     */
+    StringBuilder appendTo(StringBuilder builder, int index) {
+        if (faction[index] == NONE) {
+            return builder.append(views[index]);
+        }
+        builder.append(SHORT_NAMES[faction[index]]).append('(').append(id[index]).append(")\t").append(symbol[index])
+                .append('\t').append(health[index]).append('\t').append(Entity.stateName(alive[index])).append('\t');
+        if (faction[index] == HERO) {
+            return builder.append(weaponStrength[index]).append('\t').append(armorStrength[index]);
+        }
+        return builder.append(WeaponType.withStrength(weaponStrength[index]));
+    }
+
+    /**
+     * Is the entity at an index ALIVE?
+     *
+     * @param index The index of the entity
+     * @return True if the entity is alive
+     */
+    boolean isAlive(int index) {
+        return alive[index];
+    }
+
+    /**
+     * Get the faction of the entity at an index
+     *
+     * @param index The index of the entity
+     * @return HERO, MONSTER or NONE
+     */
+    byte getFaction(int index) {
+        return faction[index];
+    }
+
+    /**
+     * Get the health of the entity at an index
+     *
+     * @param index The index of the entity
+     * @return The health of the entity
+     */
+    int getHealth(int index) {
+        return health[index];
+    }
+
+    /**
+     * Get the weapon strength of the entity at an index
+     *
+     * @param index The index of the entity
+     * @return The weapon strength of the entity
+     */
+    int getWeaponStrength(int index) {
+        return weaponStrength[index];
+    }
+
+    /**
+     * Get the armor strength of the entity at an index
+     *
+     * @param index The index of the entity
+     * @return The armor strength of the entity
+     */
+    int getArmorStrength(int index) {
+        return armorStrength[index];
+    }
+
+    /**
+     * Get the map symbol of the entity at an index
+     *
+     * @param index The index of the entity
+     * @return The symbol of the entity
+     */
+    char getSymbol(int index) {
+        return symbol[index];
+    }
+
+    /**
+     * Get the ID of the entity at an index
+     *
+     * @param index The index of the entity
+     * @return The ID of the entity (0 for walls)
+     */
+    int getId(int index) {
+        return id[index];
+    }
+}
@@ -0,0 +1,130 @@
+package mvh.world;
+
+import java.util.Arrays;
+import mvh.enums.Direction;
+
+/**
+ * A flow field over a whole map: for every location, the first step of a shortest path (moving one location in any of
+ * the 8 directions, around walls) towards the nearest of a set of targets. It is made with one breadth-first search
+ * started from every target at once, so it costs one pass over the map however many entities follow it, and each
+ * entity then finds its way with a single array lookup. A World keeps one per faction, with the other faction's ALIVE
+ * entities as the targets (see World.setPursuit).
+ * @author Ryan Loi
+ * @version 1.0
+ */
+final class FlowField {
+
+    /**
+     * Flow of a location no target can be reached from
+     */
+    private static final byte NONE = -1;
+    /**
+     * The 8 moving directions, in the order neighbours are searched (this decides ties between equally short paths)
+     */
+    private static final Direction[] STEPS = {Direction.NORTHWEST, Direction.NORTH, Direction.NORTHEAST, Direction.WEST,
+            Direction.EAST, Direction.SOUTHWEST, Direction.SOUTH, Direction.SOUTHEAST};
+    /**
+     * Every direction, indexed by ordinal (Direction.values() copies its array on each call)
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Number of rows of the map
+     */
+    private final int rows;
+    /**
+     * Number of columns of the map
+     */
+    private final int columns;
+    /**
+     * Per location (row * columns + column): the ordinal of the Direction to step in, STAY on a target, NONE if no
+     * target can be reached
+     */
+    private final byte[] flow;
+
+    /**
+     * An empty flow field (no target can be reached from anywhere) for a map of ROWSxCOLUMNS
+     *
+     * @param rows    The number of rows of the map
+     * @param columns The number of columns of the map
+     */
+    FlowField(int rows, int columns) {
+        this(rows, columns, new byte[Math.multiplyExact(rows, columns)]);
+        Arrays.fill(flow, NONE);
+    }
+
+    /**
+     * A flow field with saved directions (see getFlow)
+     *
+     * @param rows    The number of rows of the map
+     * @param columns The number of columns of the map
+     * @param flow    The saved flow of every location
+     */
+    FlowField(int rows, int columns, byte[] flow) {
+        this.rows = rows;
+        this.columns = columns;
+        this.flow = flow;
+    }
+
+    /**
+     * Recompute the field for new targets
+     *
+     * @param grid    The map (walls cannot be stepped through, every other location can)
+     * @param targets The locations (row * columns + column) of the targets, in the order they are searched from
+     * @param count   The number of targets
+     * @param queue   Scratch space for the search of at least rows * columns locations
+     */
+    void compute(Grid grid, int[] targets, int count, int[] queue) {
+        Arrays.fill(flow, NONE);
+        int tail = 0;
+        for (int i = 0; i < count; i++) {
+            if (flow[targets[i]] == NONE) {
+                flow[targets[i]] = (byte) Direction.STAY.ordinal();
+                queue[tail++] = targets[i];
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int cell = queue[head];
+            int row = cell / columns;
+            int column = cell - row * columns;
+            for (Direction step : STEPS) {
+                int nextRow = row + step.getRowChange();
+                int nextColumn = column + step.getColumnChange();
+                if (nextRow < 0 || nextRow >= rows || nextColumn < 0 || nextColumn >= columns) {
+                    continue;
+                }
+                int next = nextRow * columns + nextColumn;
+                if (flow[next] == NONE && grid.get(nextRow, nextColumn) != Grid.WALL) {
+                    //From the neighbour, the way to the target is back the way the search came
+                    flow[next] = (byte) Direction.getDirection(-step.getRowChange(), -step.getColumnChange()).ordinal();
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * The first step from a location towards the nearest target
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The direction to step in (STAY on a target), null if no target can be reached or the location is
+     * outside the map
+     */
+    Direction get(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return null;
+        }
+        byte direction = flow[row * columns + column];
+        return direction == NONE ? null : DIRECTIONS[direction];
+    }
+
+    /**
+     * The flow of every location (saved in checkpoints)
+     *
+     * @return The flow array (not a copy)
+     */
+    byte[] getFlow() {
+        return flow;
+    }
+}
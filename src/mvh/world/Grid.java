@@ -0,0 +1,80 @@
+package mvh.world;
+
+/**
+ * The map of a World: which entity (or floor) is at each row and column, as a cell value: FLOOR, WALL, or the index of
+ * the entity in the World's EntityStore plus 1 (so a map holds no Entity objects, see EntityStore)
+ * A DenseGrid keeps every location in a 2D array, a ChunkedGrid only keeps the chunks of the map that hold something
+ * @author Ryan Loi
+ * @version 1.0
+ */
+interface Grid {
+
+    /**
+     * Cell value of floor
+     */
+    int FLOOR = 0;
+    /**
+     * Cell value of a wall
+     */
+    int WALL = -1;
+
+    /**
+     * Something that is called for every location of a grid that is not floor
+     */
+    interface CellVisitor {
+        /**
+         * Visit one location
+         *
+         * @param row    The row of the location
+         * @param column The column of the location
+         * @param cell   The cell value of the location (never FLOOR)
+         */
+        void visit(int row, int column, int cell);
+    }
+
+    /**
+     * Get the number of rows in this grid
+     *
+     * @return The number of rows
+     */
+    int getRows();
+
+    /**
+     * Get the number of columns in this grid
+     *
+     * @return The number of columns
+     */
+    int getColumns();
+
+    /**
+     * Get what is at a location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The cell value of the location (FLOOR, WALL or entity index + 1)
+     */
+    int get(int row, int column);
+
+    /**
+     * Put something at a location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @param cell   The cell value to put there (FLOOR, WALL or entity index + 1)
+     */
+    void set(int row, int column, int cell);
+
+    /**
+     * Visit every location that is not floor
+     *
+     * @param visitor What to call for each location
+     */
+    void forEachOccupied(CellVisitor visitor);
+
+    /**
+     * Create an empty grid of the same size and kind
+     *
+     * @return A grid of floor the same size as this one
+     */
+    Grid emptyCopy();
+}
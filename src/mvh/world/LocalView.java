@@ -0,0 +1,144 @@
+package mvh.world;
+
+import java.util.Random;
+import mvh.enums.Direction;
+
+/**
+ * A read-only view of a section of the World, this is what an entity is given when deciding where to attack or move
+ * Both a full World and a LocalWindow (a re-usable window into a parent World) can act as a local view
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public interface LocalView {
+
+    /**
+     * Get entity at a location
+     *
+     * @param row    The row of the entity
+     * @param column The column of the entity
+     * @return The Entity at the given row, column (null if floor)
+     */
+    Entity getEntity(int row, int column);
+
+    /**
+     * See if we can move to location
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @return True if we can move to that location
+     */
+    boolean canMoveOnTopOf(int row, int column);
+
+    /**
+     * See if entity is hero at this location
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @return True if entity is a hero at that location
+     */
+    boolean isHero(int row, int column);
+
+    /**
+     * See if entity is monster at this location
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @return True if entity is a monster at that location
+     */
+    boolean isMonster(int row, int column);
+
+    /**
+     * The width and height of this view (odd, the entity looking at it is at the center)
+     *
+     * @return The size of the view
+     */
+    int getSize();
+
+    /**
+     * The random number generator an entity looking at this view should use for random choices
+     *
+     * @return The random number generator of the World being viewed
+     */
+    Random getRandom();
+
+    /**
+     * Get entity at a location
+     *
+     * @param row    The row of the entity
+     * @param column The column of the entity
+     * @param d      The direction adjust look up towards
+     * @return The Entity at the given row, column
+     */
+    default Entity getEntity(int row, int column, Direction d) {
+        return getEntity(row + d.getRowChange(), column + d.getColumnChange());
+    }
+
+    /**
+     * See if we can move to location
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @param d      The direction adjust look up towards
+     * @return True if we can move to that location
+     */
+    default boolean canMoveOnTopOf(int row, int column, Direction d) {
+        return canMoveOnTopOf(row + d.getRowChange(), column + d.getColumnChange());
+    }
+
+    /**
+     * Which locations of a row of this view hold an ALIVE hero (looks at every location, views backed by bitboards
+     * answer with a few word operations)
+     *
+     * @param row    The row to check
+     * @param length The number of locations from column 0 to check (at most 63)
+     * @return Bit i set if the location at column i holds an ALIVE hero
+     */
+    default long aliveHeroBits(int row, int length) {
+        long bits = 0;
+        for (int column = 0; column < length; column++) {
+            if (isHero(row, column) && getEntity(row, column).isAlive()) {
+                bits |= 1L << column;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Which locations of a row of this view hold an ALIVE monster (looks at every location, views backed by bitboards
+     * answer with a few word operations)
+     *
+     * @param row    The row to check
+     * @param length The number of locations from column 0 to check (at most 63)
+     * @return Bit i set if the location at column i holds an ALIVE monster
+     */
+    default long aliveMonsterBits(int row, int length) {
+        long bits = 0;
+        for (int column = 0; column < length; column++) {
+            if (isMonster(row, column) && getEntity(row, column).isAlive()) {
+                bits |= 1L << column;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * An array to hold the rows of this view while scanning it (see Vision.chase), its contents are left to the caller
+     *
+     * @param length The number of rows needed
+     * @return An array of at least that length (a new one each time, views that are re-used keep one)
+     */
+    default long[] scratchRows(int length) {
+        return new long[length];
+    }
+
+    /**
+     * The first step towards the nearest enemy of a hunter from the center of this view, in pursuit mode (see
+     * World.setPursuit), for when no enemy is in sight
+     *
+     * @param hunter The entity looking for an enemy (a Hero hunts monsters, a Monster hunts heroes)
+     * @return The direction of the step, null if pursuit is off or no enemy can be reached
+     */
+    default Direction getPursuit(Entity hunter) {
+        return null;
+    }
+}
@@ -0,0 +1,264 @@
+package mvh.world;
+
+import java.util.Random;
+import mvh.enums.Direction;
+import mvh.util.StreamRandom;
+
+/**
+ * A re-usable, read-only window of SIZExSIZE into a parent World, centered around a row/column of the parent
+ * This answers the same questions as World.getLocal() but without building a new World each time, the window is simply
+ * moved (recentered) and all look-ups are translated into the parent World. Areas outside the parent are walls.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class LocalWindow implements LocalView {
+
+    /**
+     * The World this window looks into
+     */
+    private final World parent;
+    /**
+     * The width and height of the window (odd integer >= 3)
+     */
+    private final int size;
+    /**
+     * Row in the parent World that index 0 of this window refers to
+     */
+    private int rowOffset;
+    /**
+     * Column in the parent World that index 0 of this window refers to
+     */
+    private int columnOffset;
+    /**
+     * Random number generator used instead of the parent's while a decision has its own random seed (created on first use)
+     */
+    private StreamRandom stream;
+    /**
+     * Should getRandom() give the window's own seeded generator instead of the parent's
+     */
+    private boolean useOwnSeed;
+    /**
+     * Rows of this window being scanned (see scratchRows), kept so a decision does not allocate
+     */
+    private final long[] scratch;
+
+    /**
+     * A new window of SIZExSIZE into the parent World (centered at 0,0 until moved)
+     *
+     * @param parent The World to look into
+     * @param size   The size of the window (must be an odd integer >= 3)
+     */
+    public LocalWindow(World parent, int size) {
+        // checking to make sure the size parameter is a valid input (odd int >= 3), same rule as World.getLocal()
+        if (((size % 2) == 0) || size < 3) {
+            throw new IllegalArgumentException("Invalid size input, size must be an odd integer > 3");
+        }
+        this.parent = parent;
+        this.size = size;
+        this.scratch = new long[size];
+        center(0, 0);
+    }
+
+    /**
+     * Move the window so it is centered around the given location of the parent World
+     *
+     * @param row    The row of the parent World to center on
+     * @param column The column of the parent World to center on
+     * @return This window (so it can be passed straight to attackWhere/chooseMove)
+     */
+    public LocalWindow center(int row, int column) {
+        this.rowOffset = row - size / 2;
+        this.columnOffset = column - size / 2;
+        return this;
+    }
+
+    /**
+     * Give the next decision made with this window its own random seed, so its random choices do not depend on what
+     * other entities drew before it (restarting a stream does not allocate)
+     *
+     * @param seed The seed for the decision
+     */
+    public void useRandomSeed(long seed) {
+        if (stream == null) {
+            stream = new StreamRandom(seed);
+        } else {
+            stream.setSeed(seed);
+        }
+        this.useOwnSeed = true;
+    }
+
+    /**
+     * Go back to drawing from the parent World's random number generator
+     */
+    public void useParentRandom() {
+        this.useOwnSeed = false;
+    }
+
+    /**
+     * Get the size of this window
+     *
+     * @return The width and height of the window
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get entity at a location of this window, anything outside the parent World is a wall
+     *
+     * @param row    The row of the entity (in window indexes)
+     * @param column The column of the entity (in window indexes)
+     * @return The Entity at the given row, column (null if floor)
+     */
+    @Override
+    public Entity getEntity(int row, int column) {
+        int parentRow = row + rowOffset;
+        int parentColumn = column + columnOffset;
+        if (isOutside(parentRow, parentColumn)) {
+            return Wall.getWall();
+        }
+        return parent.getEntity(parentRow, parentColumn);
+    }
+
+    /**
+     * Is a location of the parent World outside its map (where this window sees a wall)
+     *
+     * @param parentRow    The row in the parent World
+     * @param parentColumn The column in the parent World
+     * @return True if it is outside the parent's map
+     */
+    private boolean isOutside(int parentRow, int parentColumn) {
+        return parentRow < 0 || parentRow >= parent.getRows() || parentColumn < 0 || parentColumn >= parent.getColumns();
+    }
+
+    /**
+     * See if we can move to location
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @return True if we can move to that location
+     */
+    @Override
+    public boolean canMoveOnTopOf(int row, int column) {
+        Occupancy occupancy = parent.getOccupancy();
+        if (occupancy != null) {
+            return !occupancy.isBlocked(row + rowOffset, column + columnOffset);
+        }
+        int parentRow = row + rowOffset;
+        int parentColumn = column + columnOffset;
+        return !isOutside(parentRow, parentColumn) && parent.canMoveOnTopOf(parentRow, parentColumn);
+    }
+
+    /**
+     * The random number generator for the decision being made with this window
+     *
+     * @return The parent World's random number generator, or this window's own one if useRandomSeed was called
+     */
+    @Override
+    public Random getRandom() {
+        return useOwnSeed ? stream : parent.getRandom();
+    }
+
+    /**
+     * Which locations of a row of this window hold an ALIVE hero, read from the parent's bitboards if it has them
+     *
+     * @param row    The row to check
+     * @param length The number of locations from column 0 to check (at most 63)
+     * @return Bit i set if the location at column i holds an ALIVE hero
+     */
+    @Override
+    public long aliveHeroBits(int row, int length) {
+        Occupancy occupancy = parent.getOccupancy();
+        if (occupancy == null || length > Occupancy.MAX_LENGTH) {
+            return aliveBits(row, length, EntityStore.HERO);
+        }
+        return occupancy.heroes(row + rowOffset, columnOffset, length);
+    }
+
+    /**
+     * Which locations of a row of this window hold an ALIVE monster, read from the parent's bitboards if it has them
+     *
+     * @param row    The row to check
+     * @param length The number of locations from column 0 to check (at most 63)
+     * @return Bit i set if the location at column i holds an ALIVE monster
+     */
+    @Override
+    public long aliveMonsterBits(int row, int length) {
+        Occupancy occupancy = parent.getOccupancy();
+        if (occupancy == null || length > Occupancy.MAX_LENGTH) {
+            return aliveBits(row, length, EntityStore.MONSTER);
+        }
+        return occupancy.monsters(row + rowOffset, columnOffset, length);
+    }
+
+    /**
+     * Which locations of a row of this window hold an ALIVE entity of a faction, asking the parent location by location
+     * (for parents without bitboards)
+     *
+     * @param row     The row to check
+     * @param length  The number of locations from column 0 to check
+     * @param faction EntityStore.HERO or EntityStore.MONSTER
+     * @return Bit i set if the location at column i holds an ALIVE entity of the faction
+     */
+    private long aliveBits(int row, int length, byte faction) {
+        long bits = 0;
+        for (int column = 0; column < length; column++) {
+            if (parent.isAliveAt(row + rowOffset, column + columnOffset, faction)) {
+                bits |= 1L << column;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * An array to hold the rows of this window while scanning it, the same one every time
+     *
+     * @param length The number of rows needed
+     * @return This window's scratch array (a new array if it is shorter than length)
+     */
+    @Override
+    public long[] scratchRows(int length) {
+        return length <= scratch.length ? scratch : new long[length];
+    }
+
+    /**
+     * The first step towards the nearest enemy of a hunter from the center of this window, read from the parent's flow
+     * fields
+     *
+     * @param hunter The entity looking for an enemy
+     * @return The direction of the step, null if the parent is not in pursuit mode or no enemy can be reached
+     */
+    @Override
+    public Direction getPursuit(Entity hunter) {
+        return parent.pursuitFrom(hunter, rowOffset + size / 2, columnOffset + size / 2);
+    }
+
+    /**
+     * See if entity is hero at this location
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @return True if entity is a hero at that location
+     */
+    @Override
+    public boolean isHero(int row, int column) {
+        int parentRow = row + rowOffset;
+        int parentColumn = column + columnOffset;
+        return !isOutside(parentRow, parentColumn) && parent.isHero(parentRow, parentColumn);
+    }
+
+    /**
+     * See if entity is monster at this location
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @return True if entity is a monster at that location
+     */
+    @Override
+    public boolean isMonster(int row, int column) {
+        int parentRow = row + rowOffset;
+        int parentColumn = column + columnOffset;
+        return !isOutside(parentRow, parentColumn) && parent.isMonster(parentRow, parentColumn);
+    }
+}
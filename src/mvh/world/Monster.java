@@ -16,12 +16,7 @@ public final class Monster extends Entity {
     /**
      * The set armor strength of a Monster
      */
-    private static final int MONSTER_ARMOR_STRENGTH = 2;
-
-    /**
-     * The user provided weapon type
-     */
-    private final WeaponType weaponType;
+    static final int MONSTER_ARMOR_STRENGTH = 2;
 
     /**
      * A Monster has regular health and symbol as well as a weapon type
@@ -31,8 +26,44 @@ public final class Monster extends Entity {
      * @param weaponType The weapon type of the Monster
      */
     public Monster(int health, char symbol, WeaponType weaponType) {
-        super(symbol, health);
-        this.weaponType = weaponType;
+        super(symbol, health, weaponType.getWeaponStrength(), MONSTER_ARMOR_STRENGTH);
+    }
+
+    /**
+     * A view of a monster already in a store (see EntityStore.getEntity)
+     *
+     * @param store The store holding the monster
+     * @param index The index of the monster in the store
+     */
+    Monster(EntityStore store, int index) {
+        super(store, index);
+    }
+
+    /**
+     * An exact copy of another monster (same ID)
+     *
+     * @param other The monster to copy
+     */
+    private Monster(Monster other) {
+        super(other);
+    }
+
+    /**
+     * Create an exact copy of this monster (same ID)
+     *
+     * @return A copy of this monster
+     */
+    @Override
+    public Monster copy() {
+        return new Monster(this);
+    }
+
+    /**
+     * The weapon type of monster
+     * @return The weapon type given when the monster was created
+     */
+    public WeaponType getWeaponType() {
+        return WeaponType.withStrength(weaponStrength());
     }
 
     /**
@@ -41,16 +72,16 @@ public final class Monster extends Entity {
      */
     @Override
     public int weaponStrength() {
-        return weaponType.getWeaponStrength();
+        return getStore().getWeaponStrength(getIndex());
     }
 
     /**
-     * The armor strength of monster is from the stored constant
-     * @return The armor strength of monster is from the stored constant
+     * The armor strength of monster is the constant it was created with
+     * @return The armor strength of monster is the constant it was created with
      */
     @Override
     public int armorStrength() {
-        return MONSTER_ARMOR_STRENGTH;
+        return getStore().getArmorStrength(getIndex());
     }
 
     /**
@@ -73,119 +104,63 @@ public final class Monster extends Entity {
 
     @Override
     public String toString() {
-        return super.toString() + "\t" + weaponType;
+        return getStore().appendTo(new StringBuilder(), getIndex()).toString();
     }
 
 // ------------------------------------------fix-------------------------------------------------------
     /**
      * Function that determines where this monster wants to attack based on local view of world (immediate neighbors that are
-     * alive heroes in a 3x3 area around the monster)
+     * alive heroes in a 3x3 area around the monster by default, a larger attack view reaches further, see World.setVision)
      *
-     * @param local The local view centered on the monster (immediate neighbors 3x3) generated by the world.getLocal
-     *              function
+     * @param local The local view centered on the monster (immediate neighbors 3x3 by default) generated by the world.getLocal
+     *              function (or a LocalWindow)
      * @return The Direction the monster wants to attack (null if not attacking - i.e. no nearby alive heroes)
      */
     @Override
-    public Direction attackWhere(World local) {
-        // row and column index counter, starts at 2 because we will loop from bottom to top and right to left
-        int row = 2;
-        int column = 2;
-        // correction factor to subtract from the row or column counter in order to receive the adjustment values for
-        // the getDirection method
-        int correctionFactor = 1;
-
-        // loop from 2 to 0 which is the from the ending to starting row index for a 3x3 grid
-        while (row >= 0) {
-            // loop from 2 to 0 which is the from the ending to starting column for a 3x3 grid
-            while (column >= 0) {
-                // ensure that we are not currently on index 1,1 which is where the grid is centered and where the monster is
-                if (!(row == 1 && column == 1)) {
-                    // if we aren't at index 1,1 check if this location contains a hero and if that hero is alive
-                    if (local.isHero(row, column) && local.getEntity(row, column).isAlive()){
-                        // return direction (Direction.getDirection) if condition is met. The rowChange and columnChange
-                        // arguments for getDirection is row or column - correction factor
-                        return Direction.getDirection(row - correctionFactor, column - correctionFactor);
-                    }
-                }
-                // decrement column at end of each column
-                column--;
-            }
-            // reset column back to 2 when reach the start of the columns before going to next row
-            column = 2;
-            // decrement row
-            row--;
-        }
-        // return null if monster did not find a hero to attack
-        return null;
+    public Direction attackWhere(LocalView local) {
+        // the nearest alive hero in a straight line with nothing in between, ties broken bottom to top, right to left
+        // (in a 3x3 view this is the first neighbouring hero in that order)
+        return Vision.attackWhere(local, true, true);
     }
 
 
 
     /**
-     * Function that determine where does this hero want to move based on local view of world (5x5), and any Monsters
+     * Function that determine where does this hero want to move based on local view of world (5x5 by default), and any Monsters
      * within this range dictates the direction the hero will move
      *
-     * @param local  The local view centered on the hero (immediate neighbors 5x5) generated by the world.getLocal
-     *               function
+     * @param local  The local view centered on the hero (immediate neighbors 5x5 by default) generated by the world.getLocal
+     *               function (or a LocalWindow)
      * @return The Direction the hero wants to move, which will be in the direction of an alive monster
      * (presumption that entity already decided to not attack)
      */
 
-    public Direction chooseMove(World local){
-
-        // row and column index counter starts at 4 because we will loop from bottom to top and right to left
-        int row = 4;
-        int column = 4;
-        // correction factor to subtract from the row or column counter in order to receive the adjustment values for
-        // the getDirection method
-        int correctionFactor = 2;
-
-        // monster indexes
-        int monsterRow = 2;
-        int monsterColumn = 2;
-
-        // loop from 4 to 0 which is the ending to starting row index for a 5x5 grid
-        while (row >= 0) {
-            // loop from 4 to 0 which is the ending to starting column index for a 5x5 grid
-            while (column >= 0) {
-                // ensure that we are not currently within the 3x3 attack grid which means we are not in the rows of
-                // index 1-3 and column index 1-3
-                if (!(row>0 && row<4 && column>0 && column<4)) {
-                    // if this is the case check if there is a hero in this spot that is alive
-                    if (local.isHero(row, column) && local.getEntity(row, column).isAlive()){
-                        // get the directions that the monster can try to move
-                        Direction[] directions = Direction.getDirections(row-correctionFactor, column-correctionFactor);
-                        // test first direction (index 0) returned by the getDirections function, if can move there return it
-                        if (local.canMoveOnTopOf(monsterRow, monsterColumn, directions[0])){
-                            return directions[0];
-                        }
-                        // test first direction (index 1) returned by the getDirections function, if can move there return it
-                        else if(local.canMoveOnTopOf(monsterRow, monsterColumn, directions[1])){
-                            return directions[1];
-                        }
-                        // test first direction (index 2) returned by the getDirections function, if can move there return it
-                        else if(local.canMoveOnTopOf(monsterRow, monsterColumn, directions[2])){
-                            return directions[2];
-                        }
-                    }
-                }
-                // decrement column at start of each column
-                column--;
-            }
-            // reset column back to 4 when reach the end of the columns before going to next row
-            column = 4;
-            // decrement row
-            row--;
+    public Direction chooseMove(LocalView local){
+
+        // monster indexes (the center of the view)
+        int monsterRow = local.getSize() / 2;
+        int monsterColumn = local.getSize() / 2;
+
+        // step towards the nearest alive hero outside the 3x3 attack grid (ties broken bottom to top, right to left)
+        // if one of the three directions towards it is free
+        Direction chase = Vision.chase(local, true, true);
+        if (chase != null) {
+            return chase;
         }
 
-        // if there are no heroes nearby in the 5x5 vicinity then move SouthEast if possible.
+        // in pursuit mode step towards the nearest hero on the whole map (the world's flow field) if possible
+        Direction pursuit = local.getPursuit(this);
+        if (pursuit != null && pursuit != Direction.STAY && local.canMoveOnTopOf(monsterRow, monsterColumn, pursuit)) {
+            return pursuit;
+        }
+        // if there are no heroes nearby in the move view then move SouthEast if possible.
         if(local.canMoveOnTopOf(monsterRow,monsterColumn, Direction.SOUTHEAST)){
             return Direction.SOUTHEAST;
         }
 
         else {
             // get a random direction to move when monster cannot move SouthEast
-            Direction randomDirection = Direction.getRandomDirection();
+            Direction randomDirection = Direction.getRandomDirection(local.getRandom());
 
             // if monster cannot move southEast try to move in a random direction
             // if random direction happens to be stay then stay
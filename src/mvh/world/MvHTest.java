@@ -1,13 +1,34 @@
 package mvh.world;
 
+import mvh.Menu;
 import mvh.enums.Direction;
+import mvh.enums.Layout;
+import mvh.enums.LogLevel;
+import mvh.enums.Outcome;
 import mvh.enums.Symbol;
+import mvh.enums.TickMode;
 import mvh.enums.WeaponType;
+import mvh.util.BinaryWorld;
 import mvh.util.Reader;
+import mvh.util.WorldGenerator;
 
 import org.junit.jupiter.api.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.management.ObjectName;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -298,6 +319,607 @@ class MvHTest {
     }
 
 
+    /**
+     * A test to ensure the WorldRenderer writes exactly the gameString() (plus a new line like Menu.println) when
+     * writing to a channel and to an Appendable. The world is 400x400 so the map is rendered in parallel blocks.
+     */
+    @Test
+    void worldRendererMatchesGameString() throws IOException {
+        // creating a large world with a hero and a monster in every 7th row (some of them dead)
+        World world = new World(400,400);
+        for (int row = 0; row < 400; row += 7) {
+            world.addEntity(row, row % 400, new Hero(row % 3, 'H', 3, 1));
+            world.addEntity(row, 399 - row % 400, new Monster(5, 'M', WeaponType.getWeaponType('C')));
+        }
+        String expected = world.gameString();
+
+        // writing to a channel over a byte array
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WorldRenderer.write(world, Channels.newChannel(bytes));
+        assertEquals(expected + System.lineSeparator(), bytes.toString(Charset.defaultCharset()),
+                "The WorldRenderer did not write the same bytes as gameString");
+
+        // writing to an Appendable
+        StringBuilder builder = new StringBuilder();
+        WorldRenderer.render(world, builder);
+        assertEquals(expected, builder.toString(), "The WorldRenderer did not append the same text as gameString");
+    }
+
+    /**
+     * A test to ensure a copy of a world simulated in SIMULTANEOUS tick mode with the same seed ends exactly like the
+     * original (same map, entity table and number of ticks), using the worldbig.txt world
+     */
+    @Test
+    void simultaneousTickIsReproducible() {
+        // nothing is logged (the Menu has no log file in tests)
+        Menu.setLevel(LogLevel.OFF);
+
+        // get the world and an independent copy of it
+        World original = Reader.loadWorld(new File("worldbig.txt"));
+        original.setTickMode(TickMode.SIMULTANEOUS);
+        World copy = original.copy();
+
+        // simulate both to the end with the same seed
+        original.setRandom(new Random(42));
+        copy.setRandom(new Random(42));
+        while (original.isActive()) {
+            original.advanceSimulation();
+        }
+        while (copy.isActive()) {
+            copy.advanceSimulation();
+        }
+
+        // checking both ended the same way, if not print an error message
+        assertEquals(original.getTick(), copy.getTick(), "The copy did not take the same number of ticks");
+        assertEquals(original.gameString(), copy.gameString(), "The copy did not end in the same state");
+    }
+
+    /**
+     * A test to ensure a world drawing from random streams is not affected by anything else drawing random numbers:
+     * a copy with the same seed is simulated while its own generator is drawn from every tick, and both must end in
+     * the same state
+     */
+    @Test
+    void randomStreamsIgnoreOtherDraws() {
+        // nothing is logged (the Menu has no log file in tests)
+        Menu.setLevel(LogLevel.OFF);
+
+        // get the world and an independent copy of it, both drawing from streams of seed 42
+        World original = Reader.loadWorld(new File("worldbig.txt"));
+        World copy = original.copy();
+        copy.setRandom(new Random(7));
+        original.useRandomStreams(42);
+        copy.useRandomStreams(42);
+
+        // simulate both to the end, drawing from the copy's shared generator in between ticks
+        while (original.isActive()) {
+            original.advanceSimulation();
+        }
+        while (copy.isActive()) {
+            copy.getRandom().nextInt();
+            copy.advanceSimulation();
+        }
+
+        // checking both ended the same way, if not print an error message
+        assertEquals(original.getTick(), copy.getTick(), "The copy did not take the same number of ticks");
+        assertEquals(original.gameString(), copy.gameString(), "The copy did not end in the same state");
+    }
+
+    /**
+     * A test to ensure a sparse (chunked) world plays exactly like a dense one. Heroes and monsters are placed on both
+     * sides of chunk borders (chunks are 16x16) so moves, attacks and local views cross from one chunk into another
+     */
+    @Test
+    void sparseWorldMatchesDense() {
+        // nothing is logged (the Menu has no log file in tests)
+        Menu.setLevel(LogLevel.OFF);
+
+        // build the same 40x40 world both ways
+        World dense = new World(40, 40, false);
+        World sparse = new World(40, 40, true);
+        for (World world : new World[]{dense, sparse}) {
+            for (int i = 0; i < 8; i++) {
+                world.addEntity(14 + i % 4, 13 + i, new Hero(10, 'H', 3, 1));
+                world.addEntity(17 + i % 3, 30 - i, new Monster(10, 'M', WeaponType.getWeaponType('S')));
+            }
+        }
+
+        // simulate both for up to 200 ticks with the same seed (the survivors may never meet)
+        dense.setRandom(new Random(42));
+        sparse.setRandom(new Random(42));
+        while (dense.isActive() && dense.getTick() < 200) {
+            dense.advanceSimulation();
+        }
+        while (sparse.isActive() && sparse.getTick() < 200) {
+            sparse.advanceSimulation();
+        }
+
+        // checking both ended the same way, if not print an error message
+        assertEquals(dense.getTick(), sparse.getTick(), "The sparse world did not take the same number of ticks");
+        assertEquals(dense.worldString(), sparse.worldString(), "The sparse world did not end in the same state");
+        assertEquals(dense.copy().worldString(), sparse.copy().worldString(), "The sparse copy is not the same");
+    }
+
+    /**
+     * A test to ensure the binary world format holds the same world as the text format: worldbig.txt is converted to a
+     * binary world file and back, and the binary file must load into the same world as the text file
+     */
+    @Test
+    void binaryWorldMatchesText() throws IOException {
+        // converting the text world to binary and back to text (in temporary files)
+        File text = new File("worldbig.txt");
+        File binary = File.createTempFile("worldbig", ".mvhw");
+        File back = File.createTempFile("worldbig", ".txt");
+        binary.deleteOnExit();
+        back.deleteOnExit();
+        BinaryWorld.textToBinary(text, binary);
+        BinaryWorld.binaryToText(binary, back);
+
+        // loading each file with fresh IDs so the entity tables can be compared
+        Entity.resetIDCounter();
+        String expected = Reader.loadWorld(text).gameString();
+        Entity.resetIDCounter();
+        String fromBinary = Reader.loadWorld(binary).gameString();
+        Entity.resetIDCounter();
+        String fromBack = Reader.loadWorld(back).gameString();
+        Entity.resetIDCounter();
+
+        // checking all three worlds are the same, if not print an error message
+        assertTrue(BinaryWorld.isBinary(binary), "The binary world file was not detected as binary");
+        assertEquals(expected, fromBinary, "The binary world file did not load the same world");
+        assertEquals(expected, fromBack, "Converting back to text did not give the same world");
+    }
+
+    /**
+     * A test to ensure a simulation resumed from a checkpoint ends the same as one that never stopped: worldbig.txt is
+     * simulated for 3 ticks, saved and read back, and both worlds are then simulated to the end
+     */
+    @Test
+    void checkpointResumesSameSimulation() throws IOException {
+        Menu.setLevel(LogLevel.OFF);
+        File checkpoint = File.createTempFile("worldbig", ".ckpt");
+        checkpoint.deleteOnExit();
+
+        // simulating 3 ticks and saving a checkpoint
+        Entity.resetIDCounter();
+        World world = Reader.loadWorld(new File("worldbig.txt"));
+        world.setRandom(new Random(42));
+        for (int i = 0; i < 3; i++) {
+            world.advanceSimulation();
+        }
+        Checkpoint.write(world, checkpoint);
+        World resumed = Reader.loadWorld(checkpoint);
+
+        // checking the resumed world is the same, then that both finish the same way (capped in case neither side wins)
+        assertTrue(Checkpoint.isCheckpoint(checkpoint), "The checkpoint file was not detected as a checkpoint");
+        assertEquals(world.gameString(), resumed.gameString(), "The checkpoint did not restore the same world");
+        for (int i = 0; i < 200 && world.isActive(); i++) {
+            world.advanceSimulation();
+            resumed.advanceSimulation();
+        }
+        Entity.resetIDCounter();
+        assertEquals(world.gameString(), resumed.gameString(), "The resumed simulation did not end the same way");
+    }
+
+    /**
+     * A test to ensure a replay rebuilds the same world as the simulation at every tick: worldbig.txt is recorded with
+     * a keyframe every 5 ticks, and every recorded tick is rebuilt from the replay and compared
+     */
+    @Test
+    void replayRebuildsEveryTick() throws IOException {
+        Menu.setLevel(LogLevel.OFF);
+        File replay = File.createTempFile("worldbig", ".mvhr");
+        replay.deleteOnExit();
+
+        // recording worldbig.txt and keeping the game string of every tick (capped in case neither side wins)
+        Entity.resetIDCounter();
+        World world = Reader.loadWorld(new File("worldbig.txt"));
+        world.setRandom(new Random(42));
+        List<String> expected = new ArrayList<>();
+        try (ReplayRecorder recorder = new ReplayRecorder(replay, 5)) {
+            world.setRecorder(recorder);
+            expected.add(world.gameString());
+            for (int i = 0; i < 200 && world.isActive(); i++) {
+                world.advanceSimulation();
+                expected.add(world.gameString());
+            }
+            world.setRecorder(null);
+        }
+
+        // rebuilding every tick from the replay, if one is different print an error message
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            assertEquals(expected.size() - 1, reader.getLastTick(), "The replay did not record every tick");
+            for (int tick = 0; tick <= reader.getLastTick(); tick++) {
+                assertEquals(expected.get(tick), reader.worldAt(tick).gameString(), "The replay rebuilt a different world at tick " + tick);
+            }
+        }
+        Entity.resetIDCounter();
+    }
+
+    /**
+     * A test to ensure dead entities leave the active list (in entity order) once it is compacted, but stay in the
+     * store so they are still printed
+     */
+    @Test
+    void deadEntitiesLeaveActiveList() {
+        // storing three entities, the middle one is killed
+        EntityStore store = new EntityStore();
+        store.add(new Hero(10, 'H', 3, 1));
+        store.add(new Monster(1, 'M', WeaponType.CLUB));
+        store.add(new Hero(5, 'G', 2, 1));
+        store.damage(1, 5);
+        Entity.resetIDCounter();
+
+        // the dead monster is only dropped when the list is compacted, the other two keep their order
+        assertEquals(3, store.activeSize(), "The active list changed before it was compacted");
+        store.compactActive();
+        assertEquals(2, store.activeSize(), "The dead entity was not dropped from the active list");
+        assertEquals(0, store.activeIndex(0), "The active list did not keep the entity order");
+        assertEquals(2, store.activeIndex(1), "The active list did not keep the entity order");
+        assertEquals(3, store.size(), "The dead entity was removed from the store");
+    }
+
+    /**
+     * A test to ensure damage done through the public Entity API (not a tick) keeps the World up to date: the counters,
+     * the location (which can now be moved on top of) and the ACTIVE state
+     */
+    @Test
+    void damageThroughEntityUpdatesWorld() {
+        // a hero and a monster, the monster is killed through the entity the world hands out
+        World world = new World(1, 3);
+        Hero hero = new Hero(10, 'H', 3, 1);
+        world.addEntity(0, 0, hero);
+        world.addEntity(0, 2, new Monster(4, 'M', WeaponType.CLUB));
+        Entity.resetIDCounter();
+        hero.damage(3);
+        assertEquals(7, world.getStats().getHeroHealth(), "Damage to an added hero did not reach the world");
+        world.getEntity(0, 2).damage(2);
+        assertEquals(1, world.getMonstersAlive(), "The monster died too early");
+        assertTrue(world.isActive(), "The world ended with both sides alive");
+        world.getEntity(0, 2).damage(5);
+
+        // the world sees the death at once, without a tick
+        assertEquals(1, world.getHeroesAlive(), "The hero count changed");
+        assertEquals(0, world.getMonstersAlive(), "The dead monster is still counted as alive");
+        assertEquals(1, world.getMonstersDead(), "The dead monster is not counted as dead");
+        assertTrue(world.canMoveOnTopOf(0, 2), "The dead monster's location cannot be moved on top of");
+        assertFalse(world.isActive(), "The world is still active with no monster alive");
+        assertEquals(Outcome.HEROES_WIN, world.getOutcome(), "The heroes did not win");
+    }
+
+    /**
+     * A test to ensure the faction counters kept while simulating agree with counting the entities: worldbig.txt is
+     * simulated to the end and the stats are compared with a scan of every entity
+     */
+    @Test
+    void factionStatsMatchEntities() {
+        Menu.setLevel(LogLevel.OFF);
+        Entity.resetIDCounter();
+        World world = Reader.loadWorld(new File("worldbig.txt"));
+        world.setRandom(new Random(12345));
+        for (int i = 0; i < 200 && world.isActive(); i++) {
+            world.advanceSimulation();
+        }
+        Entity.resetIDCounter();
+
+        // counting the alive/dead heroes and monsters and the health of the alive ones
+        int[] alive = new int[2];
+        int[] dead = new int[2];
+        long[] health = new long[2];
+        for (int index = 0; index < world.getEntityCount(); index++) {
+            Entity entity = world.getEntityAt(index);
+            int side = entity instanceof Hero ? 0 : 1;
+            if (entity.isAlive()) {
+                alive[side]++;
+                health[side] += entity.getHealth();
+            } else {
+                dead[side]++;
+            }
+        }
+
+        // checking the stats, if any is different print an error message
+        WorldStats stats = world.getStats();
+        assertEquals(world.getTick(), stats.getTick(), "The stats have the wrong tick");
+        assertEquals(alive[0], stats.getHeroesAlive(), "The stats have the wrong number of heroes alive");
+        assertEquals(alive[1], stats.getMonstersAlive(), "The stats have the wrong number of monsters alive");
+        assertEquals(dead[0], stats.getHeroesDead(), "The stats have the wrong number of heroes dead");
+        assertEquals(dead[1], stats.getMonstersDead(), "The stats have the wrong number of monsters dead");
+        assertEquals(health[0], stats.getHeroHealth(), "The stats have the wrong hero health");
+        assertEquals(health[1], stats.getMonsterHealth(), "The stats have the wrong monster health");
+        assertEquals(world.getOutcome(), stats.getOutcome(), "The stats have the wrong outcome");
+    }
+
+    /**
+     * A test to ensure the bitboards behind a LocalWindow agree with looking at every location of a local World:
+     * worldbig.txt is simulated a few ticks (so there are dead entities) and every 5x5 view is compared
+     */
+    @Test
+    void occupancyBitsMatchLocalWorld() {
+        Menu.setLevel(LogLevel.OFF);
+        Entity.resetIDCounter();
+        World world = Reader.loadWorld(new File("worldbig.txt"));
+        world.setRandom(new Random(1));
+        for (int i = 0; i < 5 && world.isActive(); i++) {
+            world.advanceSimulation();
+        }
+        Entity.resetIDCounter();
+
+        // comparing every row of the window centered on every location with the local World of the same place
+        LocalWindow window = new LocalWindow(world, 5);
+        for (int row = 0; row < world.getRows(); row++) {
+            for (int column = 0; column < world.getColumns(); column++) {
+                World local = world.getLocal(5, row, column);
+                window.center(row, column);
+                for (int r = 0; r < 5; r++) {
+                    assertEquals(local.aliveHeroBits(r, 5), window.aliveHeroBits(r, 5), "Heroes differ at " + row + "," + column);
+                    assertEquals(local.aliveMonsterBits(r, 5), window.aliveMonsterBits(r, 5), "Monsters differ at " + row + "," + column);
+                    for (int c = 0; c < 5; c++) {
+                        assertEquals(local.canMoveOnTopOf(r, c), window.canMoveOnTopOf(r, c), "Blocked differs at " + row + "," + column);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A test to ensure pursuit mode sends entities with no enemy in sight around a wall towards the nearest enemy
+     * instead of drifting: a hero at 1,1 and a monster at 8,8 of a 10x10 world are split by a wall down column 4
+     * that is only open at the bottom row, so the hero must head down and the monster left rather than northwest or
+     * southeast
+     */
+    @Test
+    void pursuitFollowsFlowAroundWall() {
+        Menu.setLevel(LogLevel.OFF);
+        World world = new World(10, 10);
+        Entity hero = new Hero(10, 'H', 3, 1);
+        Entity monster = new Monster(10, 'M', WeaponType.getWeaponType('S'));
+        world.addEntity(1, 1, hero);
+        world.addEntity(8, 8, monster);
+        for (int row = 0; row < 9; row++) {
+            world.addEntity(row, 4, Wall.getWall());
+        }
+        world.setRandom(new Random(1));
+        world.setPursuit(1);
+        world.advanceSimulation();
+        Entity.resetIDCounter();
+
+        // finding where the hero and monster moved to
+        int[] heroAt = null;
+        int[] monsterAt = null;
+        for (int row = 0; row < world.getRows(); row++) {
+            for (int column = 0; column < world.getColumns(); column++) {
+                if (world.getEntity(row, column) == hero) {
+                    heroAt = new int[]{row, column};
+                } else if (world.getEntity(row, column) == monster) {
+                    monsterAt = new int[]{row, column};
+                }
+            }
+        }
+        assertEquals(2, heroAt[0], "The hero should have stepped down towards the gap in the wall");
+        assertEquals(7, monsterAt[1], "The monster should have stepped left towards the hero");
+        assertThrows(IllegalStateException.class, () -> new World(10, 10, true).setPursuit(1),
+                "Sparse maps should not be able to pursue");
+    }
+
+    /**
+     * A test to ensure the bit scans of a larger move view pick the same step as going through every enemy of the view
+     * one by one (nearest first, then top to bottom and left to right, leaving out the 3x3 attack grid): a 30x30
+     * world is filled at random and the hero scan of an 11x11 window is checked at every location
+     */
+    @Test
+    void largeMoveViewMatchesFullScan() {
+        World world = new World(30, 30);
+        Random random = new Random(7);
+        for (int row = 0; row < 30; row++) {
+            for (int column = 0; column < 30; column++) {
+                int kind = random.nextInt(10);
+                if (kind == 0) {
+                    world.addEntity(row, column, new Monster(10, 'M', WeaponType.getWeaponType('S')));
+                } else if (kind == 1) {
+                    world.addEntity(row, column, new Hero(10, 'H', 3, 1));
+                } else if (kind == 2) {
+                    world.addEntity(row, column, Wall.getWall());
+                }
+            }
+        }
+        Entity.resetIDCounter();
+
+        LocalWindow window = new LocalWindow(world, 11);
+        for (int row = 0; row < 30; row++) {
+            for (int column = 0; column < 30; column++) {
+                window.center(row, column);
+                // going through every location of the view in order of distance, then row, then column
+                Direction expected = null;
+                for (int distance = 2; distance <= 5 && expected == null; distance++) {
+                    for (int r = 0; r < 11 && expected == null; r++) {
+                        for (int c = 0; c < 11 && expected == null; c++) {
+                            if (Math.max(Math.abs(r - 5), Math.abs(c - 5)) == distance && window.isMonster(r, c)) {
+                                for (Direction direction : Direction.getDirections(r - 5, c - 5)) {
+                                    if (expected == null && window.canMoveOnTopOf(5, 5, direction)) {
+                                        expected = direction;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+                assertEquals(expected, Vision.chase(window, false, false), "Scans differ at " + row + "," + column);
+            }
+        }
+    }
+
+    /**
+     * A test to ensure an attack from a larger attack view in a SIMULTANEOUS tick lands only on the enemy it was
+     * decided on: two heroes with 7x7 attack views both attack a weak monster between them, and once the first kills
+     * it the second must miss rather than carry on to the hero behind it (the heroes' armor makes the monster harmless,
+     * so their health must not change). A random world is then simulated the same way to check nothing fails.
+     */
+    @Test
+    void simultaneousLargeAttackMissesDeadTarget() {
+        Menu.setLevel(LogLevel.OFF);
+        for (int seed = 0; seed < 20; seed++) {
+            World world = new World(5, 5);
+            Entity first = new Hero(10, 'H', 10, 5);
+            Entity second = new Hero(10, 'H', 10, 5);
+            world.addEntity(2, 1, first);
+            world.addEntity(2, 2, new Monster(1, 'M', WeaponType.getWeaponType('C')));
+            world.addEntity(2, 4, second);
+            world.setTickMode(TickMode.SIMULTANEOUS);
+            world.setVision(7, 9);
+            world.setRandom(new Random(seed));
+            world.advanceSimulation();
+            Entity.resetIDCounter();
+            assertEquals(10, first.getHealth(), "A hero was hit by its own side with seed " + seed);
+            assertEquals(10, second.getHealth(), "A hero was hit by its own side with seed " + seed);
+        }
+
+        World world = new World(30, 30);
+        Random random = new Random(7);
+        for (int row = 0; row < 30; row++) {
+            for (int column = 0; column < 30; column++) {
+                int kind = random.nextInt(10);
+                if (kind < 2) {
+                    world.addEntity(row, column, new Monster(5, 'M', WeaponType.getWeaponType('S')));
+                } else if (kind < 4) {
+                    world.addEntity(row, column, new Hero(5, 'H', 4, 0));
+                }
+            }
+        }
+        world.setTickMode(TickMode.SIMULTANEOUS);
+        world.setVision(7, 9);
+        world.setRandom(new Random(1));
+        for (int i = 0; i < 100 && world.isActive(); i++) {
+            world.advanceSimulation();
+        }
+        Entity.resetIDCounter();
+        assertTrue(world.getHeroesDead() + world.getMonstersDead() > 0, "Nobody died in the random world");
+    }
+
+    /**
+     * A test to ensure the world generator is repeatable and follows its layout: a 200x200 FRONTS world is generated
+     * twice with the same seed, the files must be the same, and when loaded every hero must be in the top quarter and
+     * every monster in the bottom quarter, with about the number of each asked for
+     */
+    @Test
+    void generatorIsRepeatableAndFollowsLayout() throws IOException {
+        Menu.setLevel(LogLevel.OFF);
+        File first = File.createTempFile("generated", ".txt");
+        File second = File.createTempFile("generated", ".txt");
+        first.deleteOnExit();
+        second.deleteOnExit();
+        for (File file : new File[]{first, second}) {
+            WorldGenerator generator = new WorldGenerator(200, 200, 42);
+            generator.setLayout(Layout.FRONTS);
+            generator.setCounts(1000, 2000);
+            generator.write(file);
+        }
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()), "The same seed gave different files");
+
+        World world = Reader.loadWorld(first);
+        Entity.resetIDCounter();
+        world.forEachOccupied((row, column, entity) -> {
+            if (entity instanceof Hero) {
+                assertTrue(row < 50, "A hero is outside the top front at " + row + "," + column);
+            } else if (entity instanceof Monster) {
+                assertTrue(row >= 150, "A monster is outside the bottom front at " + row + "," + column);
+            }
+        });
+        // the counts are met on average, a few percent either way is expected
+        assertEquals(1000, world.getHeroesAlive(), 150, "Far from the number of heroes asked for");
+        assertEquals(2000, world.getMonstersAlive(), 200, "Far from the number of monsters asked for");
+    }
+
+    /**
+     * A test to ensure tick metrics count what happened and can be read over JMX: worldbig.txt is simulated with
+     * metrics for up to 200 ticks, the deaths counted must be the entities that died, a measured world must play the
+     * same as one that is not measured, and the tick count must read the same through the platform MBean server
+     */
+    @Test
+    void tickMetricsCountTicksAndDeaths() throws Exception {
+        Menu.setLevel(LogLevel.OFF);
+        Entity.resetIDCounter();
+        World measured = Reader.loadWorld(new File("worldbig.txt"));
+        World plain = measured.copy();
+        measured.setRandom(new Random(42));
+        plain.setRandom(new Random(42));
+        TickMetrics metrics = new TickMetrics();
+        measured.setMetrics(metrics);
+        metrics.register();
+        for (int i = 0; i < 200 && measured.isActive(); i++) {
+            measured.advanceSimulation();
+            plain.advanceSimulation();
+        }
+        Entity.resetIDCounter();
+
+        assertEquals(measured.getTick(), metrics.getTicks(), "Not every tick was measured");
+        assertEquals(measured.getHeroesDead() + measured.getMonstersDead(), metrics.getDeaths(), "Deaths were miscounted");
+        assertTrue(metrics.getAttacks() >= metrics.getDeaths(), "Fewer attacks than deaths were counted");
+        assertTrue(metrics.getTickMaxMicros() >= metrics.getTickP50Micros(), "The slowest tick is faster than the median");
+        assertEquals(plain.gameString(), measured.gameString(), "Measuring changed the simulation");
+        Object ticks = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(TickMetrics.OBJECT_NAME), "Ticks");
+        assertEquals(metrics.getTicks(), ticks, "JMX did not show the same tick count");
+    }
+
+    /**
+     * A test to ensure the simulation's flight recorder events are emitted: worldbig.txt is loaded and simulated for
+     * up to 20 ticks while recording every tick, and the recording must hold one WorldLoad event with the world's
+     * size and one Tick event per tick
+     */
+    @Test
+    void flightRecorderRecordsLoadAndTicks() throws IOException {
+        Menu.setLevel(LogLevel.OFF);
+        File file = File.createTempFile("worldbig", ".jfr");
+        file.deleteOnExit();
+        World world;
+        try (Recording recording = new Recording()) {
+            recording.enable("mvh.WorldLoad");
+            recording.enable("mvh.Tick").withThreshold(Duration.ZERO);
+            recording.start();
+            Entity.resetIDCounter();
+            world = Reader.loadWorld(new File("worldbig.txt"));
+            world.setRandom(new Random(42));
+            for (int i = 0; i < 20 && world.isActive(); i++) {
+                world.advanceSimulation();
+            }
+            Entity.resetIDCounter();
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+
+        int ticks = 0;
+        int loads = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            if (event.getEventType().getName().equals("mvh.Tick")) {
+                assertEquals(ticks++, event.getInt("tick"), "The ticks were recorded out of order");
+            } else if (event.getEventType().getName().equals("mvh.WorldLoad")) {
+                loads++;
+                assertEquals((long) world.getRows() * world.getColumns(), event.getLong("cells"), "The load recorded the wrong size");
+            }
+        }
+        assertEquals(1, loads, "The world load was not recorded once");
+        assertEquals(world.getTick(), ticks, "Not every tick was recorded");
+    }
+
+    /**
+     * A test to ensure the SPARSE and MAP text formats are read into the same world as the original format:
+     * worldsparse.txt and worldmap.txt describe the same world as worldbig.txt
+     */
+    @Test
+    void sparseAndMapFormatsMatchWorldBig() {
+        // loading each file with fresh IDs so the entity tables can be compared
+        Entity.resetIDCounter();
+        String expected = Reader.loadWorld(new File("worldbig.txt")).gameString();
+        Entity.resetIDCounter();
+        String sparse = Reader.loadWorld(new File("worldsparse.txt")).gameString();
+        Entity.resetIDCounter();
+        String map = Reader.loadWorld(new File("worldmap.txt")).gameString();
+        Entity.resetIDCounter();
+
+        // checking all three worlds are the same, if not print an error message
+        assertEquals(expected, sparse, "The SPARSE world file did not load the same world");
+        assertEquals(expected, map, "The MAP world file did not load the same world");
+    }
+
     /**
      * A test to ensure the getLocal function is able to get a view centered on index 2,2 on a 3x3 grid with a view of 3
      * which means only the immediate surroundings of where the view is centered on. This test will be the view the
@@ -486,6 +1108,31 @@ class MvHTest {
     }
 
 
+    /**
+     * A test to ensure a LocalWindow of size 5 centered on index 1,2 of the 5x4 worldbig.txt world sees exactly what
+     * the World made by getLocal sees, including the walls for every cell that falls outside the original world.
+     */
+    @Test
+    void localWindow5x4view5() {
+        // creating the file object to the 5x4 world
+        File world = new File("worldbig.txt");
+
+        // get the actual world
+        World actualWorld = Reader.loadWorld(world);
+
+        // the expected view is the one built by getLocal, the actual view is the window centered on the same spot
+        World expectedLocalWorld = actualWorld.getLocal(5,1,2);
+        LocalWindow actualLocalWindow = new LocalWindow(actualWorld, 5).center(1,2);
+
+        // compare every cell of the 5x5 view
+        for (int row = 0; row < 5; row++) {
+            for (int column = 0; column < 5; column++) {
+                assertSame(expectedLocalWorld.getEntity(row, column), actualLocalWindow.getEntity(row, column),
+                        "The LocalWindow did not match getLocal at index " + row + "," + column);
+            }
+        }
+    }
+
     /**
      * A test to ensure that the heroAttackWhere function is able to return North when provided a 3x3 local world
      * with a monster (index 0,1) north of the hero centered at index 1,1
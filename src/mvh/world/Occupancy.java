@@ -0,0 +1,144 @@
+package mvh.world;
+
+/**
+ * Bitboards of a World's map: one bit per location, rows packed into long words, for the locations holding an ALIVE
+ * hero, an ALIVE monster, and anything that cannot be moved on top of (ALIVE entities and walls). The World updates a
+ * location whenever what is on it changes (add, move, death), so the AI can ask which locations of a row of its local
+ * view hold a live enemy, or whether it can move somewhere, with a couple of shifts and masks instead of looking at
+ * every Entity.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+final class Occupancy {
+
+    /**
+     * Longest run of locations that can be read at once (so the bits fit a long with room for the mask)
+     */
+    static final int MAX_LENGTH = 63;
+
+    /**
+     * Number of rows of the map
+     */
+    private final int rows;
+    /**
+     * Number of columns of the map
+     */
+    private final int columns;
+    /**
+     * Number of long words holding one row
+     */
+    private final int wordsPerRow;
+    /**
+     * Locations holding an ALIVE hero
+     */
+    private final long[] heroes;
+    /**
+     * Locations holding an ALIVE monster
+     */
+    private final long[] monsters;
+    /**
+     * Locations that cannot be moved on top of
+     */
+    private final long[] blocked;
+
+    /**
+     * Empty bitboards (all floor) for a map of ROWSxCOLUMNS
+     *
+     * @param rows    The number of rows of the map
+     * @param columns The number of columns of the map
+     */
+    Occupancy(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = (columns + 63) >>> 6;
+        int words = Math.multiplyExact(rows, wordsPerRow);
+        this.heroes = new long[words];
+        this.monsters = new long[words];
+        this.blocked = new long[words];
+    }
+
+    /**
+     * Update the bits of a location for what is now on it
+     *
+     * @param row     The row of the location
+     * @param column  The column of the location
+     * @param hero    Does the location now hold an ALIVE hero
+     * @param monster Does the location now hold an ALIVE monster
+     * @param blocked Can the location not be moved on top of
+     */
+    void update(int row, int column, boolean hero, boolean monster, boolean blocked) {
+        int word = row * wordsPerRow + (column >>> 6);
+        long bit = 1L << column;
+        heroes[word] = hero ? heroes[word] | bit : heroes[word] & ~bit;
+        monsters[word] = monster ? monsters[word] | bit : monsters[word] & ~bit;
+        this.blocked[word] = blocked ? this.blocked[word] | bit : this.blocked[word] & ~bit;
+    }
+
+    /**
+     * Which of a run of locations of a row hold an ALIVE hero
+     *
+     * @param row    The row (outside the map holds nothing)
+     * @param column The first column of the run (may be outside the map)
+     * @param length The number of locations (at most MAX_LENGTH)
+     * @return Bit i set if the location at column + i holds an ALIVE hero
+     */
+    long heroes(int row, int column, int length) {
+        return bits(heroes, row, column, length);
+    }
+
+    /**
+     * Which of a run of locations of a row hold an ALIVE monster
+     *
+     * @param row    The row (outside the map holds nothing)
+     * @param column The first column of the run (may be outside the map)
+     * @param length The number of locations (at most MAX_LENGTH)
+     * @return Bit i set if the location at column + i holds an ALIVE monster
+     */
+    long monsters(int row, int column, int length) {
+        return bits(monsters, row, column, length);
+    }
+
+    /**
+     * Can a location not be moved on top of (outside the map is a wall)
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return True if the location holds an ALIVE entity or a wall, or is outside the map
+     */
+    boolean isBlocked(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return true;
+        }
+        return (blocked[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    /**
+     * Read a run of bits of a row of a bitboard, locations outside the map read as 0
+     *
+     * @param board  The bitboard
+     * @param row    The row
+     * @param column The first column of the run (at least -MAX_LENGTH)
+     * @param length The number of locations (at most MAX_LENGTH)
+     * @return Bit i set if the bit of column + i is set
+     */
+    private long bits(long[] board, int row, int column, int length) {
+        if (row < 0 || row >= rows) {
+            return 0;
+        }
+        int base = row * wordsPerRow;
+        long value;
+        if (column >= 0) {
+            int word = column >>> 6;
+            int shift = column & 63;
+            value = word < wordsPerRow ? board[base + word] >>> shift : 0;
+            if (shift != 0 && word + 1 < wordsPerRow) {
+                value |= board[base + word + 1] << (64 - shift);
+            }
+        } else {
+            //The run starts left of the map, column 0 lands at bit -column
+            value = board[base] << -column;
+        }
+        //Bits past the last column are never set, so only the length has to be masked
+        return value & ((1L << length) - 1);
+    }
+}
@@ -0,0 +1,232 @@
+package mvh.world;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import mvh.enums.Direction;
+
+/**
+ * Rebuilds the World of a replay (see ReplayRecorder) at any recorded tick: the keyframe at or before the tick is
+ * loaded through the index at the end of the file, and the moves and damage of the ticks after it are applied. The
+ * entity AI is never run, so seeking costs at most keyframeTicks ticks of deltas whatever the length of the replay.
+ * <p>
+ * The map, entities, tick and state of a rebuilt World are exact. Its random number generator is the one of the
+ * keyframe, so only a World rebuilt at a keyframe tick (or recorded in RandomMode.STREAMS) can be simulated further
+ * with the same results as the recorded run.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class ReplayReader implements AutoCloseable {
+
+    /**
+     * Size of the buffer deltas are read through
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * The replay file
+     */
+    private final FileChannel channel;
+    /**
+     * Tick of each keyframe (ascending)
+     */
+    private final int[] keyframeTick;
+    /**
+     * File offset of each keyframe
+     */
+    private final long[] keyframeOffset;
+    /**
+     * The last tick recorded
+     */
+    private final int lastTick;
+    /**
+     * Ticks between keyframes
+     */
+    private final int keyframeTicks;
+
+    /**
+     * Open a replay file and read its keyframe index
+     *
+     * @param file The replay file
+     * @throws IOException If the file cannot be read, is not a replay or was not closed properly (has no index)
+     */
+    public ReplayReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = read(0, 12);
+            if (size < 12 + ReplayRecorder.FOOTER_BYTES || header.getInt(0) != ReplayRecorder.MAGIC) {
+                throw new IOException("The file is not a replay");
+            }
+            if (header.getInt(4) != ReplayRecorder.VERSION) {
+                throw new IOException("Replay version " + header.getInt(4) + " is not supported (expected " + ReplayRecorder.VERSION + ")");
+            }
+            this.keyframeTicks = header.getInt(8);
+            ByteBuffer footer = read(size - ReplayRecorder.FOOTER_BYTES, ReplayRecorder.FOOTER_BYTES);
+            int keyframes = footer.getInt(0);
+            this.lastTick = footer.getInt(4);
+            long indexOffset = footer.getLong(8);
+            if (footer.getInt(16) != ReplayRecorder.INDEX_MAGIC || keyframes < 1
+                    || indexOffset + (long) keyframes * 12 + ReplayRecorder.FOOTER_BYTES != size) {
+                throw new IOException("The replay has no keyframe index (the recording was not closed)");
+            }
+            ByteBuffer index = read(indexOffset, keyframes * 12);
+            this.keyframeTick = new int[keyframes];
+            this.keyframeOffset = new long[keyframes];
+            for (int i = 0; i < keyframes; i++) {
+                keyframeTick[i] = index.getInt(i * 12);
+                keyframeOffset[i] = index.getLong(i * 12 + 4);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The first tick that can be rebuilt (the tick recording started at)
+     *
+     * @return The tick of the first keyframe
+     */
+    public int getFirstTick() {
+        return keyframeTick[0];
+    }
+
+    /**
+     * The last tick that can be rebuilt
+     *
+     * @return The last tick recorded
+     */
+    public int getLastTick() {
+        return lastTick;
+    }
+
+    /**
+     * Number of ticks between keyframes
+     *
+     * @return The keyframe interval the replay was recorded with
+     */
+    public int getKeyframeTicks() {
+        return keyframeTicks;
+    }
+
+    /**
+     * Rebuild the world as it was after a tick
+     *
+     * @param tick The tick (getFirstTick() to getLastTick())
+     * @return The world at that tick
+     * @throws IOException If the replay cannot be read or the tick was not recorded
+     */
+    public World worldAt(int tick) throws IOException {
+        if (tick < getFirstTick() || tick > lastTick) {
+            throw new IOException("Tick " + tick + " was not recorded (ticks " + getFirstTick() + " to " + lastTick + " were)");
+        }
+        //The last keyframe at or before the tick
+        int low = 0;
+        int high = keyframeTick.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (keyframeTick[middle] <= tick) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        channel.position(keyframeOffset[low]);
+        //The stream is not closed, that would close the channel (it is closed by close())
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_BYTES));
+        if (input.readByte() != ReplayRecorder.KEYFRAME) {
+            throw new IOException("The replay index does not point at a keyframe");
+        }
+        World world = Checkpoint.readWorld(input);
+        while (world.getTick() < tick) {
+            applyTick(world, input);
+        }
+        return world;
+    }
+
+    /**
+     * Apply the recorded changes of the next tick
+     *
+     * @param world The world before the tick
+     * @param input The replay, positioned at the tick
+     * @throws IOException If the replay cannot be read or is not valid
+     */
+    private static void applyTick(World world, DataInputStream input) throws IOException {
+        while (true) {
+            byte kind = input.readByte();
+            switch (kind) {
+                case ReplayRecorder.MOVE:
+                    int moved = checkIndex(world, input.readInt());
+                    int direction = input.readByte();
+                    if (direction < 0 || direction >= Direction.values().length) {
+                        throw new IOException("Replay has an invalid direction " + direction + " at tick " + world.getTick());
+                    }
+                    world.replayMove(moved, Direction.values()[direction]);
+                    break;
+                case ReplayRecorder.DAMAGE:
+                    int damaged = checkIndex(world, input.readInt());
+                    world.replayDamage(damaged, input.readInt());
+                    break;
+                case ReplayRecorder.END_ACTIVE:
+                case ReplayRecorder.END_INACTIVE:
+                    world.replayEndTick(kind == ReplayRecorder.END_ACTIVE);
+                    return;
+                case ReplayRecorder.KEYFRAME:
+                    //A keyframe between ticks is the same world again, skip over it
+                    Checkpoint.readWorld(input);
+                    break;
+                default:
+                    throw new IOException("Replay has an unknown record " + kind + " at tick " + world.getTick());
+            }
+        }
+    }
+
+    /**
+     * Check that a recorded entity index is in the world
+     *
+     * @param world The world
+     * @param index The recorded index
+     * @return The index
+     * @throws IOException If the index is not in the world
+     */
+    private static int checkIndex(World world, int index) throws IOException {
+        if (index < 0 || index >= world.getEntityCount()) {
+            throw new IOException("Replay has an invalid entity index " + index + " at tick " + world.getTick());
+        }
+        return index;
+    }
+
+    /**
+     * Read bytes at a position of the file
+     *
+     * @param position The file offset
+     * @param length   The number of bytes
+     * @return The bytes read
+     * @throws IOException If they cannot be read
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("The replay ends early");
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Close the replay file
+     *
+     * @throws IOException If it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
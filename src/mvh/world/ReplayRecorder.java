@@ -0,0 +1,251 @@
+package mvh.world;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import mvh.enums.Direction;
+
+/**
+ * Records a simulation to a compact binary replay file that can be rebuilt at any tick without running the entity AI
+ * again (see ReplayReader). Each tick only stores what changed: every move (entity index and direction) and every
+ * damage roll that hurt (entity index and damage after armor, a death is when health reaches 0). A full keyframe of
+ * the World (in the Checkpoint format) is stored first and then every keyframeTicks ticks, and an index of where the
+ * keyframes are is written at the end, so a reader can jump to the keyframe nearest a tick and apply only the ticks
+ * after it. All values are big-endian.
+ * <p>
+ * Header: int magic "MVHR", int version, int keyframe ticks
+ * <p>
+ * Frames: byte KEYFRAME then a checkpoint, or the events of one tick (byte MOVE, int index, byte direction / byte
+ * DAMAGE, int index, int damage) ended by byte END_ACTIVE or END_INACTIVE (the state after the tick)
+ * <p>
+ * Footer: per keyframe int tick and long file offset, then int keyframe count, int last tick, long offset of the
+ * index, int magic "MVHI"
+ * <p>
+ * Write errors do not stop the simulation: recording stops and the error is thrown by close().
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class ReplayRecorder implements AutoCloseable {
+
+    /**
+     * The first four bytes of every replay file ("MVHR")
+     */
+    static final int MAGIC = 0x4D564852;
+    /**
+     * The last four bytes of a replay file that was closed properly ("MVHI")
+     */
+    static final int INDEX_MAGIC = 0x4D564849;
+    /**
+     * The version of the format written
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the footer after the keyframe entries: count, last tick, index offset, magic
+     */
+    static final int FOOTER_BYTES = 20;
+    /**
+     * Frame: a keyframe of the world follows
+     */
+    static final byte KEYFRAME = 1;
+    /**
+     * Event: an entity moved
+     */
+    static final byte MOVE = 2;
+    /**
+     * Event: an entity was damaged
+     */
+    static final byte DAMAGE = 3;
+    /**
+     * End of a tick, after which the simulation was still ACTIVE
+     */
+    static final byte END_ACTIVE = 4;
+    /**
+     * End of a tick, after which the simulation was INACTIVE
+     */
+    static final byte END_INACTIVE = 5;
+    /**
+     * Size of the buffer the replay is written through
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * The replay file
+     */
+    private final FileOutputStream stream;
+    /**
+     * Buffered big-endian writer into the replay file
+     */
+    private final DataOutputStream output;
+    /**
+     * A keyframe is stored every this many ticks
+     */
+    private final int keyframeTicks;
+    /**
+     * Tick of each keyframe stored
+     */
+    private int[] keyframeTick = new int[16];
+    /**
+     * File offset of each keyframe stored
+     */
+    private long[] keyframeOffset = new long[16];
+    /**
+     * Number of keyframes stored
+     */
+    private int keyframes;
+    /**
+     * The last tick recorded
+     */
+    private int lastTick;
+    /**
+     * The first error writing the replay (recording stops after it)
+     */
+    private IOException failure;
+    /**
+     * Has close() been called
+     */
+    private boolean closed;
+
+    /**
+     * Create a replay file (start recording by giving it to World.setRecorder)
+     *
+     * @param file          The replay file to write (replaced if it exists)
+     * @param keyframeTicks Store a full keyframe every this many ticks (> 0)
+     * @throws IOException If the file cannot be created
+     */
+    public ReplayRecorder(File file, int keyframeTicks) throws IOException {
+        if (keyframeTicks < 1) {
+            throw new IllegalArgumentException("Keyframes must be at least 1 tick apart, value given was " + keyframeTicks + "!");
+        }
+        this.keyframeTicks = keyframeTicks;
+        this.stream = new FileOutputStream(file);
+        this.output = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_BYTES));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(keyframeTicks);
+    }
+
+    /**
+     * Start recording a world: store a keyframe of it as it is now
+     *
+     * @param world The world being recorded
+     * @throws IOException If the keyframe cannot be written
+     */
+    void start(World world) throws IOException {
+        if (closed) {
+            throw new IOException("The replay has already been closed");
+        }
+        keyframe(world);
+    }
+
+    /**
+     * Record a move
+     *
+     * @param index The index of the entity that moved
+     * @param d     The direction it moved
+     */
+    void move(int index, Direction d) {
+        if (failure == null) {
+            try {
+                output.writeByte(MOVE);
+                output.writeInt(index);
+                output.writeByte(d.ordinal());
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Record damage taken
+     *
+     * @param index  The index of the entity damaged
+     * @param damage The damage after armor (> 0)
+     */
+    void damage(int index, int damage) {
+        if (failure == null) {
+            try {
+                output.writeByte(DAMAGE);
+                output.writeInt(index);
+                output.writeInt(damage);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Record the end of a tick, with a keyframe if one is due
+     *
+     * @param world The world after the tick
+     */
+    void endTick(World world) {
+        if (failure == null) {
+            try {
+                output.writeByte(world.isActive() ? END_ACTIVE : END_INACTIVE);
+                lastTick = world.getTick();
+                if (lastTick % keyframeTicks == 0) {
+                    keyframe(world);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Store a keyframe of the world and remember where it is
+     *
+     * @param world The world to store
+     * @throws IOException If it cannot be written
+     */
+    private void keyframe(World world) throws IOException {
+        //Flush so the position of the file is where the keyframe starts
+        output.flush();
+        if (keyframes == keyframeTick.length) {
+            keyframeTick = Arrays.copyOf(keyframeTick, keyframes * 2);
+            keyframeOffset = Arrays.copyOf(keyframeOffset, keyframes * 2);
+        }
+        keyframeTick[keyframes] = world.getTick();
+        keyframeOffset[keyframes] = stream.getChannel().position();
+        keyframes++;
+        lastTick = world.getTick();
+        output.writeByte(KEYFRAME);
+        Checkpoint.writeWorld(world, output);
+    }
+
+    /**
+     * Write the keyframe index and close the replay file (call World.setRecorder(null) first if the world carries on)
+     *
+     * @throws IOException If the replay could not be written, now or during recording
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (failure == null) {
+                output.flush();
+                long indexOffset = stream.getChannel().position();
+                for (int i = 0; i < keyframes; i++) {
+                    output.writeInt(keyframeTick[i]);
+                    output.writeLong(keyframeOffset[i]);
+                }
+                output.writeInt(keyframes);
+                output.writeInt(lastTick);
+                output.writeLong(indexOffset);
+                output.writeInt(INDEX_MAGIC);
+                output.flush();
+            }
+        } finally {
+            output.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package mvh.world;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder event of one World.advanceSimulation, so a recording shows the simulation's ticks next to GC
+ * and CPU samples. Only ticks taking at least the threshold are recorded (SLOW_TICK unless the recording sets
+ * mvh.Tick#threshold), so the event can stay on in an always-on recording and catch just the outliers.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+@Name("mvh.Tick")
+@Label("Tick")
+@Category("Monsters vs Heroes")
+@Description("One tick of the simulation (World.advanceSimulation)")
+@StackTrace(false)
+@Threshold(TickEvent.SLOW_TICK)
+public final class TickEvent extends jdk.jfr.Event {
+
+    /**
+     * Ticks shorter than this are not recorded unless the recording sets another threshold
+     */
+    public static final String SLOW_TICK = "10 ms";
+
+    /**
+     * The number of the tick (the world's tick count before it)
+     */
+    @Label("Tick")
+    int tick;
+
+    /**
+     * Heroes and monsters ALIVE at the end of the tick
+     */
+    @Label("Live Entities")
+    int liveEntities;
+}
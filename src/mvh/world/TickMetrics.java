@@ -0,0 +1,547 @@
+package mvh.world;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import mvh.enums.Phase;
+import mvh.util.LatencyHistogram;
+
+/**
+ * Measures where the time of a simulation goes, tick by tick: how long each tick takes (a LatencyHistogram of
+ * World.advanceSimulation), how long each Phase takes, how many attacks, moves, blocked moves and deaths there are,
+ * and how many bytes the simulating thread allocates. A World only measures once given one (see World.setMetrics),
+ * so a simulation without metrics does no timing or counting at all. Recording never allocates.
+ * <p>
+ * The figures can be read over JMX (register makes this the MBean mvh:type=TickMetrics) or written to a plain text
+ * file of "name value" lines for scripts to scrape (see write). The simulation records into the current tick on its
+ * own thread and publishes the tick at its end, so readers on other threads always see whole ticks.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class TickMetrics implements TickMetricsMBean {
+
+    /**
+     * The name this is registered under over JMX
+     */
+    public static final String OBJECT_NAME = "mvh:type=TickMetrics";
+
+    /**
+     * Measures the bytes each thread allocates (null if this JVM cannot)
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    /**
+     * Nanoseconds in a microsecond
+     */
+    private static final double MICROS = 1e3;
+    /**
+     * Nanoseconds in a millisecond
+     */
+    private static final double MILLIS = 1e6;
+
+    /**
+     * Time of each tick in nanoseconds
+     */
+    private final LatencyHistogram tickNanos = new LatencyHistogram();
+    /**
+     * Total time of each Phase in nanoseconds
+     */
+    private final long[] phaseNanos = new long[Phase.values().length];
+    /**
+     * Time of each Phase in the current tick in nanoseconds
+     */
+    private final long[] currentNanos = new long[Phase.values().length];
+    /**
+     * When the current tick started (System.nanoTime)
+     */
+    private long tickStart;
+    /**
+     * Bytes the simulating thread had allocated when the current tick started
+     */
+    private long allocatedStart;
+    /**
+     * Attacks, moves, blocked moves and deaths of the current tick
+     */
+    private int attacks, moves, blocked, deaths;
+    /**
+     * Attacks, moves, blocked moves and deaths of the last tick
+     */
+    private int lastAttacks, lastMoves, lastBlocked, lastDeaths;
+    /**
+     * Total attacks, moves, blocked moves and deaths
+     */
+    private long totalAttacks, totalMoves, totalBlocked, totalDeaths;
+    /**
+     * Bytes allocated in the last tick
+     */
+    private long lastAllocated;
+    /**
+     * Total bytes allocated
+     */
+    private long totalAllocated;
+
+    /**
+     * The bean measuring allocated bytes, if this JVM has one
+     *
+     * @return The bean, null if allocations cannot be measured
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+                return allocations;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Bytes allocated so far by the calling thread
+     *
+     * @return The bytes, -1 if they cannot be measured
+     */
+    private static long allocated() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Make these metrics the MBean mvh:type=TickMetrics of this JVM (replacing any registered before)
+     *
+     * @throws JMException If it cannot be registered
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    /**
+     * A tick is starting (called by World.advanceSimulation)
+     */
+    void startTick() {
+        attacks = 0;
+        moves = 0;
+        blocked = 0;
+        deaths = 0;
+        for (int phase = 0; phase < currentNanos.length; phase++) {
+            currentNanos[phase] = 0;
+        }
+        allocatedStart = allocated();
+        tickStart = System.nanoTime();
+    }
+
+    /**
+     * Add time to a phase of the current tick
+     *
+     * @param phase The phase
+     * @param nanos The time in nanoseconds
+     */
+    void addTime(Phase phase, long nanos) {
+        currentNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Count an attack of the current tick
+     */
+    void attacked() {
+        attacks++;
+    }
+
+    /**
+     * Count a move of the current tick
+     *
+     * @param moved Was the move made (otherwise it was blocked)
+     */
+    void moved(boolean moved) {
+        if (moved) {
+            moves++;
+        } else {
+            blocked++;
+        }
+    }
+
+    /**
+     * Count a death of the current tick
+     */
+    void died() {
+        deaths++;
+    }
+
+    /**
+     * The current tick has ended, publish it
+     */
+    void endTick() {
+        long nanos = System.nanoTime() - tickStart;
+        long allocatedEnd = allocated();
+        synchronized (this) {
+            tickNanos.record(nanos);
+            for (int phase = 0; phase < phaseNanos.length; phase++) {
+                phaseNanos[phase] += currentNanos[phase];
+            }
+            lastAttacks = attacks;
+            lastMoves = moves;
+            lastBlocked = blocked;
+            lastDeaths = deaths;
+            totalAttacks += attacks;
+            totalMoves += moves;
+            totalBlocked += blocked;
+            totalDeaths += deaths;
+            lastAllocated = allocatedStart < 0 ? -1 : allocatedEnd - allocatedStart;
+            totalAllocated = allocatedStart < 0 ? -1 : totalAllocated + lastAllocated;
+        }
+    }
+
+    /**
+     * Add time spent outside World.advanceSimulation to a phase (Phase.RENDER and Phase.LOG, timed by whoever shows
+     * the world)
+     *
+     * @param phase The phase
+     * @param nanos The time in nanoseconds
+     */
+    public synchronized void addPhaseTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Total time of a phase
+     *
+     * @param phase The phase
+     * @return The total in nanoseconds
+     */
+    public synchronized long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Write every figure to a text file of "name value" lines, atomically replacing the file if it already exists
+     *
+     * @param file The file
+     * @throws IOException If it cannot be written
+     */
+    public void write(File file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        synchronized (this) {
+            line(text, "ticks", tickNanos.getCount());
+            line(text, "tick_mean_us", tickNanos.getMean() / MICROS);
+            line(text, "tick_p50_us", tickNanos.getPercentile(50) / MICROS);
+            line(text, "tick_p90_us", tickNanos.getPercentile(90) / MICROS);
+            line(text, "tick_p99_us", tickNanos.getPercentile(99) / MICROS);
+            line(text, "tick_p999_us", tickNanos.getPercentile(99.9) / MICROS);
+            line(text, "tick_max_us", tickNanos.getMax() / MICROS);
+            for (Phase phase : Phase.values()) {
+                line(text, "phase_" + phase.name().toLowerCase() + "_ms", phaseNanos[phase.ordinal()] / MILLIS);
+            }
+            line(text, "attacks", totalAttacks);
+            line(text, "moves", totalMoves);
+            line(text, "blocked_moves", totalBlocked);
+            line(text, "deaths", totalDeaths);
+            line(text, "last_tick_attacks", lastAttacks);
+            line(text, "last_tick_moves", lastMoves);
+            line(text, "last_tick_blocked_moves", lastBlocked);
+            line(text, "last_tick_deaths", lastDeaths);
+            line(text, "allocated_bytes", totalAllocated);
+            line(text, "last_tick_allocated_bytes", lastAllocated);
+        }
+        File absolute = file.getAbsoluteFile();
+        File temporary = new File(absolute.getParentFile(), absolute.getName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary)) {
+            stream.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+        //Scrapers never see a half written file
+        try {
+            Files.move(temporary.toPath(), absolute.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), absolute.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Add a "name value" line
+     *
+     * @param text  The text to add to
+     * @param name  The name of the figure
+     * @param value The value
+     */
+    private static void line(StringBuilder text, String name, long value) {
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Add a "name value" line
+     *
+     * @param text  The text to add to
+     * @param name  The name of the figure
+     * @param value The value (written with 3 decimals and a '.' whatever the default locale)
+     */
+    private static void line(StringBuilder text, String name, double value) {
+        text.append(name).append(' ').append(String.format(Locale.ROOT, "%.3f", value)).append('\n');
+    }
+
+    /**
+     * Number of ticks measured
+     *
+     * @return The number of ticks
+     */
+    @Override
+    public synchronized long getTicks() {
+        return tickNanos.getCount();
+    }
+
+    /**
+     * Average time of a tick (World.advanceSimulation)
+     *
+     * @return The mean in microseconds
+     */
+    @Override
+    public synchronized double getTickMeanMicros() {
+        return tickNanos.getMean() / MICROS;
+    }
+
+    /**
+     * Median time of a tick
+     *
+     * @return The 50th percentile in microseconds
+     */
+    @Override
+    public synchronized double getTickP50Micros() {
+        return tickNanos.getPercentile(50) / MICROS;
+    }
+
+    /**
+     * Time 90% of ticks are at or below
+     *
+     * @return The 90th percentile in microseconds
+     */
+    @Override
+    public synchronized double getTickP90Micros() {
+        return tickNanos.getPercentile(90) / MICROS;
+    }
+
+    /**
+     * Time 99% of ticks are at or below
+     *
+     * @return The 99th percentile in microseconds
+     */
+    @Override
+    public synchronized double getTickP99Micros() {
+        return tickNanos.getPercentile(99) / MICROS;
+    }
+
+    /**
+     * Time 99.9% of ticks are at or below
+     *
+     * @return The 99.9th percentile in microseconds
+     */
+    @Override
+    public synchronized double getTickP999Micros() {
+        return tickNanos.getPercentile(99.9) / MICROS;
+    }
+
+    /**
+     * Longest tick
+     *
+     * @return The longest tick in microseconds
+     */
+    @Override
+    public synchronized double getTickMaxMicros() {
+        return tickNanos.getMax() / MICROS;
+    }
+
+    /**
+     * Time spent deciding (see Phase.DECIDE)
+     *
+     * @return The total in milliseconds
+     */
+    @Override
+    public double getDecideMillis() {
+        return getPhaseNanos(Phase.DECIDE) / MILLIS;
+    }
+
+    /**
+     * Time spent moving (see Phase.MOVE)
+     *
+     * @return The total in milliseconds
+     */
+    @Override
+    public double getMoveMillis() {
+        return getPhaseNanos(Phase.MOVE) / MILLIS;
+    }
+
+    /**
+     * Time spent attacking (see Phase.ATTACK)
+     *
+     * @return The total in milliseconds
+     */
+    @Override
+    public double getAttackMillis() {
+        return getPhaseNanos(Phase.ATTACK) / MILLIS;
+    }
+
+    /**
+     * Time spent on the end of tick check (see Phase.CHECK)
+     *
+     * @return The total in milliseconds
+     */
+    @Override
+    public double getCheckMillis() {
+        return getPhaseNanos(Phase.CHECK) / MILLIS;
+    }
+
+    /**
+     * Time spent rendering the world (see Phase.RENDER)
+     *
+     * @return The total in milliseconds
+     */
+    @Override
+    public double getRenderMillis() {
+        return getPhaseNanos(Phase.RENDER) / MILLIS;
+    }
+
+    /**
+     * Time spent logging the world (see Phase.LOG)
+     *
+     * @return The total in milliseconds
+     */
+    @Override
+    public double getLogMillis() {
+        return getPhaseNanos(Phase.LOG) / MILLIS;
+    }
+
+    /**
+     * Number of attacks made
+     *
+     * @return The total
+     */
+    @Override
+    public synchronized long getAttacks() {
+        return totalAttacks;
+    }
+
+    /**
+     * Number of moves made
+     *
+     * @return The total
+     */
+    @Override
+    public synchronized long getMoves() {
+        return totalMoves;
+    }
+
+    /**
+     * Number of moves that could not be made (something was in the way)
+     *
+     * @return The total
+     */
+    @Override
+    public synchronized long getBlockedMoves() {
+        return totalBlocked;
+    }
+
+    /**
+     * Number of entities killed
+     *
+     * @return The total
+     */
+    @Override
+    public synchronized long getDeaths() {
+        return totalDeaths;
+    }
+
+    /**
+     * Number of attacks made in the last tick
+     *
+     * @return The count
+     */
+    @Override
+    public synchronized int getLastTickAttacks() {
+        return lastAttacks;
+    }
+
+    /**
+     * Number of moves made in the last tick
+     *
+     * @return The count
+     */
+    @Override
+    public synchronized int getLastTickMoves() {
+        return lastMoves;
+    }
+
+    /**
+     * Number of moves that could not be made in the last tick
+     *
+     * @return The count
+     */
+    @Override
+    public synchronized int getLastTickBlockedMoves() {
+        return lastBlocked;
+    }
+
+    /**
+     * Number of entities killed in the last tick
+     *
+     * @return The count
+     */
+    @Override
+    public synchronized int getLastTickDeaths() {
+        return lastDeaths;
+    }
+
+    /**
+     * Bytes allocated by the simulating thread while ticking (the worker threads of a parallel SIMULTANEOUS decide
+     * phase are not counted)
+     *
+     * @return The total, -1 if the JVM cannot measure it
+     */
+    @Override
+    public synchronized long getAllocatedBytes() {
+        return totalAllocated;
+    }
+
+    /**
+     * Bytes allocated by the simulating thread in the last tick
+     *
+     * @return The count, -1 if the JVM cannot measure it
+     */
+    @Override
+    public synchronized long getLastTickAllocatedBytes() {
+        return lastAllocated;
+    }
+
+    /**
+     * Forget everything measured so far
+     */
+    @Override
+    public synchronized void reset() {
+        tickNanos.reset();
+        for (int phase = 0; phase < phaseNanos.length; phase++) {
+            phaseNanos[phase] = 0;
+        }
+        lastAttacks = 0;
+        lastMoves = 0;
+        lastBlocked = 0;
+        lastDeaths = 0;
+        totalAttacks = 0;
+        totalMoves = 0;
+        totalBlocked = 0;
+        totalDeaths = 0;
+        lastAllocated = 0;
+        totalAllocated = 0;
+    }
+}
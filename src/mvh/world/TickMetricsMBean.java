@@ -0,0 +1,176 @@
+package mvh.world;
+
+/**
+ * What TickMetrics shows over JMX (as the MBean mvh:type=TickMetrics, see TickMetrics.register). Times are totals
+ * since the metrics were created or reset unless they say they are of the last tick.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public interface TickMetricsMBean {
+
+    /**
+     * Number of ticks measured
+     *
+     * @return The number of ticks
+     */
+    long getTicks();
+
+    /**
+     * Average time of a tick (World.advanceSimulation)
+     *
+     * @return The mean in microseconds
+     */
+    double getTickMeanMicros();
+
+    /**
+     * Median time of a tick
+     *
+     * @return The 50th percentile in microseconds
+     */
+    double getTickP50Micros();
+
+    /**
+     * Time 90% of ticks are at or below
+     *
+     * @return The 90th percentile in microseconds
+     */
+    double getTickP90Micros();
+
+    /**
+     * Time 99% of ticks are at or below
+     *
+     * @return The 99th percentile in microseconds
+     */
+    double getTickP99Micros();
+
+    /**
+     * Time 99.9% of ticks are at or below
+     *
+     * @return The 99.9th percentile in microseconds
+     */
+    double getTickP999Micros();
+
+    /**
+     * Longest tick
+     *
+     * @return The longest tick in microseconds
+     */
+    double getTickMaxMicros();
+
+    /**
+     * Time spent deciding (see Phase.DECIDE)
+     *
+     * @return The total in milliseconds
+     */
+    double getDecideMillis();
+
+    /**
+     * Time spent moving (see Phase.MOVE)
+     *
+     * @return The total in milliseconds
+     */
+    double getMoveMillis();
+
+    /**
+     * Time spent attacking (see Phase.ATTACK)
+     *
+     * @return The total in milliseconds
+     */
+    double getAttackMillis();
+
+    /**
+     * Time spent on the end of tick check (see Phase.CHECK)
+     *
+     * @return The total in milliseconds
+     */
+    double getCheckMillis();
+
+    /**
+     * Time spent rendering the world (see Phase.RENDER)
+     *
+     * @return The total in milliseconds
+     */
+    double getRenderMillis();
+
+    /**
+     * Time spent logging the world (see Phase.LOG)
+     *
+     * @return The total in milliseconds
+     */
+    double getLogMillis();
+
+    /**
+     * Number of attacks made
+     *
+     * @return The total
+     */
+    long getAttacks();
+
+    /**
+     * Number of moves made
+     *
+     * @return The total
+     */
+    long getMoves();
+
+    /**
+     * Number of moves that could not be made (something was in the way)
+     *
+     * @return The total
+     */
+    long getBlockedMoves();
+
+    /**
+     * Number of entities killed
+     *
+     * @return The total
+     */
+    long getDeaths();
+
+    /**
+     * Number of attacks made in the last tick
+     *
+     * @return The count
+     */
+    int getLastTickAttacks();
+
+    /**
+     * Number of moves made in the last tick
+     *
+     * @return The count
+     */
+    int getLastTickMoves();
+
+    /**
+     * Number of moves that could not be made in the last tick
+     *
+     * @return The count
+     */
+    int getLastTickBlockedMoves();
+
+    /**
+     * Number of entities killed in the last tick
+     *
+     * @return The count
+     */
+    int getLastTickDeaths();
+
+    /**
+     * Bytes allocated by the simulating thread while ticking
+     *
+     * @return The total, -1 if the JVM cannot measure it
+     */
+    long getAllocatedBytes();
+
+    /**
+     * Bytes allocated by the simulating thread in the last tick
+     *
+     * @return The count, -1 if the JVM cannot measure it
+     */
+    long getLastTickAllocatedBytes();
+
+    /**
+     * Forget everything measured so far
+     */
+    void reset();
+}
@@ -0,0 +1,219 @@
+package mvh.world;
+
+import mvh.enums.Direction;
+
+/**
+ * The scans heroes and monsters use to find an enemy in a local view of any odd size (up to MAX_SIZE). Each row of
+ * the view is read once as bits (see LocalView.aliveHeroBits), and the nearest enemy of a row is found with a few
+ * masks, so a decision costs one pass over the rows of the view rather than one look at every location.
+ * <p>
+ * Enemies are taken nearest first (the number of steps to them, moving diagonally too), and between enemies equally
+ * far in scan order: a hero scans rows top to bottom and columns left to right, a monster bottom to top and right to
+ * left. With the 3x3 attack and 5x5 move views every enemy a view can hold is equally far, so this is the same plain
+ * scan order heroes and monsters have always used.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+final class Vision {
+
+    /**
+     * Largest view a scan can handle (a row of the view has to fit in a long)
+     */
+    static final int MAX_SIZE = Occupancy.MAX_LENGTH;
+    /**
+     * Every direction (Direction.values() copies its array on each call)
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private Vision() {
+    }
+
+    /**
+     * Find where to attack: the nearest ALIVE enemy in a straight line (one of the 8 directions) from the center of
+     * the view, with only floor or DEAD entities in between. In a 3x3 view this is any neighbouring enemy.
+     *
+     * @param local      The view, centered on the attacker
+     * @param huntHeroes Are the enemies heroes (otherwise monsters)
+     * @param reverse    Scan from the last row and column (monsters) instead of the first (heroes)
+     * @return The direction of the enemy, null if none can be attacked
+     */
+    static Direction attackWhere(LocalView local, boolean huntHeroes, boolean reverse) {
+        int size = local.getSize();
+        int center = size / 2;
+        Direction attackWhere = null;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestRow = 0;
+        int bestColumn = 0;
+        for (Direction direction : DIRECTIONS) {
+            if (direction == Direction.STAY) {
+                continue;
+            }
+            // walk out from the center until something blocks the line (or the view ends)
+            for (int distance = 1; distance <= center && distance <= bestDistance; distance++) {
+                int row = center + distance * direction.getRowChange();
+                int column = center + distance * direction.getColumnChange();
+                if (local.canMoveOnTopOf(row, column)) {
+                    continue;
+                }
+                if ((enemies(local, huntHeroes, row, size) & (1L << column)) != 0
+                        && (distance < bestDistance || before(row, column, bestRow, bestColumn, reverse))) {
+                    attackWhere = direction;
+                    bestDistance = distance;
+                    bestRow = row;
+                    bestColumn = column;
+                }
+                break;
+            }
+        }
+        return attackWhere;
+    }
+
+    /**
+     * Find where to move to close in on an enemy: the first enemy (nearest, then in scan order) that one of the three
+     * steps towards it (Direction.getDirections) is free for, leaving out enemies next to the center (those are
+     * attacked instead)
+     *
+     * @param local      The view, centered on the mover
+     * @param huntHeroes Are the enemies heroes (otherwise monsters)
+     * @param reverse    Scan from the last row and column (monsters) instead of the first (heroes)
+     * @return The direction to step in, null if no enemy can be closed in on
+     */
+    static Direction chase(LocalView local, boolean huntHeroes, boolean reverse) {
+        int size = local.getSize();
+        int center = size / 2;
+        long[] enemies = local.scratchRows(size);
+        for (int row = 0; row < size; row++) {
+            enemies[row] = enemies(local, huntHeroes, row, size);
+        }
+        for (int row = center - 1; row <= center + 1; row++) {
+            enemies[row] &= ~span(center - 1, center + 1);
+        }
+        while (true) {
+            int bestDistance = Integer.MAX_VALUE;
+            int bestRow = -1;
+            int bestColumn = -1;
+            for (int i = 0; i < size; i++) {
+                int row = reverse ? size - 1 - i : i;
+                long bits = enemies[row];
+                int rowDistance = Math.abs(row - center);
+                if (bits == 0 || rowDistance >= bestDistance) {
+                    continue;
+                }
+                // an enemy within rowDistance columns of the center is rowDistance away, further out its column decides
+                long inner = bits & span(center - rowDistance, center + rowDistance);
+                int column;
+                int distance;
+                if (inner != 0) {
+                    column = reverse ? highest(inner) : Long.numberOfTrailingZeros(inner);
+                    distance = rowDistance;
+                } else {
+                    long left = bits & span(0, center - rowDistance - 1);
+                    long right = bits & ~span(0, center + rowDistance);
+                    int leftDistance = left != 0 ? center - highest(left) : Integer.MAX_VALUE;
+                    int rightDistance = right != 0 ? Long.numberOfTrailingZeros(right) - center : Integer.MAX_VALUE;
+                    if (leftDistance < rightDistance || (leftDistance == rightDistance && !reverse)) {
+                        column = center - leftDistance;
+                        distance = leftDistance;
+                    } else {
+                        column = center + rightDistance;
+                        distance = rightDistance;
+                    }
+                }
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestRow = row;
+                    bestColumn = column;
+                }
+            }
+            if (bestRow < 0) {
+                return null;
+            }
+            int rowChange = bestRow - center;
+            int columnChange = bestColumn - center;
+            for (Direction direction : Direction.getDirections(rowChange, columnChange)) {
+                if (local.canMoveOnTopOf(center, center, direction)) {
+                    return direction;
+                }
+            }
+            // every enemy in the same direction has the same three steps, so none of them can be closed in on either
+            for (int row = 0; row < size; row++) {
+                if (Integer.signum(row - center) == Integer.signum(rowChange)) {
+                    enemies[row] &= ~sideColumns(center, size, Integer.signum(columnChange));
+                }
+            }
+        }
+    }
+
+    /**
+     * The enemies in a row of a view as bits
+     *
+     * @param local      The view
+     * @param huntHeroes Are the enemies heroes (otherwise monsters)
+     * @param row        The row of the view
+     * @param size       The width of the view
+     * @return Bit i set if the location at column i holds an ALIVE enemy
+     */
+    private static long enemies(LocalView local, boolean huntHeroes, int row, int size) {
+        return huntHeroes ? local.aliveHeroBits(row, size) : local.aliveMonsterBits(row, size);
+    }
+
+    /**
+     * Is a location earlier in scan order than another
+     *
+     * @param row        The row of the location
+     * @param column     The column of the location
+     * @param bestRow    The row of the other location
+     * @param bestColumn The column of the other location
+     * @param reverse    Is the scan from the last row and column
+     * @return True if the location is scanned first
+     */
+    private static boolean before(int row, int column, int bestRow, int bestColumn, boolean reverse) {
+        if (row != bestRow) {
+            return reverse ? row > bestRow : row < bestRow;
+        }
+        return reverse ? column > bestColumn : column < bestColumn;
+    }
+
+    /**
+     * Bits of the columns left of (side -1), at (side 0) or right of (side 1) the center of a view
+     *
+     * @param center The center column
+     * @param size   The width of the view
+     * @param side   Which side
+     * @return The bits of those columns
+     */
+    private static long sideColumns(int center, int size, int side) {
+        if (side < 0) {
+            return span(0, center - 1);
+        }
+        return side == 0 ? 1L << center : span(center + 1, size - 1);
+    }
+
+    /**
+     * Bits of a run of columns
+     *
+     * @param first The first column (may be below 0, those columns are left out)
+     * @param last  The last column (less than 63)
+     * @return The bits of columns first to last, 0 if last is before first
+     */
+    private static long span(int first, int last) {
+        first = Math.max(first, 0);
+        if (last < first) {
+            return 0;
+        }
+        return ((1L << (last - first + 1)) - 1) << first;
+    }
+
+    /**
+     * The highest set bit
+     *
+     * @param bits Bits with at least one set
+     * @return The index of the highest set bit
+     */
+    private static int highest(long bits) {
+        return 63 - Long.numberOfLeadingZeros(bits);
+    }
+}
@@ -34,6 +34,16 @@ public final class Wall extends Entity {
         return wall;
     }
 
+    /**
+     * There is only one wall, so a copy is the same wall
+     *
+     * @return The one single Wall
+     */
+    @Override
+    public Wall copy() {
+        return wall;
+    }
+
     /**
      * Has no strength as it can't attack
      *
@@ -61,7 +71,7 @@ public final class Wall extends Entity {
      * @return null
      */
     @Override
-    public Direction chooseMove(World local) {
+    public Direction chooseMove(LocalView local) {
         return null;
     }
 
@@ -72,7 +82,7 @@ public final class Wall extends Entity {
      * @return null
      */
     @Override
-    public Direction attackWhere(World local) {
+    public Direction attackWhere(LocalView local) {
         return null;
     }
 
@@ -1,21 +1,33 @@
 package mvh.world;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
 import mvh.Main;
 import mvh.Menu;
 import mvh.enums.Direction;
+import mvh.enums.LogLevel;
+import mvh.enums.Outcome;
+import mvh.enums.Phase;
+import mvh.enums.RandomMode;
+import mvh.enums.RandomPurpose;
+import mvh.enums.TickMode;
 import mvh.enums.Symbol;
+import mvh.enums.WeaponType;
+import mvh.util.StreamRandom;
 
 /**
  * A World is a 2D grid of entities, null Spots are floor spots
+ * The values of every entity live in the World's EntityStore and the map only holds their indexes, an Entity object is
+ * a view of one entity that is made when something asks for it (getEntity)
  * @author Ryan Loi
  * @author Jonathan Hudson
  * @date (dd / mm / yr): 28/02/22
  * @tutorial TO5 - Anika Achari
  * @version 1.0
  */
-public class World {
+public class World implements LocalView {
 
     /**
      * World starts ACTIVE, but will turn INACTIVE after a simulation ends with only one type of Entity still ALIVE
@@ -29,136 +41,1074 @@ public class World {
      */
     private State state;
     /**
-     * The storage of entities in World, floor is null, Dead entities can be moved on top of (deleting them essentially from the map)
+     * Number of times the simulation has been advanced
      */
-    private final Entity[][] world;
+    private int tick;
+    /**
+     * The random number generator of this world (null uses the program-wide Main.random)
+     */
+    private Random random;
+    /**
+     * How random numbers are drawn (one shared generator, or a stream per tick, entity and purpose)
+     */
+    private RandomMode randomMode = RandomMode.COMPATIBLE;
+    /**
+     * The seed every stream is derived from in RandomMode.STREAMS
+     */
+    private long seed;
+    /**
+     * Stream restarted for every damage roll in RandomMode.STREAMS (created on first use)
+     */
+    private StreamRandom damageRandom;
+    /**
+     * How entities take their turns each tick
+     */
+    private TickMode tickMode = TickMode.SEQUENTIAL;
+    /**
+     * Direction each entity decided on in the decide phase of a SIMULTANEOUS tick (null if no decision)
+     */
+    private Direction[] decisions;
+    /**
+     * Is the decision of each entity an attack (otherwise it is a move)
+     */
+    private boolean[] attacking;
+    /**
+     * Packed location each attacking entity decided from (kept as the attacker may be killed before its attack resolves)
+     */
+    private long[] attackFrom;
+    /**
+     * How far along its direction each attacking entity's target was when it decided (see attackDistance)
+     */
+    private int[] attackDistances;
+    /**
+     * The storage of entities in World, floor is Grid.FLOOR, walls Grid.WALL and entities their index in entities + 1,
+     * Dead entities can be moved on top of (deleting them essentially from the map)
+     * This is a dense 2D array for normal maps and a sparse grid of chunks for huge ones
+     */
+    private final Grid world;
     /**
      * We track the order that entities were added (this is used to determine order of actions each turn)
-     * Entities remain in this list (Even if DEAD) ,unlike the world Entity[][] where they can be moved on top of causing deletion.
+     * Entities remain in this store (Even if DEAD) ,unlike the world grid where they can be moved on top of causing deletion.
+     * The store keeps each entity's health, state, faction, strengths, symbol and ID in parallel arrays
+     */
+    private final EntityStore entities;
+    /**
+     * Bitboards of where the ALIVE heroes and monsters are and what cannot be moved on top of, kept up to date on
+     * every add, move and death (null for sparse maps, which can be far too big for them)
+     */
+    private final Occupancy occupancy;
+    /**
+     * We track entity location in world as {row, column} packed into one long, indexed by the entity's dense index
+     * (its position in entities). We will update this every time an Entity is shifted in the world grid
+     * DEAD entities have their location cleared to NO_LOCATION
+     */
+    private long[] locations;
+
+    /**
+     * Location stored for entities that are no longer on the map (DEAD)
+     */
+    private static final long NO_LOCATION = -1L;
+    /**
+     * Index placeEntity takes for a wall
+     */
+    static final int WALL_INDEX = -1;
+    /**
+     * Starting capacity of the location array (it doubles when full)
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The local view of world will be 3x3 grid for attacking unless set otherwise
+     */
+    private static final int ATTACK_WORLD_SIZE = 3;
+    /**
+     * The local view of world will be 5x5 grid for moving unless set otherwise
+     */
+    private static final int MOVE_WORLD_SIZE = 5;
+    /**
+     * Size of the attack view of each faction (indexed by EntityStore.HERO/MONSTER, see setVision)
+     */
+    private final int[] attackSizes = {ATTACK_WORLD_SIZE, ATTACK_WORLD_SIZE, ATTACK_WORLD_SIZE};
+    /**
+     * Size of the move view of each faction (indexed by EntityStore.HERO/MONSTER, see setVision)
+     */
+    private final int[] moveSizes = {MOVE_WORLD_SIZE, MOVE_WORLD_SIZE, MOVE_WORLD_SIZE};
+    /**
+     * Re-usable window of each faction into this world handed to entities deciding where to attack (created on first
+     * use)
+     */
+    private LocalWindow[] attackWindows;
+    /**
+     * Re-usable window of each faction into this world handed to entities deciding where to move (created on first
+     * use)
+     */
+    private LocalWindow[] moveWindows;
+    /**
+     * Re-usable view of each faction that entities decide with in turn (created with the windows, see
+     * EntityStore.actor)
+     */
+    private Entity[] actors;
+    /**
+     * Records the changes of every tick to a replay file (null if not recording)
+     */
+    private ReplayRecorder recorder;
+    /**
+     * Measures the time and actions of every tick (null if not measuring, see setMetrics)
+     */
+    private TickMetrics metrics;
+    /**
+     * Ticks between recomputing the pursuit flow fields (0 if pursuit is off, see setPursuit)
+     */
+    private int pursuitTicks;
+    /**
+     * Tick the pursuit flow fields were last computed at
+     */
+    private int pursuitTick;
+    /**
+     * Flow field heroes follow towards the nearest ALIVE monster (null until first computed)
+     */
+    private FlowField heroFlow;
+    /**
+     * Flow field monsters follow towards the nearest ALIVE hero (null until first computed)
+     */
+    private FlowField monsterFlow;
+    /**
+     * Scratch space for the flow field searches (their targets and queue)
+     */
+    private int[] pursuitTargets, pursuitQueue;
+    /**
+     * Number of entities decided by each task in the decide phase of a SIMULTANEOUS tick
+     */
+    private static final int DECIDE_BLOCK = 1024;
+    /**
+     * Worlds with fewer entities than this decide on the calling thread
+     */
+    private static final int PARALLEL_DECIDE = 4096;
+    /**
+     * Worlds with more locations than this are stored sparsely (in chunks) unless asked otherwise
+     */
+    private static final long DENSE_CELLS = 1 << 22;
+
+    /**
+     * A new world of ROWSxCOLUMNS in size (stored sparsely if it has more than DENSE_CELLS locations)
+     *
+     * @param rows    The 1D of the 2D world (rows)
+     * @param columns The 2D of the 2D world (columns)
+     */
+    public World(int rows, int columns) {
+        this(rows, columns, (long) rows * columns > DENSE_CELLS);
+    }
+
+    /**
+     * A new world of ROWSxCOLUMNS in size
+     *
+     * @param rows    The 1D of the 2D world (rows)
+     * @param columns The 2D of the 2D world (columns)
+     * @param sparse  Should the map be stored in chunks that are only allocated while they hold an entity (memory
+     *                grows with the number of entities instead of the area of the map)
+     */
+    public World(int rows, int columns, boolean sparse) {
+        this(sparse ? new ChunkedGrid(rows, columns) : new DenseGrid(rows, columns));
+    }
+
+    /**
+     * A new world using the given map storage
+     *
+     * @param world The empty map of the world
+     */
+    private World(Grid world) {
+        this(world, new EntityStore(), new long[INITIAL_CAPACITY]);
+    }
+
+    /**
+     * A new world using the given map storage and entities
+     *
+     * @param world     The map of the world (its bitboards are built from what is on it)
+     * @param entities  The entities of the world
+     * @param locations The packed location of each entity
+     */
+    private World(Grid world, EntityStore entities, long[] locations) {
+        this.world = world;
+        this.occupancy = world instanceof DenseGrid ? new Occupancy(world.getRows(), world.getColumns()) : null;
+        this.entities = entities;
+        this.locations = locations;
+        entities.setWorld(this);
+        //Starts active
+        this.state = State.ACTIVE;
+        world.forEachOccupied((row, column, cell) -> updateOccupancy(row, column));
+    }
+
+    /**
+     * Is this simulation still considered ACTIVE
+     *
+     * @return True if the simulation still active, otherwise False
+     */
+    public boolean isActive() {
+        return state == State.ACTIVE;
+    }
+
+    /**
+     * End the simulation, (Set in INACTIVE)
+     */
+    public void endSimulation() {
+        this.state = State.INACTIVE;
+    }
+
+    /**
+     * Advance the simulation one step
+     */
+    public void advanceSimulation() {
+        //Do not advance if simulation is done
+        if (state == State.INACTIVE) {
+            return;
+        }
+        if (metrics != null) {
+            metrics.startTick();
+        }
+        //Java Flight Recorder keeps the event only if the tick is slow enough (see TickEvent)
+        TickEvent event = new TickEvent();
+        event.begin();
+        //The local windows are re-used (moved around) for every entity instead of building a new local World each time
+        if (attackWindows == null) {
+            attackWindows = windows(attackSizes);
+            moveWindows = windows(moveSizes);
+            actors = entities.actors();
+        }
+        if (pursuitTicks > 0 && (heroFlow == null || tick - pursuitTick >= pursuitTicks)) {
+            long lap = now();
+            computePursuit();
+            lap(Phase.DECIDE, lap);
+        }
+        //Only build the move/attack/death messages if someone will see them
+        boolean logActions = Menu.isLogging(LogLevel.ACTION);
+        if (tickMode == TickMode.SIMULTANEOUS) {
+            advanceSimultaneous(logActions);
+        } else {
+            advanceSequential(logActions);
+        }
+        long lap = now();
+        tick++;
+        entities.compactActive();
+        checkActive();
+        if (recorder != null) {
+            recorder.endTick(this);
+        }
+        if (metrics != null) {
+            lap(Phase.CHECK, lap);
+            metrics.endTick();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tick - 1;
+            event.liveEntities = getHeroesAlive() + getMonstersAlive();
+            event.commit();
+        }
+    }
+
+    /**
+     * The time now if measuring (see setMetrics)
+     *
+     * @return System.nanoTime(), 0 if not measuring
+     */
+    private long now() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Add the time since an earlier now() to a phase of this tick if measuring
+     *
+     * @param phase The phase the time was spent on
+     * @param since The earlier time
+     * @return The time now (to measure the next phase from), 0 if not measuring
+     */
+    private long lap(Phase phase, long since) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.addTime(phase, now - since);
+        return now;
+    }
+
+    /**
+     * Every ALIVE entity in turn decides and then attacks or moves, seeing the world as changed by those before it
+     *
+     * @param logActions Should moves/attacks/deaths be printed
+     */
+    private void advanceSequential(boolean logActions) {
+        //If not done go through the active entities (this will be in order read and added from file, the dead are
+        //skipped without looking at them)
+        long lap = now();
+        for (int position = 0; position < entities.activeSize(); position++) {
+            int index = entities.activeIndex(position);
+            //If entity is something that is ALIVE, we want to give it a turn to ATTACK or MOVE (it may have been
+            //killed earlier this tick)
+            if (entities.isAlive(index)) {
+                Entity entity = entities.actor(index, actors);
+                //Get location of entity (only the world knows this, the entity does not itself)
+                long location = locations[index];
+                //Pull out row,column
+                int row = getRow(location);
+                int column = getColumn(location);
+                //Each faction looks through windows of its own size
+                LocalWindow attackWindow = attackWindows[entities.getFaction(index)];
+                LocalWindow moveWindow = moveWindows[entities.getFaction(index)];
+                //In STREAMS mode the decision draws from its own stream instead of the shared generator
+                if (randomMode == RandomMode.STREAMS) {
+                    long decisionSeed = StreamRandom.seedOf(seed, tick, entities.getId(index), RandomPurpose.DECISION);
+                    attackWindow.useRandomSeed(decisionSeed);
+                    moveWindow.useRandomSeed(decisionSeed);
+                }
+                //Determine if/where an entity wants to attack
+                DecisionEvent decision = new DecisionEvent();
+                decision.begin();
+                Direction attackWhere = entity.attackWhere(attackWindow.center(row, column));
+                //If I don't attack, then I must be moving, figure out where entity wants to move
+                Direction moveWhere = attackWhere == null ? entity.chooseMove(moveWindow.center(row, column)) : null;
+                decision.decided(entity, attackWhere, moveWhere);
+                lap = lap(Phase.DECIDE, lap);
+                if (attackWhere == null) {
+                    move(index, row, column, moveWhere, logActions);
+                    lap = lap(Phase.MOVE, lap);
+                } else {
+                    //If we are here our earlier attack question was not null, and we are attacking a nearby entity
+                    attack(index, row, column, attackWhere, attackDistance(index, row, column, attackWhere), logActions);
+                    lap = lap(Phase.ATTACK, lap);
+                }
+            }
+        }
+        useParentRandom(attackWindows);
+        useParentRandom(moveWindows);
+    }
+
+    /**
+     * Decide phase: every ALIVE entity decides against the world as it is at the start of the tick (nothing changes
+     * while deciding, so this is done in parallel for large worlds). Every decision draws random choices from its own
+     * stream (in RandomMode.COMPATIBLE made from one draw of the world's generator and the entity's index) so the
+     * decisions do not depend on the number of threads.
+     * Resolve phase (in entity order): first every attack, with damage rolled and applied in entity order (an entity
+     * killed earlier in the tick still makes its attack, an attack on an entity already killed this tick fails), then
+     * every move of entities still ALIVE, where a move into a place already taken this tick fails.
+     *
+     * @param logActions Should moves/attacks/deaths be printed
+     */
+    private void advanceSimultaneous(boolean logActions) {
+        int count = entities.size();
+        if (decisions == null || decisions.length < count) {
+            decisions = new Direction[Math.max(count, INITIAL_CAPACITY)];
+            attacking = new boolean[decisions.length];
+            attackFrom = new long[decisions.length];
+            attackDistances = new int[decisions.length];
+        }
+        long tickSeed = randomMode == RandomMode.STREAMS ? seed : getRandom().nextLong();
+        int activeCount = entities.activeSize();
+
+        //Decide phase (each block of active entities gets its own windows as windows are moved around for every entity)
+        long lap = now();
+        int blocks = (activeCount + DECIDE_BLOCK - 1) / DECIDE_BLOCK;
+        IntStream decide = IntStream.range(0, blocks);
+        if (activeCount >= PARALLEL_DECIDE) {
+            decide = decide.parallel();
+        }
+        decide.forEach(block -> {
+            boolean shared = blocks == 1;
+            LocalWindow[] attackLocal = shared ? attackWindows : windows(attackSizes);
+            LocalWindow[] moveLocal = shared ? moveWindows : windows(moveSizes);
+            Entity[] actorsLocal = shared ? actors : entities.actors();
+            int end = Math.min(activeCount, (block + 1) * DECIDE_BLOCK);
+            for (int position = block * DECIDE_BLOCK; position < end; position++) {
+                decide(entities.activeIndex(position), tickSeed, attackLocal, moveLocal, actorsLocal);
+            }
+            useParentRandom(attackLocal);
+            useParentRandom(moveLocal);
+        });
+        lap = lap(Phase.DECIDE, lap);
+
+        //Resolve attacks
+        for (int position = 0; position < activeCount; position++) {
+            int index = entities.activeIndex(position);
+            if (attacking[index]) {
+                long location = attackFrom[index];
+                attack(index, getRow(location), getColumn(location), decisions[index], attackDistances[index],
+                        logActions);
+            }
+        }
+        lap = lap(Phase.ATTACK, lap);
+        //Resolve moves
+        for (int position = 0; position < activeCount; position++) {
+            int index = entities.activeIndex(position);
+            if (decisions[index] != null && !attacking[index] && entities.isAlive(index)) {
+                long location = locations[index];
+                move(index, getRow(location), getColumn(location), decisions[index], logActions);
+            }
+            decisions[index] = null;
+            attacking[index] = false;
+        }
+        lap(Phase.MOVE, lap);
+    }
+
+    /**
+     * New windows into this world for each faction
+     *
+     * @param sizes The size of the window of each faction
+     * @return The windows, indexed by EntityStore.HERO/MONSTER (none for EntityStore.NONE)
+     */
+    private LocalWindow[] windows(int[] sizes) {
+        LocalWindow[] windows = new LocalWindow[sizes.length];
+        windows[EntityStore.HERO] = new LocalWindow(this, sizes[EntityStore.HERO]);
+        windows[EntityStore.MONSTER] = new LocalWindow(this, sizes[EntityStore.MONSTER]);
+        return windows;
+    }
+
+    /**
+     * Make every window of a faction set go back to the parent's random number generator
+     *
+     * @param windows The windows (see windows)
+     */
+    private static void useParentRandom(LocalWindow[] windows) {
+        windows[EntityStore.HERO].useParentRandom();
+        windows[EntityStore.MONSTER].useParentRandom();
+    }
+
+    /**
+     * Record the decision (attack or move) of one entity for a simultaneous tick
+     *
+     * @param index         The index of the entity
+     * @param tickSeed      The random seed of this tick (the world seed in RandomMode.STREAMS)
+     * @param attackWindows The window of each faction to decide attacks with
+     * @param moveWindows   The window of each faction to decide moves with
+     * @param actors        The view of each faction to decide with (see EntityStore.actor)
+     */
+    private void decide(int index, long tickSeed, LocalWindow[] attackWindows, LocalWindow[] moveWindows,
+                        Entity[] actors) {
+        if (!entities.isAlive(index)) {
+            return;
+        }
+        LocalWindow attackLocal = attackWindows[entities.getFaction(index)];
+        LocalWindow moveLocal = moveWindows[entities.getFaction(index)];
+        Entity entity = entities.actor(index, actors);
+        long location = locations[index];
+        int row = getRow(location);
+        int column = getColumn(location);
+        long decisionSeed = randomMode == RandomMode.STREAMS
+                ? StreamRandom.seedOf(tickSeed, tick, entities.getId(index), RandomPurpose.DECISION)
+                : StreamRandom.mix(tickSeed, index);
+        DecisionEvent decision = new DecisionEvent();
+        decision.begin();
+        attackLocal.useRandomSeed(decisionSeed);
+        Direction attackWhere = entity.attackWhere(attackLocal.center(row, column));
+        if (attackWhere != null) {
+            decisions[index] = attackWhere;
+            attacking[index] = true;
+            attackFrom[index] = location;
+            attackDistances[index] = attackDistance(index, row, column, attackWhere);
+        } else {
+            moveLocal.useRandomSeed(decisionSeed);
+            decisions[index] = entity.chooseMove(moveLocal.center(row, column));
+        }
+        decision.decided(entity, attackWhere, decisions[index]);
+    }
+
+    /**
+     * Move an entity if it can move that way (with logging)
+     *
+     * @param index      The index of the entity moving
+     * @param row        The row of the entity
+     * @param column     The column of the entity
+     * @param moveWhere  The direction it wants to move
+     * @param logActions Should the move be printed
+     */
+    private void move(int index, int row, int column, Direction moveWhere, boolean logActions) {
+        //Log moving
+        if (logActions) {
+            Menu.println(String.format("%s moving %s", entities.shortString(index), moveWhere));
+        }
+        //If this move is valid, then move it
+        boolean free = canMoveOnTopOf(row, column, moveWhere);
+        if (metrics != null && moveWhere != Direction.STAY) {
+            metrics.moved(free);
+        }
+        if (free) {
+            moveEntity(row, column, moveWhere);
+            if (recorder != null) {
+                recorder.move(index, moveWhere);
+            }
+        } else if (logActions) {
+            //Otherwise, indicate an invalid attempt to move
+            Menu.println(String.format("%s  tried to move somewhere it could not!", entities.shortString(index)));
+        }
+    }
+
+    /**
+     * How far along a direction an attack goes from a location: to the first thing in the way (not floor or DEAD)
+     * within the attacker's range (half its attack view), or to the end of its range or the map. With the default 3x3
+     * attack view this is always the neighbouring location.
+     *
+     * @param index       The index of the attacking entity
+     * @param row         The row of the attacking entity
+     * @param column      The column of the attacking entity
+     * @param attackWhere The direction it is attacking
+     * @return The number of steps to the location attacked (at least 1)
+     */
+    private int attackDistance(int index, int row, int column, Direction attackWhere) {
+        int range = attackSizes[entities.getFaction(index)] / 2;
+        int distance = 1;
+        int attackRow = row + attackWhere.getRowChange();
+        int attackColumn = column + attackWhere.getColumnChange();
+        while (distance < range && canMoveOnTopOf(attackRow, attackColumn)) {
+            attackRow += attackWhere.getRowChange();
+            attackColumn += attackWhere.getColumnChange();
+            if (attackRow < 0 || attackRow >= getRows() || attackColumn < 0 || attackColumn >= getColumns()) {
+                break;
+            }
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * Attack the location a distance away in a direction (as decided, see attackDistance), rolling damage with the
+     * world's random number generator (with logging). The attack only lands on an ALIVE entity of the other side: if
+     * the target has died or gone since the attack was decided (earlier in a SIMULTANEOUS tick) the attack misses, it
+     * never carries on to whatever is behind.
+     *
+     * @param index       The index of the attacking entity
+     * @param row         The row of the attacking entity
+     * @param column      The column of the attacking entity
+     * @param attackWhere The direction it is attacking
+     * @param distance    The number of steps to the location attacked
+     * @param logActions  Should the attack be printed
+     */
+    private void attack(int index, int row, int column, Direction attackWhere, int distance, boolean logActions) {
+        int attackRow = row + distance * attackWhere.getRowChange();
+        int attackColumn = column + distance * attackWhere.getColumnChange();
+        //Get what we are attacking
+        int attacked = world.get(attackRow, attackColumn);
+        if (metrics != null) {
+            metrics.attacked();
+        }
+        if (logActions) {
+            Menu.println(String.format("%s attacking %s in direction %s", entities.shortString(index), attackWhere,
+                    attacked == Grid.FLOOR ? "nothing" : shortString(attacked)));
+        }
+        //Can we attack this entity (an ALIVE enemy)
+        int attackedIndex = attacked > 0 && entities.canBeAttacked(attacked - 1) ? attacked - 1 : -1;
+        if (attackedIndex >= 0 && entities.getFaction(attackedIndex) != entities.getFaction(index)) {
+            int armor = entities.getArmorStrength(attackedIndex);
+            //Determine damage using RNG
+            int damage = damageRandom(index).nextInt(1, entities.getWeaponStrength(index) + 1);
+            int true_damage = Math.max(0, damage - armor);
+            AttackEvent event = new AttackEvent();
+            if (event.shouldCommit()) {
+                event.attackerId = entities.getId(index);
+                event.targetId = entities.getId(attackedIndex);
+                event.damage = damage;
+                event.trueDamage = true_damage;
+                event.commit();
+            }
+            if (logActions) {
+                Menu.println(String.format("%s attacked %s for %d damage against %d defense for %d", entities.shortString(index), entities.shortString(attackedIndex), damage, armor, true_damage));
+            }
+            if (recorder != null && true_damage > 0) {
+                recorder.damage(attackedIndex, true_damage);
+            }
+            if (entities.damage(attackedIndex, true_damage)) {
+                died(attackedIndex);
+                if (logActions) {
+                    Menu.println(String.format("%s died!", entities.shortString(attackedIndex)));
+                }
+            }
+        } else if (logActions) {
+            Menu.println(String.format("%s  tried to attack somewhere it could not!", entities.shortString(index)));
+        }
+    }
+
+    /**
+     * The "CLASS(ID)" form of what is in a cell of the map
+     *
+     * @param cell The cell value (not floor)
+     * @return The short string of the wall or entity
+     */
+    private String shortString(int cell) {
+        return cell == Grid.WALL ? Wall.getWall().shortString() : entities.shortString(cell - 1);
+    }
+
+    /**
+     * The random number generator to roll the damage of an attack with
+     *
+     * @param index The index of the attacking entity
+     * @return The attacker's damage stream for this tick in RandomMode.STREAMS, otherwise the world's generator
+     */
+    private Random damageRandom(int index) {
+        if (randomMode != RandomMode.STREAMS) {
+            return getRandom();
+        }
+        long damageSeed = StreamRandom.seedOf(seed, tick, entities.getId(index), RandomPurpose.DAMAGE);
+        if (damageRandom == null) {
+            damageRandom = new StreamRandom(damageSeed);
+        } else {
+            damageRandom.setSeed(damageSeed);
+        }
+        return damageRandom;
+    }
+
+    /**
+     * Set how entities take their turns each tick
+     *
+     * @param tickMode SEQUENTIAL (the default) or SIMULTANEOUS
+     */
+    public void setTickMode(TickMode tickMode) {
+        this.tickMode = tickMode;
+    }
+
+    /**
+     * How entities take their turns each tick
+     *
+     * @return The tick mode of this world
+     */
+    public TickMode getTickMode() {
+        return tickMode;
+    }
+
+    /**
+     * Give this world its own random number generator (so several worlds can run at once and stay reproducible)
+     *
+     * @param random The random number generator for damage rolls and random moves in this world
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+        this.randomMode = RandomMode.COMPATIBLE;
+    }
+
+    /**
+     * Draw every random number of this world from its own stream derived from (seed, tick, entity ID, purpose), so a
+     * seed gives the same simulation whatever order entities are evaluated in and however many threads are used
+     * (RandomMode.STREAMS). setRandom goes back to RandomMode.COMPATIBLE.
+     *
+     * @param seed The seed every stream is derived from
+     */
+    public void useRandomStreams(long seed) {
+        this.randomMode = RandomMode.STREAMS;
+        this.seed = seed;
+    }
+
+    /**
+     * Record the changes of every tick from now on to a replay (a keyframe of the world as it is now is recorded first)
+     *
+     * @param recorder The replay to record to (null stops recording, the replay itself is not closed)
+     * @throws IOException If the first keyframe cannot be written
+     */
+    public void setRecorder(ReplayRecorder recorder) throws IOException {
+        if (recorder != null) {
+            recorder.start(this);
+        }
+        this.recorder = recorder;
+    }
+
+    /**
+     * Measure every tick from now on (see TickMetrics), with no cost to the simulation while not measuring
+     *
+     * @param metrics The metrics to record into (null stops measuring)
+     */
+    public void setMetrics(TickMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The metrics every tick is measured into
+     *
+     * @return The metrics, null if not measuring
+     */
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set how far every entity sees (see setVision for one type of entity)
+     *
+     * @param attackSize The width and height of the attack view (odd, 3 to 63, 3 by default)
+     * @param moveSize   The width and height of the move view (odd, 3 to 63, 5 by default)
+     * @throws IllegalArgumentException If a size is not odd or not from 3 to 63
+     */
+    public void setVision(int attackSize, int moveSize) {
+        setVision(Hero.class, attackSize, moveSize);
+        setVision(Monster.class, attackSize, moveSize);
+    }
+
+    /**
+     * Set how far one type of entity sees. An entity attacks the nearest enemy in a straight line within half its
+     * attack view (nothing but floor and DEAD entities in between), and otherwise closes in on the nearest enemy in
+     * its move view. The scans read one row of the view at a time as bits, so a decision costs about the width of the
+     * view, not its area. The default 3x3 attack and 5x5 move views give the same simulation as always.
+     *
+     * @param type       Hero.class or Monster.class
+     * @param attackSize The width and height of the attack view (odd, 3 to 63, 3 by default)
+     * @param moveSize   The width and height of the move view (odd, 3 to 63, 5 by default)
+     * @throws IllegalArgumentException If the type is not Hero or Monster, or a size is not odd or not from 3 to 63
+     */
+    public void setVision(Class<? extends Entity> type, int attackSize, int moveSize) {
+        byte faction = factionOf(type);
+        checkVisionSize(attackSize);
+        checkVisionSize(moveSize);
+        attackSizes[faction] = attackSize;
+        moveSizes[faction] = moveSize;
+        //The windows are made again at the new sizes on the next tick
+        attackWindows = null;
+        moveWindows = null;
+    }
+
+    /**
+     * The size of the attack view of a type of entity
+     *
+     * @param type Hero.class or Monster.class
+     * @return The width and height of its attack view
+     * @throws IllegalArgumentException If the type is not Hero or Monster
+     */
+    public int getAttackSize(Class<? extends Entity> type) {
+        return attackSizes[factionOf(type)];
+    }
+
+    /**
+     * The size of the move view of a type of entity
+     *
+     * @param type Hero.class or Monster.class
+     * @return The width and height of its move view
+     * @throws IllegalArgumentException If the type is not Hero or Monster
+     */
+    public int getMoveSize(Class<? extends Entity> type) {
+        return moveSizes[factionOf(type)];
+    }
+
+    /**
+     * The faction of a type of entity that has a vision
+     *
+     * @param type Hero.class or Monster.class
+     * @return EntityStore.HERO or EntityStore.MONSTER
+     * @throws IllegalArgumentException If the type is not Hero or Monster
+     */
+    private static byte factionOf(Class<? extends Entity> type) {
+        if (type == Hero.class) {
+            return EntityStore.HERO;
+        } else if (type == Monster.class) {
+            return EntityStore.MONSTER;
+        }
+        throw new IllegalArgumentException("Only heroes and monsters have a vision, not " + type.getSimpleName());
+    }
+
+    /**
+     * Check the size of a view
+     *
+     * @param size The width and height of the view
+     * @throws IllegalArgumentException If the size is not odd or not from 3 to Vision.MAX_SIZE
+     */
+    private static void checkVisionSize(int size) {
+        if (size % 2 == 0 || size < 3 || size > Vision.MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid view size " + size + ", size must be an odd integer from 3 to " + Vision.MAX_SIZE);
+        }
+    }
+
+    /**
+     * Turn on pursuit mode: an entity with no enemy in its local view steps towards the nearest ALIVE enemy on the
+     * whole map (around walls) instead of drifting. One flow field per faction is computed from every ALIVE enemy at
+     * once at the start of a tick and shared by the whole faction, so a tick costs two passes over the map however
+     * many entities pursue. Recomputing only every few ticks trades accuracy (entities head to where enemies were) for
+     * speed. Only dense maps can pursue, sparse ones are far too big for a field of every location.
+     *
+     * @param recomputeTicks Ticks between recomputing the flow fields (1 is every tick, 0 turns pursuit off)
+     * @throws IllegalArgumentException If recomputeTicks is negative
+     * @throws IllegalStateException    If the map is stored sparsely
+     */
+    public void setPursuit(int recomputeTicks) {
+        if (recomputeTicks < 0) {
+            throw new IllegalArgumentException("Pursuit must be recomputed every 1 or more ticks (or 0 for off)");
+        }
+        if (recomputeTicks > 0 && isSparse()) {
+            throw new IllegalStateException("Pursuit needs a densely stored map");
+        }
+        this.pursuitTicks = recomputeTicks;
+        this.heroFlow = null;
+        this.monsterFlow = null;
+    }
+
+    /**
+     * Ticks between recomputing the pursuit flow fields
+     *
+     * @return The interval given to setPursuit (0 if pursuit is off)
+     */
+    public int getPursuitTicks() {
+        return pursuitTicks;
+    }
+
+    /**
+     * Recompute both flow fields from where the ALIVE entities are now
+     */
+    private void computePursuit() {
+        int rows = world.getRows();
+        int columns = world.getColumns();
+        if (heroFlow == null) {
+            heroFlow = new FlowField(rows, columns);
+            monsterFlow = new FlowField(rows, columns);
+        }
+        if (pursuitQueue == null) {
+            pursuitQueue = new int[rows * columns];
+        }
+        if (pursuitTargets == null || pursuitTargets.length < entities.size()) {
+            pursuitTargets = new int[entities.size()];
+        }
+        heroFlow.compute(world, pursuitTargets, findTargets(EntityStore.MONSTER, columns), pursuitQueue);
+        monsterFlow.compute(world, pursuitTargets, findTargets(EntityStore.HERO, columns), pursuitQueue);
+        pursuitTick = tick;
+    }
+
+    /**
+     * Fill pursuitTargets with the locations of a faction's ALIVE entities, in entity order
+     *
+     * @param faction The faction to find
+     * @param columns The number of columns of the map
+     * @return The number of locations found
+     */
+    private int findTargets(byte faction, int columns) {
+        int count = 0;
+        for (int position = 0; position < entities.activeSize(); position++) {
+            int index = entities.activeIndex(position);
+            if (entities.isAlive(index) && entities.getFaction(index) == faction) {
+                long location = locations[index];
+                pursuitTargets[count++] = getRow(location) * columns + getColumn(location);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The first step from a location towards the nearest enemy of a hunter
+     *
+     * @param hunter The entity looking for an enemy
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The direction of the step, null if pursuit is off or no enemy can be reached
+     */
+    Direction pursuitFrom(Entity hunter, int row, int column) {
+        if (heroFlow == null) {
+            return null;
+        }
+        return (hunter instanceof Hero ? heroFlow : monsterFlow).get(row, column);
+    }
+
+    /**
+     * The tick the pursuit flow fields were last computed at
+     *
+     * @return The tick, meaningless if they were never computed
      */
-    private final ArrayList<Entity> entities;
+    int getPursuitTick() {
+        return pursuitTick;
+    }
+
+    /**
+     * The flow field of a faction (saved in checkpoints)
+     *
+     * @param heroes The heroes' field (or the monsters')
+     * @return The field, null if never computed
+     */
+    FlowField getFlowField(boolean heroes) {
+        return heroes ? heroFlow : monsterFlow;
+    }
+
+    /**
+     * Restore the pursuit mode and flow fields of a checkpoint
+     *
+     * @param recomputeTicks Ticks between recomputing the flow fields (0 if pursuit is off)
+     * @param tick           The tick the fields were computed at
+     * @param heroFlow       The heroes' field (null if never computed)
+     * @param monsterFlow    The monsters' field (null if never computed)
+     */
+    void restorePursuit(int recomputeTicks, int tick, FlowField heroFlow, FlowField monsterFlow) {
+        this.pursuitTicks = recomputeTicks;
+        this.pursuitTick = tick;
+        this.heroFlow = heroFlow;
+        this.monsterFlow = monsterFlow;
+    }
+
+    /**
+     * How random numbers are drawn
+     *
+     * @return COMPATIBLE (one shared java.util.Random, the default) or STREAMS
+     */
+    public RandomMode getRandomMode() {
+        return randomMode;
+    }
+
+    /**
+     * The random number generator of this world
+     *
+     * @return This world's own random number generator, otherwise the program-wide Main.random
+     */
+    @Override
+    public Random getRandom() {
+        return random != null ? random : Main.random;
+    }
+
+    /**
+     * Number of times the simulation has been advanced
+     *
+     * @return The number of ticks simulated so far
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Number of heroes still ALIVE (kept up to date as entities are added and die, so this does not scan anything)
+     *
+     * @return The number of alive heroes
+     */
+    public int getHeroesAlive() {
+        return entities.getAliveCount(EntityStore.HERO);
+    }
+
+    /**
+     * Number of monsters still ALIVE
+     *
+     * @return The number of alive monsters
+     */
+    public int getMonstersAlive() {
+        return entities.getAliveCount(EntityStore.MONSTER);
+    }
+
+    /**
+     * Number of heroes DEAD (added dead, or killed since)
+     *
+     * @return The number of dead heroes
+     */
+    public int getHeroesDead() {
+        return entities.getDeadCount(EntityStore.HERO);
+    }
+
+    /**
+     * Number of monsters DEAD (added dead, or killed since)
+     *
+     * @return The number of dead monsters
+     */
+    public int getMonstersDead() {
+        return entities.getDeadCount(EntityStore.MONSTER);
+    }
+
     /**
-     * We use a HashMap to track entity location in world {row, column}
-     * We will update this every time an Entity is shifted in the world Entity[][]
+     * Total health of all heroes still ALIVE
+     *
+     * @return The summed health of alive heroes (a long, as millions of entities can pass the range of an int)
      */
-    private final HashMap<Entity, Integer[]> locations;
+    public long getHeroHealth() {
+        return entities.getHealthTotal(EntityStore.HERO);
+    }
 
     /**
-     * The local view of world will be 3x3 grid for attacking
+     * Total health of all monsters still ALIVE
+     *
+     * @return The summed health of alive monsters
      */
-    private static final int ATTACK_WORLD_SIZE = 3;
+    public long getMonsterHealth() {
+        return entities.getHealthTotal(EntityStore.MONSTER);
+    }
+
     /**
-     * The local view of world will be 5x5 grid for moving
+     * A snapshot of the statistics of this world (tick, outcome and per faction counts and health), built from the
+     * counters kept as entities are added and die without scanning the entities. Take it between ticks.
+     *
+     * @return The statistics of this world now
      */
-    private static final int MOVE_WORLD_SIZE = 5;
+    public WorldStats getStats() {
+        return new WorldStats(tick, getOutcome(), getHeroesAlive(), getMonstersAlive(), getHeroesDead(),
+                getMonstersDead(), getHeroHealth(), getMonsterHealth());
+    }
 
     /**
-     * A new world of ROWSxCOLUMNS in size
+     * How did the simulation finish
      *
-     * @param rows    The 1D of the 2D world (rows)
-     * @param columns The 2D of the 2D world (columns)
+     * @return The winning side, NO_WINNER if neither side is alive, or UNFINISHED if both sides are still alive
      */
-    public World(int rows, int columns) {
-        this.world = new Entity[rows][columns];
-        this.entities = new ArrayList<>();
-        this.locations = new HashMap<>();
-        //Starts active
-        this.state = State.ACTIVE;
+    public Outcome getOutcome() {
+        boolean hero_alive = getHeroesAlive() > 0;
+        boolean monster_alive = getMonstersAlive() > 0;
+        if (hero_alive && monster_alive) {
+            return Outcome.UNFINISHED;
+        } else if (hero_alive) {
+            return Outcome.HEROES_WIN;
+        } else if (monster_alive) {
+            return Outcome.MONSTERS_WIN;
+        }
+        return Outcome.NO_WINNER;
     }
 
     /**
-     * Is this simulation still considered ACTIVE
+     * Check if simulation has now ended (only one of two versus Entity types is alive
+     */
+    private void checkActive() {
+        if (getHeroesAlive() == 0 || getMonstersAlive() == 0) {
+            state = State.INACTIVE;
+        }
+    }
+
+    /**
+     * An entity was damaged through its Entity object (outside the tick): record the damage, and if it died take it
+     * off its location and end the simulation if a side has no one left, as a tick would
      *
-     * @return True if the simulation still active, otherwise False
+     * @param index  The index of the entity damaged
+     * @param damage The damage taken
+     * @param died   Did the damage kill the entity
      */
-    public boolean isActive() {
-        return state == State.ACTIVE;
+    void damaged(int index, int damage, boolean died) {
+        if (recorder != null && damage > 0) {
+            recorder.damage(index, damage);
+        }
+        if (died) {
+            died(index);
+            checkActive();
+        }
     }
 
     /**
-     * End the simulation, (Set in INACTIVE)
+     * An entity has just died: it loses its location but stays on the map (where it can now be moved on top of)
+     *
+     * @param index The index of the entity that died
      */
-    public void endSimulation() {
-        this.state = State.INACTIVE;
+    private void died(int index) {
+        if (metrics != null) {
+            metrics.died();
+        }
+        long location = locations[index];
+        locations[index] = NO_LOCATION;
+        updateOccupancy(getRow(location), getColumn(location));
     }
 
     /**
-     * Advance the simulation one step
+     * Bring the bitboards of a location up to date with what is on it now
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
      */
-    public void advanceSimulation() {
-        //Do not advance if simulation is done
-        if (state == State.INACTIVE) {
+    private void updateOccupancy(int row, int column) {
+        if (occupancy == null) {
             return;
         }
-        //If not done go through all entities (this will be in order read and added from file)
-        for (Entity entity : entities) {
-            //If entity is something that is ALIVE, we want to give it a turn to ATTACK or MOVE
-            if (entity.isAlive()) {
-                //Get location of entity (only the world knows this, the entity does not itself)
-                Integer[] location = locations.get(entity);
-                //Pull out row,column
-                int row = location[0];
-                int column = location[1];
-                //Determine if/where an entity wants to attack
-                World attackWorld3X3 = getLocal(ATTACK_WORLD_SIZE, row, column);
-                Direction attackWhere = entity.attackWhere(attackWorld3X3);
-                //If I don't attack, then I must be moving
-                if (attackWhere == null) {
-                    //Figure out where entity wants to move
-                    World moveWorld5x5 = getLocal(MOVE_WORLD_SIZE, row, column);
-                    Direction moveWhere = entity.chooseMove(moveWorld5x5);
-                    //Log moving
-                    Menu.println(String.format("%s moving %s", entity.shortString(), moveWhere));
-                    //If this move is valid, then move it
-                    if (canMoveOnTopOf(row, column, moveWhere)) {
-                        moveEntity(row, column, moveWhere);
-                    } else {
-                        //Otherwise, indicate an invalid attempt to move
-                        Menu.println(String.format("%s  tried to move somewhere it could not!", entity.shortString()));
-                    }
-                } else {
-                    //If we are here our earlier attack question was not null, and we are attacking a nearby entity
-                    //Get the entity we are attacking
-                    Entity attacked = getEntity(row, column, attackWhere);
-                    Menu.println(String.format("%s attacking %s in direction %s", entity.shortString(), attackWhere, attacked.shortString()));
-                    //Can we attack this entity
-                    if (canBeAttacked(row, column, attackWhere)) {
-                        //Determine damage using RNG
-                        int damage = Main.random.nextInt(1, entity.weaponStrength() + 1);
-                        int true_damage = Math.max(0, damage - attacked.armorStrength());
-                        Menu.println(String.format("%s attacked %s for %d damage against %d defense for %d", entity.shortString(), attacked.shortString(), damage, attacked.armorStrength(), true_damage));
-                        attacked.damage(true_damage);
-                        if (!attacked.isAlive()) {
-                            locations.remove(attacked);
-                            Menu.println(String.format("%s died!", attacked.shortString()));
-                        }
-                    } else {
-                        Menu.println(String.format("%s  tried to attack somewhere it could not!", entity.shortString()));
-                    }
-                }
-            }
+        int cell = world.get(row, column);
+        if (cell > 0) {
+            int index = cell - 1;
+            boolean alive = entities.isAlive(index);
+            byte faction = entities.getFaction(index);
+            occupancy.update(row, column, alive && faction == EntityStore.HERO, alive && faction == EntityStore.MONSTER,
+                    !entities.canMoveOnTopOf(index));
+        } else {
+            occupancy.update(row, column, false, false, cell == Grid.WALL);
         }
-        checkActive();
     }
 
     /**
-     * Check if simulation has now ended (only one of two versus Entity types is alive
+     * The bitboards of this world's map
+     *
+     * @return The bitboards, null if the map is stored sparsely (the AI then looks at every location)
      */
-    private void checkActive() {
-        boolean hero_alive = false;
-        boolean monster_alive = false;
-        for (Entity entity : entities) {
-            if (entity.isAlive()) {
-                if (entity instanceof Monster) {
-                    monster_alive = true;
-                } else if (entity instanceof Hero) {
-                    hero_alive = true;
-                }
-            }
-        }
-        if (!(hero_alive && monster_alive)) {
-            state = State.INACTIVE;
-        }
+    Occupancy getOccupancy() {
+        return occupancy;
     }
 
     /**
@@ -169,12 +1119,16 @@ public class World {
      * @param d      The direction to move the entity in
      */
     public void moveEntity(int row, int column, Direction d) {
-        Entity entity = getEntity(row, column);
+        int cell = world.get(row, column);
         int moveRow = row + d.getRowChange();
         int moveColumn = column + d.getColumnChange();
-        this.world[moveRow][moveColumn] = entity;
-        this.world[row][column] = null;
-        this.locations.put(entity, new Integer[]{moveRow, moveColumn});
+        this.world.set(moveRow, moveColumn, cell);
+        this.world.set(row, column, Grid.FLOOR);
+        if (cell > 0) {
+            this.locations[cell - 1] = packLocation(moveRow, moveColumn);
+        }
+        updateOccupancy(moveRow, moveColumn);
+        updateOccupancy(row, column);
     }
 
     /**
@@ -185,9 +1139,192 @@ public class World {
      * @param entity The entity to add
      */
     public void addEntity(int row, int column, Entity entity) {
-        this.world[row][column] = entity;
-        this.entities.add(entity);
-        locations.put(entity, new Integer[]{row, column});
+        int index = register(entity, packLocation(row, column));
+        placeEntity(row, column, entity instanceof Wall ? WALL_INDEX : index);
+    }
+
+    /**
+     * Add a new hero without creating a Hero object (for loading huge worlds, it gets the next entity ID as if it had
+     * been created with new Hero)
+     *
+     * @param row            The row location of the new hero
+     * @param column         The column location of the new hero
+     * @param health         Health of hero
+     * @param symbol         Symbol for map to show hero
+     * @param weaponStrength The weapon strength of the hero
+     * @param armorStrength  The armor strength of the hero
+     */
+    public void addHero(int row, int column, int health, char symbol, int weaponStrength, int armorStrength) {
+        EntityStore.checkHealth(health);
+        int index = register(entities.add(EntityStore.HERO, Entity.nextId(), symbol, health, weaponStrength,
+                armorStrength), packLocation(row, column));
+        placeEntity(row, column, index);
+    }
+
+    /**
+     * Add a new monster without creating a Monster object (for loading huge worlds, it gets the next entity ID as if it
+     * had been created with new Monster)
+     *
+     * @param row        The row location of the new monster
+     * @param column     The column location of the new monster
+     * @param health     Health of Monster
+     * @param symbol     Symbol for map to show Monster
+     * @param weaponType The weapon type of the Monster
+     */
+    public void addMonster(int row, int column, int health, char symbol, WeaponType weaponType) {
+        EntityStore.checkHealth(health);
+        int index = register(entities.add(EntityStore.MONSTER, Entity.nextId(), symbol, health,
+                weaponType.getWeaponStrength(), Monster.MONSTER_ARMOR_STRENGTH), packLocation(row, column));
+        placeEntity(row, column, index);
+    }
+
+    /**
+     * Is there anything (an entity ALIVE or DEAD, or a wall) at a location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return True if the location is not floor
+     */
+    public boolean isOccupied(int row, int column) {
+        return world.get(row, column) != Grid.FLOOR;
+    }
+
+    /**
+     * Add an entity to the end of the entity order with the given location (does not place it in the world grid)
+     * An entity made on its own becomes a view of this world's store, so it keeps seeing its values as they change
+     *
+     * @param entity   The entity to add
+     * @param location The packed location of the entity (or NO_LOCATION)
+     * @return The dense index given to the entity
+     */
+    private int register(Entity entity, long location) {
+        int index = this.entities.add(entity);
+        //An entity stays a view of the first World it was added to (local views re-use entities of their parent)
+        if (entity.getStore().isDetached() && !(entity instanceof Wall)) {
+            entity.bind(entities, index);
+        }
+        return register(index, location);
+    }
+
+    /**
+     * Set the location of an entity just added to the store
+     *
+     * @param index    The index the store gave the entity
+     * @param location The packed location of the entity (or NO_LOCATION)
+     * @return The index
+     */
+    private int register(int index, long location) {
+        if (index == locations.length) {
+            locations = Arrays.copyOf(locations, index * 2);
+        }
+        locations[index] = location;
+        return index;
+    }
+
+    /**
+     * Create an independent copy of this world: every entity is copied (keeping its ID), and the map, entity order,
+     * locations, tick and state are the same. The copy shares nothing with this world, so both can be simulated at
+     * the same time (give the copy its own random number generator with setRandom or useRandomStreams)
+     *
+     * @return A copy of this world
+     */
+    public World copy() {
+        Grid map = world.emptyCopy();
+        world.forEachOccupied(map::set);
+        World copy = new World(map, entities.copy(), locations.clone());
+        copy.state = state;
+        copy.tick = tick;
+        copy.tickMode = tickMode;
+        copy.randomMode = randomMode;
+        copy.seed = seed;
+        System.arraycopy(attackSizes, 0, copy.attackSizes, 0, attackSizes.length);
+        System.arraycopy(moveSizes, 0, copy.moveSizes, 0, moveSizes.length);
+        copy.pursuitTicks = pursuitTicks;
+        copy.pursuitTick = pursuitTick;
+        if (heroFlow != null) {
+            copy.heroFlow = new FlowField(world.getRows(), world.getColumns(), heroFlow.getFlow().clone());
+            copy.monsterFlow = new FlowField(world.getRows(), world.getColumns(), monsterFlow.getFlow().clone());
+        }
+        return copy;
+    }
+
+    /**
+     * Find the dense index of an entity in this world
+     * Normally this is the index the entity stored when it was added, only entities shared with another World need
+     * the slower search
+     *
+     * @param entity The entity to find
+     * @return The index of the entity in entities (and locations)
+     */
+    int indexOf(Entity entity) {
+        if (entity.getStore() == entities) {
+            return entity.getIndex();
+        }
+        for (int index = 0; index < entities.size(); index++) {
+            if (entities.getView(index) == entity) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Pack a row and column into a single long location
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The row in the high 32 bits and column in the low 32 bits
+     */
+    private static long packLocation(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the row out of a packed location
+     *
+     * @param location The packed location
+     * @return The row of the location
+     */
+    private static int getRow(long location) {
+        return (int) (location >> 32);
+    }
+
+    /**
+     * Get the column out of a packed location
+     *
+     * @param location The packed location
+     * @return The column of the location
+     */
+    private static int getColumn(long location) {
+        return (int) location;
+    }
+
+    /**
+     * The width and height of this world as a local view (a local World made by getLocal is square)
+     *
+     * @return The number of rows in this world
+     */
+    @Override
+    public int getSize() {
+        return getRows();
+    }
+
+    /**
+     * Get the number of rows in this world
+     *
+     * @return The 1D of the 2D world (rows)
+     */
+    public int getRows() {
+        return world.getRows();
+    }
+
+    /**
+     * Get the number of columns in this world
+     *
+     * @return The 2D of the 2D world (columns)
+     */
+    public int getColumns() {
+        return world.getColumns();
     }
 
     /**
@@ -197,8 +1334,13 @@ public class World {
      * @param column The column of the entity
      * @return The Entity at the given row, column
      */
+    @Override
     public Entity getEntity(int row, int column) {
-        return this.world[row][column];
+        int cell = this.world.get(row, column);
+        if (cell == Grid.FLOOR) {
+            return null;
+        }
+        return cell == Grid.WALL ? Wall.getWall() : entities.getEntity(cell - 1);
     }
 
     /**
@@ -209,6 +1351,7 @@ public class World {
      * @param d      The direction adjust look up towards
      * @return The Entity at the given row, column
      */
+    @Override
     public Entity getEntity(int row, int column, Direction d) {
         return getEntity(row + d.getRowChange(), column + d.getColumnChange());
     }
@@ -220,12 +1363,13 @@ public class World {
      * @param column The column to check
      * @return True if we can move to that location
      */
+    @Override
     public boolean canMoveOnTopOf(int row, int column) {
-        Entity entity = getEntity(row, column);
-        if (entity == null) {
+        int cell = world.get(row, column);
+        if (cell == Grid.FLOOR) {
             return true;
         }
-        return entity.canMoveOnTopOf();
+        return cell != Grid.WALL && entities.canMoveOnTopOf(cell - 1);
     }
 
     /**
@@ -236,6 +1380,7 @@ public class World {
      * @param d      The direction adjust look up towards
      * @return True if we can move to that location
      */
+    @Override
     public boolean canMoveOnTopOf(int row, int column, Direction d) {
         return canMoveOnTopOf(row + d.getRowChange(), column + d.getColumnChange());
     }
@@ -248,12 +1393,8 @@ public class World {
      * @return True if we can attack entity at that location
      */
     public boolean canBeAttacked(int row, int column) {
-        Entity entity = getEntity(row, column);
-        if (entity == null) {
-            return false;
-        }
-        return entity.canBeAttacked();
-
+        int cell = world.get(row, column);
+        return cell > 0 && entities.canBeAttacked(cell - 1);
     }
 
     /**
@@ -276,12 +1417,10 @@ public class World {
      * @param column The column to check
      * @return True if entity is a hero at that location
      */
+    @Override
     public boolean isHero(int row, int column) {
-        Entity entity = getEntity(row, column);
-        if (entity == null) {
-            return false;
-        }
-        return entity instanceof Hero;
+        int cell = world.get(row, column);
+        return cell > 0 && entities.getFaction(cell - 1) == EntityStore.HERO;
     }
 
 
@@ -292,32 +1431,80 @@ public class World {
      * @param column The column to check
      * @return True if entity is a monster at that location
      */
+    @Override
     public boolean isMonster(int row, int column) {
-        Entity entity = getEntity(row, column);
-        if (entity == null) {
+        int cell = world.get(row, column);
+        return cell > 0 && entities.getFaction(cell - 1) == EntityStore.MONSTER;
+    }
+
+    /**
+     * Which locations of a row of this world hold an ALIVE hero
+     *
+     * @param row    The row to check
+     * @param length The number of locations from column 0 to check (at most 63)
+     * @return Bit i set if the location at column i holds an ALIVE hero
+     */
+    @Override
+    public long aliveHeroBits(int row, int length) {
+        return aliveBits(row, length, EntityStore.HERO);
+    }
+
+    /**
+     * Which locations of a row of this world hold an ALIVE monster
+     *
+     * @param row    The row to check
+     * @param length The number of locations from column 0 to check (at most 63)
+     * @return Bit i set if the location at column i holds an ALIVE monster
+     */
+    @Override
+    public long aliveMonsterBits(int row, int length) {
+        return aliveBits(row, length, EntityStore.MONSTER);
+    }
+
+    /**
+     * Which locations of a row of this world hold an ALIVE entity of a faction (read from the store, without
+     * creating views)
+     *
+     * @param row     The row to check
+     * @param length  The number of locations from column 0 to check (at most 63)
+     * @param faction EntityStore.HERO or EntityStore.MONSTER
+     * @return Bit i set if the location at column i holds an ALIVE entity of the faction
+     */
+    private long aliveBits(int row, int length, byte faction) {
+        long bits = 0;
+        for (int column = 0; column < length; column++) {
+            if (isAliveAt(row, column, faction)) {
+                bits |= 1L << column;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Does a location hold an ALIVE entity of a faction
+     *
+     * @param row     The row to check
+     * @param column  The column to check
+     * @param faction EntityStore.HERO or EntityStore.MONSTER
+     * @return True if it does, false for anything else or outside the map
+     */
+    boolean isAliveAt(int row, int column, byte faction) {
+        if (row < 0 || row >= getRows() || column < 0 || column >= getColumns()) {
             return false;
         }
-        return entity instanceof Monster;
+        int cell = world.get(row, column);
+        return cell > 0 && entities.getFaction(cell - 1) == faction && entities.isAlive(cell - 1);
     }
 
     /**
      * World method that outputs the world as a string. It will output a map generated by the worldString Method and
      * a tab '\t' separated table of entities (Monsters/Heroes) from the user input file. The 5 columns in the table
      * will be type of entity, symbol of entity, health, state (ALIVE/DEAD), INFO unique to the entity.
+     * (Built in linear time by WorldRenderer, which can also write it straight to a channel)
      * @return map generated by worldString method and table of entities.
      */
     public String gameString(){
-
-        //Creating a string to hold table (with the header premade) for the table of entities
-        String table = "NAME  \tS\tH\tSTATE\tINFO\n";
-
-        // looping through each entity contained in the array list entities and adding it to the table
-        for (Entity entity : entities) {
-            table = table + entity + "\n";
-        }
-
-        // concatenate the world map (made by the worldString() function to the table
-        return worldString() + "\n" + table;
+        return WorldRenderer.gameString(this);
     }
 
 
@@ -327,78 +1514,199 @@ public class World {
      * @return returns the world map of the game as a string to the caller
      */
     public String worldString(){
-        // String holding the game map
-        String map = "";
+        return WorldRenderer.worldString(this);
+    }
 
-        // String to hold the walls for the top and bottom of the map
-        String topBotWall = "";
+    /**
+     * Symbol to show on the map for a location. Floor (null) is '.', alive entities are their own symbol, dead heroes
+     * and monsters are '$', and anything else (walls, which are put in by getLocal) is '#'
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @return The map symbol for the location
+     */
+    char getMapSymbol(int row, int column) {
+        int cell = world.get(row, column);
+        if (cell == Grid.FLOOR) {
+            return Symbol.FLOOR.getSymbol();
+        } else if (cell == Grid.WALL) {
+            return Symbol.WALL.getSymbol();
+        } else if (entities.isAlive(cell - 1)) {
+            return entities.getSymbol(cell - 1);
+        } else if (entities.getFaction(cell - 1) != EntityStore.NONE) {
+            return Symbol.DEAD.getSymbol();
+        }
+        return Symbol.WALL.getSymbol();
+    }
 
-        /*Creating the walls for the top and bottom of the map, this will get the number of columns of the array world
-          using index 0 to access the first row. Then it will add 2 to it so the walls will be able to line up with the
-          side walls. Then the loop will add the appropriate number of wall pieces to the string topBotWall for
-          the top and bottom walls of the map
-        */
+    /**
+     * Number of entities ever added to this world (ALIVE or DEAD)
+     *
+     * @return The number of entities in the entity order
+     */
+    int getEntityCount() {
+        return entities.size();
+    }
 
-        int rowCounter = 0;
-        int columnCounter = 0;
+    /**
+     * Get an entity by its place in the entity order (its view is created if it has none yet)
+     *
+     * @param index The dense index of the entity
+     * @return The entity at that place in the order
+     */
+    Entity getEntityAt(int index) {
+        return entities.getEntity(index);
+    }
 
-        for (int i = 0; i< (world[0].length + 2); i++){
-            topBotWall += Symbol.WALL.getSymbol();
-        }
+    /**
+     * The store holding the values of this world's entities (read by the renderer and checkpoints, which write
+     * them without creating views)
+     *
+     * @return The entity store
+     */
+    EntityStore getEntityStore() {
+        return entities;
+    }
 
-        // adding the top wall to the map with a newline escape
-        map = map + topBotWall + "\n";
+    /**
+     * Get the packed location of an entity by its place in the entity order
+     *
+     * @param index The dense index of the entity
+     * @return The packed row/column of the entity (NO_LOCATION once it is dead)
+     */
+    long getLocationAt(int index) {
+        return locations[index];
+    }
 
-        // loop through the rows of the world array
-        for (Entity[] rows : world){
-            // add left wall to the row of the map before we loop through said row and get the columns
-            map = map + Symbol.WALL.getSymbol();
+    /**
+     * Something that is called for every location of a world that holds an entity or a wall
+     */
+    interface EntityVisitor {
+        /**
+         * Visit one location
+         *
+         * @param row    The row of the location
+         * @param column The column of the location
+         * @param entity The entity (or wall) at the location
+         */
+        void visit(int row, int column, Entity entity);
+    }
 
-            // looping through each column of the array and adding whatever is contained there to the map, this can
-            // be an Entity (dead = $, alive = symbol) or floor (if column is null)
-            for (Entity column : rows){
+    /**
+     * Visit every location of the map that holds an entity (ALIVE or DEAD), creating the views of the entities
+     *
+     * @param visitor Called with the row, column and entity of each occupied location
+     */
+    void forEachOccupied(EntityVisitor visitor) {
+        world.forEachOccupied((row, column, cell) -> visitor.visit(row, column, getEntity(row, column)));
+    }
 
-                if (column == null){
-                    map = map + Symbol.FLOOR.getSymbol();
-                }
-                else if (column.isAlive()){
-                    map = map + column.getSymbol();
-                }
-                // checks if dead hero if so then put symbol of dead entity
-                else if (column.isDead() && isHero(rowCounter, columnCounter)){
-                    map = map + Symbol.DEAD.getSymbol();
-                }
-                // checks if dead monster if so then put symbol of dead entity
-                else if (column.isDead() && isMonster(rowCounter, columnCounter)) {
-                    map = map + Symbol.DEAD.getSymbol();
-                }
-                // if anything else this is a wall so put wall here, this is mainly used for the getLocal where it puts
-                // walls within the function, so if we need to print that function this is here to ensure it is done
-                // properly
-                else{
-                    map = map + Symbol.WALL.getSymbol();
-                }
+    /**
+     * Visit every location of the map that is not floor, by cell value (Grid.WALL or entity index + 1)
+     *
+     * @param visitor Called with the row, column and cell value of each occupied location
+     */
+    void forEachCell(Grid.CellVisitor visitor) {
+        world.forEachOccupied(visitor);
+    }
 
-                // increment columnCounter
-                columnCounter++;
-            }
-            // adding a right wall piece for this row of the map and new line so each row of the map is separate
-            map = map + Symbol.WALL.getSymbol() + "\n";
-            //increment rowCounter
-            rowCounter ++;
-            // reset columnCounter at end of columns
-            columnCounter = 0;
+    /**
+     * Is the map stored sparsely (in chunks that are only allocated while they hold an entity)
+     *
+     * @return True for a sparse map, false for a dense one
+     */
+    boolean isSparse() {
+        return world instanceof ChunkedGrid;
+    }
+
+    /**
+     * Add an entity to the end of the entity order from its saved values and location, without placing it on the map
+     * (used when restoring a checkpoint, the map is restored separately with placeEntity)
+     *
+     * @param faction        EntityStore.HERO, EntityStore.MONSTER or EntityStore.NONE (a wall)
+     * @param id             The ID of the entity
+     * @param symbol         The map symbol of the entity
+     * @param health         The health of the entity
+     * @param weaponStrength The weapon strength of the entity
+     * @param armorStrength  The armor strength of the entity
+     * @param location       The packed location of the entity (or NO_LOCATION)
+     */
+    void restoreEntity(byte faction, int id, char symbol, int health, int weaponStrength, int armorStrength,
+                       long location) {
+        if (faction == EntityStore.NONE) {
+            register(Wall.getWall(), location);
+        } else {
+            register(entities.add(faction, id, symbol, health, weaponStrength, armorStrength), location);
+        }
+    }
+
+    /**
+     * Put an entity on the map only (used when restoring a checkpoint)
+     *
+     * @param row    The row of the location
+     * @param column The column of the location
+     * @param index  The index of the entity at the location (WALL_INDEX for a wall)
+     */
+    void placeEntity(int row, int column, int index) {
+        world.set(row, column, index == WALL_INDEX ? Grid.WALL : index + 1);
+        updateOccupancy(row, column);
+    }
+
+    /**
+     * Restore the tick count and state of a checkpoint
+     *
+     * @param tick   The number of ticks already simulated
+     * @param active Is the simulation still ACTIVE
+     */
+    void restoreProgress(int tick, boolean active) {
+        this.tick = tick;
+        this.state = active ? State.ACTIVE : State.INACTIVE;
+    }
+
+    /**
+     * Replay a recorded move: the entity moves one step in a direction (the move was already checked when recorded)
+     *
+     * @param index The index of the entity moving
+     * @param d     The direction it moved
+     */
+    void replayMove(int index, Direction d) {
+        long location = locations[index];
+        moveEntity(getRow(location), getColumn(location), d);
+    }
+
+    /**
+     * Replay recorded damage (an entity killed by it loses its location but stays on the map, as in a tick)
+     *
+     * @param index  The index of the entity damaged
+     * @param damage The damage taken (after armor)
+     */
+    void replayDamage(int index, int damage) {
+        if (entities.damage(index, damage)) {
+            died(index);
         }
+    }
 
-        // adding the bottom wall to the map
-        map = map + topBotWall;
+    /**
+     * Replay the end of a recorded tick
+     *
+     * @param active Was the simulation still ACTIVE after the tick
+     */
+    void replayEndTick(boolean active) {
+        entities.compactActive();
+        restoreProgress(tick + 1, active);
+    }
 
-        // return the map
-        return map;
+    /**
+     * The seed random streams are derived from in RandomMode.STREAMS
+     *
+     * @return The seed given to useRandomStreams (0 if never called)
+     */
+    long getSeed() {
+        return seed;
     }
 
     /**
-     *Function that creates a world that is the local sub-view of the Entity[][] 2D array called world, centered around an entity specified
+     *Function that creates a world that is the local sub-view of the 2D grid called world, centered around an entity specified
      * by the row/column parameters. Areas outside the original world will be filled with walls, and all entities
      * present in the original world will be transferred over in their appropriate locations. This allows entities to
      * see what direction to move and where to attack
@@ -417,8 +1725,8 @@ public class World {
         World localWorld = new World(size, size);
 
         // getting the max row and column index of the existing world
-        int maxRowIndex = world.length - 1;
-        int maxColumnIndex = (world[0].length)-1;
+        int maxRowIndex = getRows() - 1;
+        int maxColumnIndex = getColumns() - 1;
 
         // correction factor which is how many spaces all around the hero to reach the edge of the board, this is the
         // integer division of the size of the board/world
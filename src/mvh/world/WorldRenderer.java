@@ -0,0 +1,248 @@
+package mvh.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.stream.IntStream;
+import mvh.enums.Symbol;
+
+/**
+ * Renders the map and entity table of a World (the same text as World.worldString() and World.gameString()) in
+ * linear time, either into an Appendable or as bytes (see encode, which is how Menu.printWorld shows every tick). Large
+ * worlds are rendered in blocks of rows (and blocks of entities) in parallel on the common ForkJoin pool and then
+ * written with a single gathering write.
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class WorldRenderer {
+
+    /**
+     * Header of the entity table in gameString
+     */
+    static final String TABLE_HEADER = "NAME  \tS\tH\tSTATE\tINFO\n";
+
+    /**
+     * Number of map rows rendered by each parallel task
+     */
+    private static final int ROWS_PER_BLOCK = 64;
+    /**
+     * Number of entity table lines rendered by each parallel task
+     */
+    private static final int ENTITIES_PER_BLOCK = 4096;
+    /**
+     * Worlds with fewer cells than this are rendered on the calling thread
+     */
+    private static final long PARALLEL_CELLS = 1 << 16;
+
+    /**
+     * So we hide the constructor (only static helpers)
+     */
+    private WorldRenderer() {
+    }
+
+    /**
+     * Build the map of the world (same as World.worldString())
+     *
+     * @param world The world to render
+     * @return The map of the world
+     */
+    static String worldString(World world) {
+        StringBuilder builder = new StringBuilder(mapLength(world));
+        appendMap(world, builder, 0, world.getRows());
+        return builder.toString();
+    }
+
+    /**
+     * Build the map and entity table of the world (same as World.gameString())
+     *
+     * @param world The world to render
+     * @return The map and entity table of the world
+     */
+    static String gameString(World world) {
+        StringBuilder builder = new StringBuilder(mapLength(world) + 1 + TABLE_HEADER.length() + world.getEntityCount() * 32);
+        appendMap(world, builder, 0, world.getRows());
+        builder.append('\n').append(TABLE_HEADER);
+        appendTable(world, builder, 0, world.getEntityCount());
+        return builder.toString();
+    }
+
+    /**
+     * Write the map and entity table of the world (same text as World.gameString()) to an Appendable
+     *
+     * @param world The world to render
+     * @param out   Where to write the text
+     * @throws IOException If the Appendable cannot be written to
+     */
+    public static void render(World world, Appendable out) throws IOException {
+        // render a block of rows at a time so a slow Appendable is not called once per cell
+        for (int row = 0; row < world.getRows(); row += ROWS_PER_BLOCK) {
+            StringBuilder block = new StringBuilder();
+            appendMap(world, block, row, Math.min(world.getRows(), row + ROWS_PER_BLOCK));
+            out.append(block);
+        }
+        out.append('\n').append(TABLE_HEADER);
+        for (int index = 0; index < world.getEntityCount(); index += ENTITIES_PER_BLOCK) {
+            StringBuilder block = new StringBuilder();
+            appendTable(world, block, index, Math.min(world.getEntityCount(), index + ENTITIES_PER_BLOCK));
+            out.append(block);
+        }
+    }
+
+    /**
+     * Write the map and entity table of the world (same text as World.gameString()) followed by a new line to a
+     * channel, encoded with the default charset (see encode). Large worlds are rendered in parallel and written with a
+     * single gathering write if the channel supports it.
+     *
+     * @param world   The world to render
+     * @param channel Where to write the bytes
+     * @return The number of bytes written
+     * @throws IOException If the channel cannot be written to
+     */
+    public static long write(World world, WritableByteChannel channel) throws IOException {
+        ByteBuffer[] buffers = encode(world);
+        long written = 0;
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            int first = 0;
+            while (first < buffers.length) {
+                written += gathering.write(buffers, first, buffers.length - first);
+                while (first < buffers.length && !buffers[first].hasRemaining()) {
+                    first++;
+                }
+            }
+        } else {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Render the map and entity table of the world (same text as World.gameString()) followed by a new line as bytes
+     * in the default charset, the same bytes Menu.println would produce (characters the charset cannot encode become
+     * its replacement, '?'). Large worlds are rendered in parallel, a block of rows or entities per buffer.
+     *
+     * @param world The world to render
+     * @return The bytes, in order, ready for a gathering write
+     */
+    public static ByteBuffer[] encode(World world) {
+        int rows = world.getRows();
+        int entityCount = world.getEntityCount();
+        int rowBlocks = (rows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+        int entityBlocks = (entityCount + ENTITIES_PER_BLOCK - 1) / ENTITIES_PER_BLOCK;
+        // one buffer per block of rows, then the table header, then one per block of entities, then the new line
+        ByteBuffer[] buffers = new ByteBuffer[rowBlocks + 1 + entityBlocks + 1];
+        IntStream blocks = IntStream.range(0, rowBlocks + entityBlocks);
+        if ((long) rows * world.getColumns() + entityCount >= PARALLEL_CELLS) {
+            blocks = blocks.parallel();
+        }
+        blocks.forEach(block -> {
+            StringBuilder text = new StringBuilder();
+            if (block < rowBlocks) {
+                int from = block * ROWS_PER_BLOCK;
+                appendMap(world, text, from, Math.min(rows, from + ROWS_PER_BLOCK));
+                buffers[block] = encode(text);
+            } else {
+                int from = (block - rowBlocks) * ENTITIES_PER_BLOCK;
+                appendTable(world, text, from, Math.min(entityCount, from + ENTITIES_PER_BLOCK));
+                buffers[block + 1] = encode(text);
+            }
+        });
+        buffers[rowBlocks] = encode("\n" + TABLE_HEADER);
+        buffers[buffers.length - 1] = encode(System.lineSeparator());
+        return buffers;
+    }
+
+    /**
+     * Encode text with the default charset (characters it cannot encode become its replacement)
+     *
+     * @param text The text to encode
+     * @return The encoded bytes ready to be written
+     */
+    private static ByteBuffer encode(CharSequence text) {
+        try {
+            return Charset.defaultCharset().newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .encode(CharBuffer.wrap(text));
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException("Unable to encode world for output!", e);
+        }
+    }
+
+    /**
+     * Number of characters in the full map of the world
+     *
+     * @param world The world
+     * @return The length of worldString()
+     */
+    private static int mapLength(World world) {
+        long width = world.getColumns() + 3L;
+        long length = width * (world.getRows() + 2) - 1;
+        return (int) Math.min(Integer.MAX_VALUE - 8, length);
+    }
+
+    /**
+     * Append part of the map, the top wall is added with the first row and the bottom wall with the last
+     * Walls are '#', floor is '.', dead entities are '$', and alive entities are their own symbol
+     *
+     * @param world   The world to render
+     * @param builder Where to add the text
+     * @param fromRow The first row to render
+     * @param toRow   The row after the last row to render
+     */
+    private static void appendMap(World world, StringBuilder builder, int fromRow, int toRow) {
+        int columns = world.getColumns();
+        char wall = Symbol.WALL.getSymbol();
+        if (fromRow == 0) {
+            appendWall(builder, columns + 2);
+            builder.append('\n');
+        }
+        for (int row = fromRow; row < toRow; row++) {
+            builder.append(wall);
+            for (int column = 0; column < columns; column++) {
+                builder.append(world.getMapSymbol(row, column));
+            }
+            builder.append(wall).append('\n');
+        }
+        if (toRow == world.getRows()) {
+            appendWall(builder, columns + 2);
+        }
+    }
+
+    /**
+     * Append a top/bottom wall
+     *
+     * @param builder Where to add the wall
+     * @param length  The number of wall pieces
+     */
+    private static void appendWall(StringBuilder builder, int length) {
+        for (int i = 0; i < length; i++) {
+            builder.append(Symbol.WALL.getSymbol());
+        }
+    }
+
+    /**
+     * Append lines of the entity table (one entity toString() per line, written from the store without creating
+     * views, so blocks can be rendered in parallel)
+     *
+     * @param world     The world to render
+     * @param builder   Where to add the text
+     * @param fromIndex The index of the first entity to add
+     * @param toIndex   The index after the last entity to add
+     */
+    private static void appendTable(World world, StringBuilder builder, int fromIndex, int toIndex) {
+        EntityStore entities = world.getEntityStore();
+        for (int index = fromIndex; index < toIndex; index++) {
+            entities.appendTo(builder, index).append('\n');
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package mvh.world;
+
+import mvh.enums.Outcome;
+
+/**
+ * An unchanging snapshot of the statistics of a World at one tick (see World.getStats()), so monitoring can read how a
+ * simulation is going without scanning the entities or touching the World while it is being simulated
+ * @author Ryan Loi
+ * @version 1.0
+ */
+public final class WorldStats {
+
+    /**
+     * The number of ticks simulated
+     */
+    private final int tick;
+    /**
+     * How the simulation stands (UNFINISHED while both sides are alive)
+     */
+    private final Outcome outcome;
+    /**
+     * Number of heroes ALIVE
+     */
+    private final int heroesAlive;
+    /**
+     * Number of monsters ALIVE
+     */
+    private final int monstersAlive;
+    /**
+     * Number of heroes DEAD
+     */
+    private final int heroesDead;
+    /**
+     * Number of monsters DEAD
+     */
+    private final int monstersDead;
+    /**
+     * Total health of the heroes ALIVE
+     */
+    private final long heroHealth;
+    /**
+     * Total health of the monsters ALIVE
+     */
+    private final long monsterHealth;
+
+    /**
+     * A snapshot of the statistics of a World
+     *
+     * @param tick          The number of ticks simulated
+     * @param outcome       How the simulation stands
+     * @param heroesAlive   Number of heroes ALIVE
+     * @param monstersAlive Number of monsters ALIVE
+     * @param heroesDead    Number of heroes DEAD
+     * @param monstersDead  Number of monsters DEAD
+     * @param heroHealth    Total health of the heroes ALIVE
+     * @param monsterHealth Total health of the monsters ALIVE
+     */
+    WorldStats(int tick, Outcome outcome, int heroesAlive, int monstersAlive, int heroesDead, int monstersDead,
+               long heroHealth, long monsterHealth) {
+        this.tick = tick;
+        this.outcome = outcome;
+        this.heroesAlive = heroesAlive;
+        this.monstersAlive = monstersAlive;
+        this.heroesDead = heroesDead;
+        this.monstersDead = monstersDead;
+        this.heroHealth = heroHealth;
+        this.monsterHealth = monsterHealth;
+    }
+
+    /**
+     * Get the tick
+     *
+     * @return The number of ticks simulated
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Get the outcome
+     *
+     * @return How the simulation stands (UNFINISHED while both sides are alive)
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Get the heroes alive
+     *
+     * @return Number of heroes ALIVE
+     */
+    public int getHeroesAlive() {
+        return heroesAlive;
+    }
+
+    /**
+     * Get the monsters alive
+     *
+     * @return Number of monsters ALIVE
+     */
+    public int getMonstersAlive() {
+        return monstersAlive;
+    }
+
+    /**
+     * Get the heroes dead
+     *
+     * @return Number of heroes DEAD
+     */
+    public int getHeroesDead() {
+        return heroesDead;
+    }
+
+    /**
+     * Get the monsters dead
+     *
+     * @return Number of monsters DEAD
+     */
+    public int getMonstersDead() {
+        return monstersDead;
+    }
+
+    /**
+     * Get the hero health
+     *
+     * @return Total health of the heroes ALIVE
+     */
+    public long getHeroHealth() {
+        return heroHealth;
+    }
+
+    /**
+     * Get the monster health
+     *
+     * @return Total health of the monsters ALIVE
+     */
+    public long getMonsterHealth() {
+        return monsterHealth;
+    }
+
+    /**
+     * The statistics on one line, e.g. tick=12 outcome=UNFINISHED heroes=2/3 monsters=1/3 heroHealth=9 monsterHealth=4
+     * (alive/total for each side)
+     *
+     * @return The statistics as text
+     */
+    @Override
+    public String toString() {
+        return String.format("tick=%d outcome=%s heroes=%d/%d monsters=%d/%d heroHealth=%d monsterHealth=%d", tick, outcome,
+                heroesAlive, heroesAlive + heroesDead, monstersAlive, monstersAlive + monstersDead, heroHealth, monsterHealth);
+    }
+}